@@ -38,7 +38,8 @@ import im.ene.toro.widget.PressablePlayerSelector;
  */
 
 @SuppressWarnings({ "WeakerAccess", "unused" }) //
-class BasicPlayerViewHolder extends RecyclerView.ViewHolder implements ToroPlayer {
+class BasicPlayerViewHolder extends RecyclerView.ViewHolder
+    implements ToroPlayer, ToroPlayer.PlaybackInfoReader {
 
   private static final String TAG = "Toro:Basic:Holder";
 
@@ -63,6 +64,14 @@ class BasicPlayerViewHolder extends RecyclerView.ViewHolder implements ToroPlaye
     return helper != null ? helper.getLatestPlaybackInfo() : new PlaybackInfo();
   }
 
+  @Override public void readPlaybackInfo(@NonNull PlaybackInfo out) {
+    if (helper != null) {
+      helper.readPlaybackInfo(out);
+    } else {
+      out.reset();
+    }
+  }
+
   @Override
   public void initialize(@NonNull Container container, @NonNull PlaybackInfo playbackInfo) {
     if (helper == null) {
@@ -32,6 +32,7 @@ import butterknife.BindView;
 import com.google.android.exoplayer2.ui.AspectRatioFrameLayout;
 import com.google.android.exoplayer2.ui.PlayerView;
 import im.ene.toro.exoplayer.Playable;
+import im.ene.toro.exoplayer.PlayerHandoff;
 import im.ene.toro.exoplayer.ToroExo;
 import im.ene.toro.media.PlaybackInfo;
 import im.ene.toro.sample.R;
@@ -128,6 +129,8 @@ public class BigPlayerFragment extends BlackBoardDialogFragment {
 
   @BindView(R.id.big_player) PlayerView playerView;
   Playable playerHelper;
+  // The playback lent by the Timeline, if any. Preferred over creating a new Playable.
+  PlayerHandoff.Loan loan;
 
   @Override public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
     super.onViewCreated(view, savedInstanceState);
@@ -174,6 +177,13 @@ public class BigPlayerFragment extends BlackBoardDialogFragment {
 
   @Override public void onStart() {
     super.onStart();
+    if (loan == null && playerHelper == null) loan = PlayerHandoff.get(videoItem.index);
+    if (loan != null) {
+      loan.moveTo(playerView);
+      loan.play();
+      return;
+    }
+
     if (playerHelper == null) {
       playerHelper = ToroExo.with(getContext()).getDefaultCreator() //
           .createPlayable(videoItem.getMediaUrl().getUri(), null);
@@ -186,6 +196,7 @@ public class BigPlayerFragment extends BlackBoardDialogFragment {
 
   @Override public void onStop() {
     super.onStop();
+    if (loan != null) loan.pause();
     if (playerHelper != null) playerHelper.pause();
   }
 
@@ -193,11 +204,17 @@ public class BigPlayerFragment extends BlackBoardDialogFragment {
     super.onSaveInstanceState(outState);
     outState.putInt(ARG_KEY_VIDEO_ORDER, videoOrder);
     outState.putParcelable(ARG_KEY_VIDEO_ITEM, videoItem);
+    if (loan != null) playbackInfo = loan.getPlaybackInfo();
     if (playerHelper != null) playbackInfo = playerHelper.getPlaybackInfo();
     outState.putParcelable(ARG_KEY_INIT_INFO, playbackInfo);
   }
 
   @Override public void onDestroyView() {
+    if (loan != null) {
+      playbackInfo = loan.getPlaybackInfo();
+      loan.giveBack();
+      loan = null;
+    }
     if (playerHelper != null) {
       playbackInfo = playerHelper.getPlaybackInfo();
       playerHelper.setPlayerView(null);
@@ -217,6 +234,7 @@ public class BigPlayerFragment extends BlackBoardDialogFragment {
 
   public Bundle getCurrentState() {
     PlaybackInfo info = playbackInfo;
+    if (loan != null) info = loan.getPlaybackInfo();
     if (playerHelper != null) info = playerHelper.getPlaybackInfo();
     Bundle bundle = new Bundle();
     bundle.putParcelable(BUNDLE_KEY_VIDEO, videoItem);
@@ -191,6 +191,14 @@ public class TimelineFragment extends BaseFragment
       outState.putInt(STATE_KEY_ACTIVE_ORDER, firstPlayer.getPlayerOrder());
       outState.putParcelable(STATE_KEY_FB_VIDEO, item);
       outState.putParcelable(STATE_KEY_PLAYBACK_STATE, firstPlayer.getCurrentPlaybackInfo());
+      // Going to be recreated in landscape, which shows the Big Player. Lend the on-going playback
+      // so that the Big Player can continue it without buffering again. If nobody claims it, the
+      // Loan is given back (and the playback released) shortly after the Container is gone.
+      if (getActivity() != null && getActivity().isChangingConfigurations()
+          && !ScreenHelper.shouldUseBigPlayer(windowManager.getDefaultDisplay())
+          && firstPlayer instanceof TimelineVideoViewHolder) {
+        ((TimelineVideoViewHolder) firstPlayer).lend(((FbVideo) item).index);
+      }
     } else {
       // Real practice should not face the following issue, only for debugging.
       if (BuildConfig.DEBUG) {
@@ -27,6 +27,7 @@ import im.ene.toro.ToroPlayer;
 import im.ene.toro.ToroUtil;
 import im.ene.toro.exoplayer.ExoPlayerViewHelper;
 import im.ene.toro.exoplayer.Playable;
+import im.ene.toro.exoplayer.PlayerHandoff;
 import im.ene.toro.media.PlaybackInfo;
 import im.ene.toro.sample.R;
 import im.ene.toro.sample.common.MediaUrl;
@@ -122,4 +123,9 @@ public class TimelineVideoViewHolder extends TimelineViewHolder implements ToroP
   @Override public int getPlayerOrder() {
     return getAdapterPosition();
   }
+
+  // Lend current playback to another PlayerView, see BigPlayerFragment.
+  @Nullable PlayerHandoff.Loan lend(@NonNull Object key) {
+    return helper != null ? PlayerHandoff.lend(key, helper, null) : null;
+  }
 }
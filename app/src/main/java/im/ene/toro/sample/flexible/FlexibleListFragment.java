@@ -38,6 +38,7 @@ import com.google.android.material.appbar.CollapsingToolbarLayout;
 import im.ene.toro.PlayerSelector;
 import im.ene.toro.ToroPlayer;
 import im.ene.toro.annotations.Sorted;
+import im.ene.toro.exoplayer.RetainedPlayers;
 import im.ene.toro.media.PlaybackInfo;
 import im.ene.toro.sample.R;
 import im.ene.toro.sample.common.BaseFragment;
@@ -119,6 +120,8 @@ public class FlexibleListFragment extends BaseFragment {
     });
     container.setAdapter(adapter);
     container.setCacheManager(adapter);
+    // Keep the playing players alive on rotation.
+    RetainedPlayers.of(this).attach(container);
 
     itemTouchHelper = new ItemTouchHelper(  //
         new ItemTouchHelper.SimpleCallback(UP | DOWN | LEFT | RIGHT, 0) {
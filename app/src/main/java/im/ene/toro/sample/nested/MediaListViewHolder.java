@@ -16,7 +16,6 @@
 
 package im.ene.toro.sample.nested;
 
-import android.util.SparseArray;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -82,10 +81,10 @@ class MediaListViewHolder extends BaseViewHolder implements ToroPlayer {
   }
 
   @NonNull @Override public PlaybackInfo getCurrentPlaybackInfo() {
-    SparseArray<PlaybackInfo> actualInfos = container.getLatestPlaybackInfos();
-    ExtraPlaybackInfo resultInfo = new ExtraPlaybackInfo(actualInfos);
-
-    List<ToroPlayer> activePlayers = container.filterBy(Container.Filter.PLAYING);
+    // PlaybackInfos of the nested players are kept by the parent Container, in its StateSnapshot.
+    // Only the position to resume is needed here.
+    PlaybackInfo resultInfo = new PlaybackInfo();
+    List<ToroPlayer> activePlayers = container.getPlayingPlayers();
     if (activePlayers.size() >= 1) {
       resultInfo.setResumeWindow(activePlayers.get(0).getPlayerOrder());
     }
@@ -95,18 +94,7 @@ class MediaListViewHolder extends BaseViewHolder implements ToroPlayer {
 
   @Override
   public void initialize(@NonNull Container container, @Nullable PlaybackInfo playbackInfo) {
-    this.initPosition = -1;
-    if (playbackInfo instanceof ExtraPlaybackInfo) {
-      //noinspection unchecked
-      SparseArray<PlaybackInfo> cache = ((ExtraPlaybackInfo) playbackInfo).actualInfo;
-      if (cache != null && cache.size() > 0) {
-        for (int i = 0; i < cache.size(); i++) {
-          int key = cache.keyAt(i);
-          this.container.savePlaybackInfo(key, cache.get(key));
-        }
-      }
-      this.initPosition = playbackInfo.getResumeWindow();
-    }
+    this.initPosition = playbackInfo != null ? playbackInfo.getResumeWindow() : -1;
     this.container.setPlayerSelector(PlayerSelector.NONE);
   }
 
@@ -121,7 +109,7 @@ class MediaListViewHolder extends BaseViewHolder implements ToroPlayer {
   }
 
   @Override public boolean isPlaying() {
-    return this.container.filterBy(Container.Filter.PLAYING).size() > 0;
+    return !this.container.getPlayingPlayers().isEmpty();
   }
 
   @Override public void release() {
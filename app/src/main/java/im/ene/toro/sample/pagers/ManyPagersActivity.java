@@ -25,6 +25,7 @@ import butterknife.ButterKnife;
 import com.google.android.material.tabs.TabLayout;
 import im.ene.toro.sample.R;
 import im.ene.toro.sample.common.BaseActivity;
+import im.ene.toro.widget.PlaybackCoordinator;
 
 /**
  * @author eneim (7/27/17).
@@ -49,5 +50,8 @@ public class ManyPagersActivity extends BaseActivity {
     pagerAdapter = new MainPagerAdapter(getSupportFragmentManager());
     viewPager.setAdapter(pagerAdapter);
     tabLayout.setupWithViewPager(viewPager);
+
+    // Pages kept by the ViewPager must not play nor hold players in background.
+    PlaybackCoordinator.of(this).setMaxPlayingPlayers(1).setReleaseInvisibleContainers(true);
   }
 }
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2020 Nam Nguyen, nam@ene.im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package im.ene.toro;
+
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Cost of dispatching one event to a set of listeners: {@link ToroPlayer.EventListeners} (backed
+ * by {@link ListenerSet}) versus the for-each over a {@link CopyOnWriteArraySet} it replaces. Run
+ * with the gc profiler to see the allocation per dispatch.
+ */
+@State(Scope.Thread) //
+@BenchmarkMode(Mode.Throughput) //
+@OutputTimeUnit(TimeUnit.MICROSECONDS) //
+@Warmup(iterations = 3, time = 1) //
+@Measurement(iterations = 5, time = 1) //
+@Fork(1) //
+public class ListenerDispatchBenchmark {
+
+  @Param({ "1", "4", "16" }) //
+  public int listeners;
+
+  private ToroPlayer.EventListeners listenerSet;
+  private CopyOnWriteArraySet<ToroPlayer.EventListener> copyOnWriteSet;
+
+  @Setup public void setUp(final Blackhole blackhole) {
+    listenerSet = new ToroPlayer.EventListeners();
+    copyOnWriteSet = new CopyOnWriteArraySet<>();
+    for (int i = 0; i < listeners; i++) {
+      ToroPlayer.EventListener listener = new ToroPlayer.EventListener() {
+        @Override public void onFirstFrameRendered() {
+          blackhole.consume(this);
+        }
+
+        @Override public void onBuffering() {
+          blackhole.consume(this);
+        }
+
+        @Override public void onPlaying() {
+          blackhole.consume(this);
+        }
+
+        @Override public void onPaused() {
+          blackhole.consume(this);
+        }
+
+        @Override public void onCompleted() {
+          blackhole.consume(this);
+        }
+      };
+      listenerSet.add(listener);
+      copyOnWriteSet.add(listener);
+    }
+  }
+
+  @Benchmark public void listenerSet() {
+    listenerSet.onBuffering();
+  }
+
+  @Benchmark public void copyOnWriteArraySet() {
+    for (ToroPlayer.EventListener listener : copyOnWriteSet) {
+      listener.onBuffering();
+    }
+  }
+}
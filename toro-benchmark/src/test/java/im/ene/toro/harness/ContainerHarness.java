@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) 2020 Nam Nguyen, nam@ene.im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package im.ene.toro.harness;
+
+import android.app.Activity;
+import android.os.Looper;
+import android.view.ViewGroup;
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+import im.ene.toro.ToroUtil;
+import im.ene.toro.widget.Container;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import org.robolectric.Robolectric;
+import org.robolectric.shadows.ShadowLooper;
+
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * Drive a {@link Container} in a Robolectric Activity on a paused main Looper, and measure each
+ * scripted step: the selection passes it triggers (count and latency, reported through
+ * {@link CountingMetrics}), the bytes allocated on the main thread and the player operations.
+ *
+ * Usage:
+ * <pre><code>
+ * ContainerHarness harness = new ContainerHarness(new HarnessAdapter.Builder(10_000).build());
+ * harness.scroll("scroll", 1000);
+ * harness.fling("fling", 8000);
+ * harness.writeReport("scroll");
+ * </code></pre>
+ */
+final class ContainerHarness {
+
+  private static final long FRAME_MS = 16;
+  private static final int MAX_FRAMES_TO_SETTLE = 1000;
+  // Longer than the item animations, so that the pass deferred after them runs within the step.
+  private static final long QUIET_MS = 500;
+
+  final Activity activity;
+  final Container container;
+  final HarnessAdapter adapter;
+  final CountingMetrics metrics = new CountingMetrics();
+  final List<Result> results = new ArrayList<>();
+
+  private final ShadowLooper looper = shadowOf(Looper.getMainLooper());
+  private final com.sun.management.ThreadMXBean threadBean =
+      (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+  ContainerHarness(@NonNull HarnessAdapter adapter) {
+    this.adapter = adapter;
+    this.activity = Robolectric.buildActivity(Activity.class).setup().get();
+    this.container = new Container(activity);
+    this.container.setLayoutManager(new LinearLayoutManager(activity));
+    this.container.setAdapter(adapter);
+    ToroUtil.setMetrics(metrics);
+    run("setup", new Runnable() {
+      @Override public void run() {
+        activity.setContentView(container,
+            new ViewGroup.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT,
+                ViewGroup.LayoutParams.MATCH_PARENT));
+      }
+    });
+  }
+
+  Result scroll(String name, final int dy) {
+    return run(name, new Runnable() {
+      @Override public void run() {
+        container.smoothScrollBy(0, dy);
+      }
+    });
+  }
+
+  Result fling(String name, final int velocityY) {
+    return run(name, new Runnable() {
+      @Override public void run() {
+        container.fling(0, velocityY);
+      }
+    });
+  }
+
+  Result jumpTo(String name, final int position) {
+    return run(name, new Runnable() {
+      @Override public void run() {
+        container.scrollToPosition(position);
+      }
+    });
+  }
+
+  Result insert(String name, final int positionStart, final int count) {
+    return run(name, new Runnable() {
+      @Override public void run() {
+        adapter.insertItems(positionStart, count);
+      }
+    });
+  }
+
+  Result remove(String name, final int positionStart, final int count) {
+    return run(name, new Runnable() {
+      @Override public void run() {
+        adapter.removeItems(positionStart, count);
+      }
+    });
+  }
+
+  Result change(String name, final int positionStart, final int count) {
+    return run(name, new Runnable() {
+      @Override public void run() {
+        adapter.changeItems(positionStart, count);
+      }
+    });
+  }
+
+  // Run one step and wait for the Container to settle, then record the Result.
+  Result run(String name, Runnable step) {
+    metrics.reset();
+    long threadId = Thread.currentThread().getId();
+    long bytesBefore = threadBean.getThreadAllocatedBytes(threadId);
+    step.run();
+    settle();
+    long bytes = threadBean.getThreadAllocatedBytes(threadId) - bytesBefore;
+    Result result = new Result(name, metrics, bytes);
+    results.add(result);
+    return result;
+  }
+
+  // Advance the paused Looper frame by frame, until the Container stops scrolling and animating.
+  void settle() {
+    looper.idle();
+    int frames = 0;
+    while ((container.getScrollState() != RecyclerView.SCROLL_STATE_IDLE
+        || container.isAnimating()) && frames++ < MAX_FRAMES_TO_SETTLE) {
+      looper.idleFor(FRAME_MS, TimeUnit.MILLISECONDS);
+    }
+    // The pending layout and the update deferred after the animations.
+    looper.idleFor(QUIET_MS, TimeUnit.MILLISECONDS);
+  }
+
+  // Print the Results, and write them to build/reports/toro-harness/{scenario}.csv.
+  void writeReport(String scenario) throws IOException {
+    System.out.println("== " + scenario);
+    System.out.println(Result.HEADER);
+    for (Result result : results) System.out.println(result);
+
+    File dir = new File("build/reports/toro-harness");
+    //noinspection ResultOfMethodCallIgnored
+    dir.mkdirs();
+    Writer writer = new FileWriter(new File(dir, scenario + ".csv"));
+    try {
+      writer.write(Result.HEADER + "\n");
+      for (Result result : results) writer.write(result + "\n");
+    } finally {
+      writer.close();
+    }
+  }
+
+  void tearDown() {
+    ToroUtil.setMetrics(null);
+    activity.finish();
+  }
+
+  static final class Result {
+
+    static final String HEADER = "step,passes,p50_us,p90_us,max_us,allocated_bytes,"
+        + "allows_to_play,initialize,play,pause,release";
+
+    final String name;
+    final int passes;
+    final long p50Micros;
+    final long p90Micros;
+    final long maxMicros;
+    final long allocatedBytes;
+    final int allowsToPlay;
+    final int initialize;
+    final int play;
+    final int pause;
+    final int release;
+
+    Result(String name, CountingMetrics metrics, long allocatedBytes) {
+      this.name = name;
+      this.passes = metrics.passCount;
+      this.p50Micros = metrics.passPercentileMicros(0.5f);
+      this.p90Micros = metrics.passPercentileMicros(0.9f);
+      this.maxMicros = metrics.passPercentileMicros(1.f);
+      this.allocatedBytes = allocatedBytes;
+      this.allowsToPlay = metrics.allowsToPlayCount;
+      this.initialize = metrics.initializeCount;
+      this.play = metrics.playCount;
+      this.pause = metrics.pauseCount;
+      this.release = metrics.releaseCount;
+    }
+
+    @NonNull @Override public String toString() {
+      return String.format(Locale.US, "%s,%d,%d,%d,%d,%d,%d,%d,%d,%d,%d", name, passes,
+          p50Micros, p90Micros, maxMicros, allocatedBytes, allowsToPlay, initialize, play, pause,
+          release);
+    }
+  }
+}
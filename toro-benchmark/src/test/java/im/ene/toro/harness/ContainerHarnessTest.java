@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) 2020 Nam Nguyen, nam@ene.im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package im.ene.toro.harness;
+
+import android.view.View;
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+import im.ene.toro.ToroPlayer;
+import im.ene.toro.widget.Container;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.LooperMode;
+
+import static androidx.recyclerview.widget.RecyclerView.NO_POSITION;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.annotation.LooperMode.Mode.PAUSED;
+
+/**
+ * Scripted scenarios of the {@link ContainerHarness}. Numbers are printed and written to
+ * build/reports/toro-harness. Run with:
+ *
+ * <pre>./gradlew :toro-benchmark:testDebugUnitTest --tests '*ContainerHarnessTest'</pre>
+ *
+ * After every step, the players the {@link Container}s manage must be the initialized ones, sorted
+ * by their current orders, and only the first of them plays (default PlayerSelector).
+ */
+@RunWith(RobolectricTestRunner.class) //
+@LooperMode(PAUSED) //
+@Config(sdk = 28) //
+public class ContainerHarnessTest {
+
+  private static final int ITEM_COUNT = 10_000;
+
+  private ContainerHarness harness;
+
+  @After public void tearDown() {
+    if (harness != null) harness.tearDown();
+  }
+
+  @Test public void scrollDown() throws IOException {
+    harness = new ContainerHarness(new HarnessAdapter.Builder(ITEM_COUNT).build());
+    assertPlayback(harness.container);
+    for (int i = 0; i < 50; i++) {
+      harness.scroll("scroll_" + i, 600);
+      assertPlayback(harness.container);
+    }
+    harness.writeReport("scroll");
+    assertTrue(totalPasses(harness) > 0);
+    // Players are initialized on the way, and released once scrolled away.
+    assertTrue(totalInitialize(harness) > 0);
+    assertTrue(harness.adapter.releaseCount > 0);
+  }
+
+  @Test public void flingAndJump() throws IOException {
+    harness = new ContainerHarness(new HarnessAdapter.Builder(ITEM_COUNT).build());
+    for (int i = 0; i < 10; i++) {
+      harness.fling("fling_down_" + i, 8000);
+      assertPlayback(harness.container);
+    }
+    harness.fling("fling_up", -8000);
+    assertPlayback(harness.container);
+    harness.jumpTo("jump_middle", ITEM_COUNT / 2);
+    assertPlayback(harness.container);
+    harness.jumpTo("jump_end", ITEM_COUNT - 1);
+    assertPlayback(harness.container);
+    harness.writeReport("fling");
+    assertTrue(totalPasses(harness) > 0);
+    assertTrue(harness.adapter.releaseCount > 0);
+  }
+
+  @Test public void dataChanges() throws IOException {
+    harness = new ContainerHarness(new HarnessAdapter.Builder(ITEM_COUNT).build());
+    harness.scroll("scroll", 300);
+    assertPlayback(harness.container);
+    for (int i = 0; i < 10; i++) {
+      // Items inserted above the visible ones shift them, the playback goes on.
+      ToroPlayer playing = firstManaged(harness.container);
+      int order = playing.getPlayerOrder();
+      assertUntouched(harness.insert("insert_top_" + i, 0, 5));
+      assertPlayback(harness.container);
+      assertSame(playing, firstManaged(harness.container));
+      assertEquals(order + 5, playing.getPlayerOrder());
+
+      assertUntouched(harness.remove("remove_top_" + i, 0, 5));
+      assertPlayback(harness.container);
+      assertSame(playing, firstManaged(harness.container));
+      assertEquals(order, playing.getPlayerOrder());
+
+      harness.change("change_visible_" + i, 0, 10);
+      assertPlayback(harness.container);
+    }
+    // Changes far from the visible items don't affect the playback.
+    ToroPlayer playing = firstManaged(harness.container);
+    int order = playing.getPlayerOrder();
+    assertUntouched(harness.insert("insert_far", ITEM_COUNT / 2, 1000));
+    assertUntouched(harness.remove("remove_far", ITEM_COUNT / 2, 1000));
+    assertPlayback(harness.container);
+    assertSame(playing, firstManaged(harness.container));
+    assertEquals(order, playing.getPlayerOrder());
+    harness.writeReport("data_changes");
+    assertTrue(totalPasses(harness) > 0);
+  }
+
+  @Test public void nestedContainers() throws IOException {
+    harness = new ContainerHarness(new HarnessAdapter.Builder(ITEM_COUNT).setNestedEvery(4)
+        .setNestedItemCount(8)
+        .build());
+    for (int i = 0; i < 30; i++) {
+      harness.scroll("scroll_" + i, 600);
+      assertManaged(harness.container);
+      assertNestedManaged(harness.container);
+    }
+    harness.fling("fling", 8000);
+    assertManaged(harness.container);
+    assertNestedManaged(harness.container);
+    harness.writeReport("nested");
+    assertTrue(totalPasses(harness) > 0);
+  }
+
+  // The managed players are the initialized ones, and the first of them is the only one playing.
+  private static void assertPlayback(@NonNull Container container) {
+    List<ToroPlayer> managed = assertManaged(container);
+    List<ToroPlayer> playing = container.filterBy(Container.Filter.PLAYING);
+    if (managed.isEmpty()) {
+      assertTrue(playing.isEmpty());
+    } else {
+      assertEquals(Collections.singletonList(managed.get(0)), playing);
+    }
+  }
+
+  // The managed players are the initialized ones, attached and sorted by their current orders.
+  @NonNull private static List<ToroPlayer> assertManaged(@NonNull Container container) {
+    List<ToroPlayer> managed = container.filterBy(Container.Filter.MANAGING);
+    HarnessAdapter adapter = (HarnessAdapter) container.getAdapter();
+    //noinspection ConstantConditions
+    assertEquals(adapter.initializedPlayers, new HashSet<>(managed));
+    int lastOrder = NO_POSITION;
+    for (ToroPlayer player : managed) {
+      int order = player.getPlayerOrder();
+      assertNotEquals(NO_POSITION, order);
+      assertTrue("Not sorted: " + managed, order > lastOrder);
+      assertSame(container, ((RecyclerView.ViewHolder) player).itemView.getParent());
+      lastOrder = order;
+    }
+    assertTrue(container.filterBy(Container.Filter.PLAYING).size() <= 1);
+    return managed;
+  }
+
+  private static void assertNestedManaged(@NonNull Container container) {
+    for (int i = 0, count = container.getChildCount(); i < count; i++) {
+      View child = container.getChildAt(i);
+      if (child instanceof Container) assertManaged((Container) child);
+    }
+  }
+
+  // The step didn't start nor pause any player.
+  private static void assertUntouched(@NonNull ContainerHarness.Result result) {
+    assertEquals(result.name, 0, result.play);
+    assertEquals(result.name, 0, result.pause);
+  }
+
+  @NonNull private static ToroPlayer firstManaged(@NonNull Container container) {
+    List<ToroPlayer> managed = container.filterBy(Container.Filter.MANAGING);
+    assertFalse(managed.isEmpty());
+    return managed.get(0);
+  }
+
+  private static int totalPasses(ContainerHarness harness) {
+    int passes = 0;
+    for (ContainerHarness.Result result : harness.results) passes += result.passes;
+    return passes;
+  }
+
+  private static int totalInitialize(ContainerHarness harness) {
+    int initialize = 0;
+    for (ContainerHarness.Result result : harness.results) initialize += result.initialize;
+    return initialize;
+  }
+}
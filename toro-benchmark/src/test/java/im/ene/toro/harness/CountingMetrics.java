@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2020 Nam Nguyen, nam@ene.im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package im.ene.toro.harness;
+
+import androidx.annotation.NonNull;
+import im.ene.toro.ToroMetrics;
+import im.ene.toro.ToroPlayer;
+import im.ene.toro.widget.Container;
+import java.util.Arrays;
+
+/**
+ * {@link ToroMetrics} that counts everything reported by the {@link Container}s, and keeps the
+ * duration of every selection pass.
+ */
+final class CountingMetrics extends ToroMetrics.DefaultMetrics {
+
+  long[] passNanos = new long[256];
+  int passCount;
+  int candidateCount;
+  int selectedCount;
+  int allowsToPlayCount;
+  int initializeCount;
+  int playCount;
+  int pauseCount;
+  int releaseCount;
+
+  @Override public void onSelectionPass(@NonNull Container container, long durationNanos,
+      int candidateCount, int selectedCount) {
+    if (passCount == passNanos.length) passNanos = Arrays.copyOf(passNanos, passCount * 2);
+    passNanos[passCount++] = durationNanos;
+    this.candidateCount += candidateCount;
+    this.selectedCount += selectedCount;
+  }
+
+  @Override public void onAllowsToPlayEvaluated(@NonNull ToroPlayer player, boolean allowed) {
+    allowsToPlayCount++;
+  }
+
+  @Override public void onPlayerInitialized(@NonNull ToroPlayer player) {
+    initializeCount++;
+  }
+
+  @Override public void onPlayerPlay(@NonNull ToroPlayer player) {
+    playCount++;
+  }
+
+  @Override public void onPlayerPause(@NonNull ToroPlayer player) {
+    pauseCount++;
+  }
+
+  @Override public void onPlayerReleased(@NonNull ToroPlayer player) {
+    releaseCount++;
+  }
+
+  void reset() {
+    passCount = 0;
+    candidateCount = 0;
+    selectedCount = 0;
+    allowsToPlayCount = 0;
+    initializeCount = 0;
+    playCount = 0;
+    pauseCount = 0;
+    releaseCount = 0;
+  }
+
+  // Percentile of the pass durations, in microseconds.
+  long passPercentileMicros(float fraction) {
+    if (passCount == 0) return 0;
+    long[] sorted = Arrays.copyOf(passNanos, passCount);
+    Arrays.sort(sorted);
+    int index = Math.max((int) Math.ceil(fraction * passCount) - 1, 0);
+    return sorted[Math.min(index, passCount - 1)] / 1000;
+  }
+}
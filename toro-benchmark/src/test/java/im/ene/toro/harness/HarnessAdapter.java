@@ -0,0 +1,227 @@
+/*
+ * Copyright (c) 2020 Nam Nguyen, nam@ene.im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package im.ene.toro.harness;
+
+import android.graphics.Color;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+import im.ene.toro.ToroPlayer;
+import im.ene.toro.media.PlaybackInfo;
+import im.ene.toro.widget.Container;
+import java.util.HashSet;
+import java.util.Set;
+
+import static android.view.ViewGroup.LayoutParams.MATCH_PARENT;
+
+/**
+ * Adapter of the harness. Items are laid out in a repeating pattern: every
+ * {@link Builder#setPlayerEvery(int)}-th item is a player, every
+ * {@link Builder#setNestedEvery(int)}-th item is a horizontal nested {@link Container} of players,
+ * the others are plain Views.
+ *
+ * The players initialized and not released yet are tracked, so that the harness can check them
+ * against the players its {@link Container} manages.
+ */
+final class HarnessAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
+
+  static final int TYPE_PLAIN = 0;
+  static final int TYPE_PLAYER = 1;
+  static final int TYPE_NESTED = 2;
+
+  static final int PLAYER_HEIGHT = 180; // px
+  static final int PLAIN_HEIGHT = 64; // px
+
+  final int playerEvery;
+  final int nestedEvery;
+  final int nestedItemCount;
+  final int playerWidth;
+  private int itemCount;
+
+  // Players initialized by the Container and not released since.
+  final Set<ToroPlayer> initializedPlayers = new HashSet<>();
+  int releaseCount;  // releases of the initialized players.
+
+  private HarnessAdapter(Builder builder) {
+    this.itemCount = builder.itemCount;
+    this.playerEvery = builder.playerEvery;
+    this.nestedEvery = builder.nestedEvery;
+    this.nestedItemCount = builder.nestedItemCount;
+    this.playerWidth = builder.playerWidth;
+  }
+
+  @Override public int getItemViewType(int position) {
+    if (nestedEvery > 0 && position % nestedEvery == nestedEvery - 1) return TYPE_NESTED;
+    if (playerEvery > 0 && position % playerEvery == 0) return TYPE_PLAYER;
+    return TYPE_PLAIN;
+  }
+
+  @NonNull @Override
+  public RecyclerView.ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+    if (viewType == TYPE_PLAYER) {
+      return new PlayerHolder(this, new FrameLayout(parent.getContext()), playerWidth);
+    } else if (viewType == TYPE_NESTED) {
+      Container nested = new Container(parent.getContext());
+      nested.setLayoutParams(new RecyclerView.LayoutParams(MATCH_PARENT, PLAYER_HEIGHT));
+      nested.setLayoutManager(
+          new LinearLayoutManager(parent.getContext(), LinearLayoutManager.HORIZONTAL, false));
+      return new NestedHolder(nested);
+    } else {
+      View view = new View(parent.getContext());
+      view.setLayoutParams(new RecyclerView.LayoutParams(MATCH_PARENT, PLAIN_HEIGHT));
+      view.setBackgroundColor(Color.LTGRAY);
+      return new RecyclerView.ViewHolder(view) {
+      };
+    }
+  }
+
+  @Override public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position) {
+    if (holder instanceof NestedHolder) {
+      Container nested = ((NestedHolder) holder).container;
+      if (nested.getAdapter() == null) {
+        nested.setAdapter(new Builder(nestedItemCount).setPlayerEvery(1)
+            .setNestedEvery(0)
+            .setPlayerWidth(PLAYER_HEIGHT * 16 / 9)
+            .build());
+      }
+    }
+  }
+
+  @Override public int getItemCount() {
+    return itemCount;
+  }
+
+  void insertItems(int positionStart, int count) {
+    itemCount += count;
+    notifyItemRangeInserted(positionStart, count);
+  }
+
+  void removeItems(int positionStart, int count) {
+    itemCount -= count;
+    notifyItemRangeRemoved(positionStart, count);
+  }
+
+  void changeItems(int positionStart, int count) {
+    notifyItemRangeChanged(positionStart, count);
+  }
+
+  static final class PlayerHolder extends RecyclerView.ViewHolder implements ToroPlayer {
+
+    final HarnessAdapter adapter;
+    final View playerView;
+    final PlaybackInfo playbackInfo = new PlaybackInfo();
+    boolean playing;
+
+    PlayerHolder(HarnessAdapter adapter, FrameLayout itemView, int width) {
+      super(itemView);
+      this.adapter = adapter;
+      itemView.setLayoutParams(new RecyclerView.LayoutParams(width, PLAYER_HEIGHT));
+      playerView = new View(itemView.getContext());
+      playerView.setBackgroundColor(Color.DKGRAY);
+      itemView.addView(playerView, new FrameLayout.LayoutParams(MATCH_PARENT, MATCH_PARENT));
+    }
+
+    @NonNull @Override public View getPlayerView() {
+      return playerView;
+    }
+
+    @NonNull @Override public PlaybackInfo getCurrentPlaybackInfo() {
+      return playbackInfo;
+    }
+
+    @Override public void initialize(@NonNull Container container,
+        @NonNull PlaybackInfo playbackInfo) {
+      adapter.initializedPlayers.add(this);
+    }
+
+    @Override public void play() {
+      playing = true;
+    }
+
+    @Override public void pause() {
+      playing = false;
+    }
+
+    @Override public boolean isPlaying() {
+      return playing;
+    }
+
+    @Override public void release() {
+      playing = false;
+      if (adapter.initializedPlayers.remove(this)) adapter.releaseCount++;
+    }
+
+    @Override public boolean wantsToPlay() {
+      return true;
+    }
+
+    @Override public int getPlayerOrder() {
+      return getAdapterPosition();
+    }
+  }
+
+  static final class NestedHolder extends RecyclerView.ViewHolder {
+
+    final Container container;
+
+    NestedHolder(Container container) {
+      super(container);
+      this.container = container;
+    }
+  }
+
+  static final class Builder {
+
+    final int itemCount;
+    int playerEvery = 3;
+    int nestedEvery = 0;  // no nested Container by default.
+    int nestedItemCount = 8;
+    int playerWidth = MATCH_PARENT;
+
+    Builder(int itemCount) {
+      this.itemCount = itemCount;
+    }
+
+    Builder setPlayerEvery(int playerEvery) {
+      this.playerEvery = playerEvery;
+      return this;
+    }
+
+    Builder setNestedEvery(int nestedEvery) {
+      this.nestedEvery = nestedEvery;
+      return this;
+    }
+
+    Builder setNestedItemCount(int nestedItemCount) {
+      this.nestedItemCount = nestedItemCount;
+      return this;
+    }
+
+    Builder setPlayerWidth(int playerWidth) {
+      this.playerWidth = playerWidth;
+      return this;
+    }
+
+    HarnessAdapter build() {
+      return new HarnessAdapter(this);
+    }
+  }
+}
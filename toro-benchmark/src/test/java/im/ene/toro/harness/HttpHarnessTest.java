@@ -0,0 +1,248 @@
+/*
+ * Copyright (c) 2020 Nam Nguyen, nam@ene.im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package im.ene.toro.harness;
+
+import android.net.Uri;
+import androidx.annotation.NonNull;
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.ext.okhttp.OkHttpDataSourceFactory;
+import com.google.android.exoplayer2.upstream.DataSource;
+import com.google.android.exoplayer2.upstream.DataSpec;
+import com.google.android.exoplayer2.upstream.DefaultHttpDataSourceFactory;
+import im.ene.toro.exoplayer.PooledHttp;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compare the latency and the throughput of {@link DefaultHttpDataSourceFactory} (one
+ * HttpURLConnection per request) and of the pooled OkHttp data source of
+ * {@link PooledHttp#getClient()}, against a {@link MockWebServer}. Each request opens a new
+ * {@link DataSource}, reads a short segment and closes it, like the short-lived Players of a feed.
+ *
+ * Besides the latency of opening the data source (time to the response headers), the number of
+ * connections opened by the server is reported. On localhost the connection setup is almost free,
+ * so the difference of latency is much smaller than over a real network with TLS. Numbers are
+ * printed and written to build/reports/toro-harness. Run with:
+ *
+ * <pre>./gradlew :toro-benchmark:testDebugUnitTest --tests '*HttpHarnessTest'</pre>
+ */
+@RunWith(RobolectricTestRunner.class) //
+@Config(sdk = 28) //
+public class HttpHarnessTest {
+
+  private static final String USER_AGENT = "toro-benchmark";
+  private static final int BODY_SIZE = 64 * 1024; // a short media segment.
+  private static final int REQUEST_COUNT = 200;
+  private static final int THREAD_COUNT = 8;
+
+  private final byte[] body = new byte[BODY_SIZE];
+  private final List<Result> results = new ArrayList<>();
+
+  private MockWebServer server;
+  private OkHttpClient client;
+  private int takenRequestCount;
+
+  @Before public void setUp() {
+    client = PooledHttp.getClient();
+  }
+
+  @After public void tearDown() throws IOException {
+    if (server != null) server.shutdown();
+  }
+
+  @Test public void sequential() throws Exception {
+    startServer(Protocol.HTTP_1_1);
+    Result base = run("default_http", new DefaultHttpDataSourceFactory(USER_AGENT), 1);
+    Result pooled = run("pooled_http", new OkHttpDataSourceFactory(client, USER_AGENT, null), 1);
+    writeReport("http_sequential");
+    assertEquals(REQUEST_COUNT, base.requests);
+    assertEquals(1, pooled.connections);
+  }
+
+  @Test public void concurrent() throws Exception {
+    startServer(Protocol.HTTP_1_1);
+    Result base = run("default_http", new DefaultHttpDataSourceFactory(USER_AGENT), THREAD_COUNT);
+    Result pooled =
+        run("pooled_http", new OkHttpDataSourceFactory(client, USER_AGENT, null), THREAD_COUNT);
+    writeReport("http_concurrent");
+    assertEquals(REQUEST_COUNT, base.requests);
+    assertTrue(pooled.connections < pooled.requests);
+  }
+
+  // HTTP/2 without TLS (prior knowledge), so concurrent requests are multiplexed.
+  @Test public void multiplexed() throws Exception {
+    startServer(Protocol.H2_PRIOR_KNOWLEDGE);
+    OkHttpClient h2Client = client.newBuilder() //
+        .protocols(Collections.singletonList(Protocol.H2_PRIOR_KNOWLEDGE)).build();
+    Result pooled =
+        run("pooled_h2", new OkHttpDataSourceFactory(h2Client, USER_AGENT, null), THREAD_COUNT);
+    writeReport("http_multiplexed");
+    assertTrue(pooled.connections < THREAD_COUNT);
+  }
+
+  private void startServer(Protocol protocol) throws IOException {
+    server = new MockWebServer();
+    // Without TLS, the default protocols of MockWebServer end up in HTTP/1.1.
+    if (protocol != Protocol.HTTP_1_1) server.setProtocols(Collections.singletonList(protocol));
+    server.setDispatcher(new Dispatcher() {
+      @Override public MockResponse dispatch(RecordedRequest request) {
+        return new MockResponse().setBody(new Buffer().write(body));
+      }
+    });
+    server.start();
+    takenRequestCount = 0;
+  }
+
+  private Result run(String name, final DataSource.Factory factory, int threadCount)
+      throws Exception {
+    final Uri uri = Uri.parse(server.url("/segment").toString());
+    List<Callable<Long>> tasks = new ArrayList<>(REQUEST_COUNT);
+    for (int i = 0; i < REQUEST_COUNT; i++) {
+      tasks.add(new Callable<Long>() {
+        @Override public Long call() throws Exception {
+          return load(factory.createDataSource(), uri);
+        }
+      });
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+    long[] latencies = new long[REQUEST_COUNT];
+    long start = System.nanoTime();
+    try {
+      List<Future<Long>> futures = executor.invokeAll(tasks);
+      for (int i = 0; i < REQUEST_COUNT; i++) latencies[i] = futures.get(i).get();
+    } finally {
+      executor.shutdown();
+    }
+    long durationNanos = System.nanoTime() - start;
+
+    int connections = 0;
+    int requests = server.getRequestCount() - takenRequestCount;
+    for (int i = 0; i < requests; i++) {
+      RecordedRequest request = server.takeRequest(1, TimeUnit.SECONDS);
+      if (request != null && request.getSequenceNumber() == 0) connections++;
+    }
+    takenRequestCount += requests;
+
+    Result result = new Result(name, requests, connections, latencies, durationNanos);
+    results.add(result);
+    return result;
+  }
+
+  // Return the latency of opening the DataSource, in nanoseconds.
+  private static long load(@NonNull DataSource dataSource, @NonNull Uri uri) throws IOException {
+    byte[] buffer = new byte[16 * 1024];
+    long start = System.nanoTime();
+    long openNanos;
+    int total = 0;
+    try {
+      dataSource.open(new DataSpec(uri));
+      openNanos = System.nanoTime() - start;
+      int read;
+      while ((read = dataSource.read(buffer, 0, buffer.length)) != C.RESULT_END_OF_INPUT) {
+        total += read;
+      }
+    } finally {
+      dataSource.close();
+    }
+    if (total != BODY_SIZE) throw new IOException("Unexpected body size: " + total);
+    return openNanos;
+  }
+
+  private void writeReport(String scenario) throws IOException {
+    System.out.println("== " + scenario);
+    System.out.println(Result.HEADER);
+    for (Result result : results) System.out.println(result);
+
+    File dir = new File("build/reports/toro-harness");
+    //noinspection ResultOfMethodCallIgnored
+    dir.mkdirs();
+    Writer writer = new FileWriter(new File(dir, scenario + ".csv"));
+    try {
+      writer.write(Result.HEADER + "\n");
+      for (Result result : results) writer.write(result + "\n");
+    } finally {
+      writer.close();
+    }
+  }
+
+  static final class Result {
+
+    static final String HEADER = "data_source,requests,connections,p50_us,p90_us,max_us,"
+        + "throughput_kBps";
+
+    final String name;
+    final int requests;
+    final int connections;
+    final long p50Micros;
+    final long p90Micros;
+    final long maxMicros;
+    final long throughputKBps;
+
+    Result(String name, int requests, int connections, long[] latencies, long durationNanos) {
+      this.name = name;
+      this.requests = requests;
+      this.connections = connections;
+      long[] sorted = latencies.clone();
+      Arrays.sort(sorted);
+      this.p50Micros = percentile(sorted, 0.5f) / 1000;
+      this.p90Micros = percentile(sorted, 0.9f) / 1000;
+      this.maxMicros = sorted[sorted.length - 1] / 1000;
+      long bytes = (long) BODY_SIZE * latencies.length;
+      this.throughputKBps = bytes * 1_000_000L / Math.max(durationNanos, 1);
+    }
+
+    private static long percentile(long[] sorted, float fraction) {
+      int index = (int) Math.ceil(fraction * sorted.length) - 1;
+      return sorted[Math.min(Math.max(index, 0), sorted.length - 1)];
+    }
+
+    @NonNull @Override public String toString() {
+      return String.format(Locale.US, "%s,%d,%d,%d,%d,%d,%d", name, requests, connections,
+          p50Micros, p90Micros, maxMicros, throughputKBps);
+    }
+  }
+}
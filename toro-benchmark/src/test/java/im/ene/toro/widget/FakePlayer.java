@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2020 Nam Nguyen, nam@ene.im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package im.ene.toro.widget;
+
+import android.view.View;
+import androidx.annotation.NonNull;
+import im.ene.toro.ToroPlayer;
+import im.ene.toro.media.PlaybackInfo;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A {@link ToroPlayer} without View and without media. It only keeps the state a {@link Container}
+ * reads during a selection pass, so the benchmarks measure Toro and not the Player.
+ */
+final class FakePlayer implements ToroPlayer {
+
+  final int order;
+  boolean wantsToPlay = true;
+  boolean playing;
+  private final PlaybackInfo playbackInfo = new PlaybackInfo();
+
+  FakePlayer(int order) {
+    this.order = order;
+  }
+
+  // Create a number of players, every 'step'-th player doesn't want to play.
+  static List<ToroPlayer> create(int count, int step) {
+    List<ToroPlayer> players = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      FakePlayer player = new FakePlayer(i);
+      player.wantsToPlay = step <= 0 || i % step != 0;
+      players.add(player);
+    }
+    return players;
+  }
+
+  @SuppressWarnings("ConstantConditions") //
+  @NonNull @Override public View getPlayerView() {
+    return null;  // Not used by the benchmarked code.
+  }
+
+  @NonNull @Override public PlaybackInfo getCurrentPlaybackInfo() {
+    return playbackInfo;
+  }
+
+  @Override public void initialize(@NonNull Container container,
+      @NonNull PlaybackInfo playbackInfo) {
+    // no-ops
+  }
+
+  @Override public void play() {
+    playing = true;
+  }
+
+  @Override public void pause() {
+    playing = false;
+  }
+
+  @Override public boolean isPlaying() {
+    return playing;
+  }
+
+  @Override public void release() {
+    playing = false;
+  }
+
+  @Override public boolean wantsToPlay() {
+    return wantsToPlay;
+  }
+
+  @Override public int getPlayerOrder() {
+    return order;
+  }
+
+  @NonNull @Override public String toString() {
+    return "FakePlayer{" + order + '}';
+  }
+}
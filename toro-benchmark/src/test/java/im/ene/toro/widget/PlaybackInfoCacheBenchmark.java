@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2020 Nam Nguyen, nam@ene.im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package im.ene.toro.widget;
+
+import im.ene.toro.CacheManager;
+import im.ene.toro.ToroPlayer;
+import im.ene.toro.media.PlaybackInfo;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Adapter data change handling of {@link PlaybackInfoCache}, with all entries in both hot cache and
+ * cold cache (the worst case: all players were attached, and a {@link CacheManager} is set).
+ *
+ * Each benchmark keeps the cache size unchanged, so the numbers are comparable between iterations.
+ */
+@State(Scope.Thread) //
+@BenchmarkMode(Mode.Throughput) //
+@OutputTimeUnit(TimeUnit.SECONDS) //
+@Warmup(iterations = 3, time = 1) //
+@Measurement(iterations = 5, time = 1) //
+@Fork(1) //
+public class PlaybackInfoCacheBenchmark {
+
+  @Param({ "100", "10000", "100000" }) //
+  public int size;
+
+  private PlaybackInfoCache cache;
+  private int middle;
+
+  @Setup public void setUp() {
+    cache = new PlaybackInfoCache(null);
+    cache.cacheManager = CacheManager.DEFAULT;
+    cache.onAttach();
+    List<ToroPlayer> players = FakePlayer.create(size, 0);
+    for (ToroPlayer player : players) {
+      cache.onPlayerAttached(player);
+    }
+    middle = size / 2;
+  }
+
+  @Benchmark public void insertThenRemove() {
+    cache.onItemRangeInserted(middle, 1);
+    cache.onItemRangeRemoved(middle, 1);
+  }
+
+  @Benchmark public void moveThenMoveBack() {
+    cache.onItemRangeMoved(middle / 2, middle + middle / 2, 1);
+    cache.onItemRangeMoved(middle + middle / 2, middle / 2, 1);
+  }
+
+  @Benchmark public void changeRange() {
+    cache.onItemRangeChanged(middle, 10);
+  }
+
+  @Benchmark public void changeAll() {
+    cache.onChanged();
+  }
+
+  @Benchmark public PlaybackInfo saveThenGet() {
+    cache.savePlaybackInfo(middle, PlaybackInfo.SCRAP);
+    return cache.getPlaybackInfo(middle);
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2020 Nam Nguyen, nam@ene.im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package im.ene.toro.widget;
+
+import im.ene.toro.PlayerSelector;
+import im.ene.toro.ToroPlayer;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Built-in {@link PlayerSelector}s on a sorted list of candidates. {@link PlayerSelector#BY_AREA}
+ * is not included here because it needs the real View geometry, it is measured by the Container
+ * harness instead.
+ */
+@State(Scope.Thread) //
+@BenchmarkMode(Mode.Throughput) //
+@OutputTimeUnit(TimeUnit.MICROSECONDS) //
+@Warmup(iterations = 3, time = 1) //
+@Measurement(iterations = 5, time = 1) //
+@Fork(1) //
+public class PlayerSelectorBenchmark {
+
+  // Number of candidates in one pass. A list rarely has more than a few visible players.
+  @Param({ "2", "8", "32" }) //
+  public int candidates;
+
+  private List<ToroPlayer> items;
+  private PressablePlayerSelector pressable;
+
+  @Setup public void setUp() {
+    items = FakePlayer.create(candidates, 0);
+    // No Container here, the Pressable selector accepts the null one.
+    pressable = new PressablePlayerSelector(new WeakReference<Container>(null),
+        PlayerSelector.DEFAULT);
+    pressable.toPause(candidates / 2);
+  }
+
+  @SuppressWarnings("ConstantConditions") //
+  @Benchmark public Collection<ToroPlayer> selectDefault() {
+    return PlayerSelector.DEFAULT.select(null, new ArrayList<>(items));
+  }
+
+  @SuppressWarnings("ConstantConditions") //
+  @Benchmark public Collection<ToroPlayer> selectDefaultReverse() {
+    return PlayerSelector.DEFAULT_REVERSE.select(null, new ArrayList<>(items));
+  }
+
+  @SuppressWarnings("ConstantConditions") //
+  @Benchmark public Collection<ToroPlayer> selectNone() {
+    return PlayerSelector.NONE.select(null, new ArrayList<>(items));
+  }
+
+  @SuppressWarnings("ConstantConditions") //
+  @Benchmark public Collection<ToroPlayer> selectPressable() {
+    return pressable.select(null, new ArrayList<>(items));
+  }
+}
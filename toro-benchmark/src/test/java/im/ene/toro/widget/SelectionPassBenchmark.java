@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2020 Nam Nguyen, nam@ene.im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package im.ene.toro.widget;
+
+import im.ene.toro.PlayerSelector;
+import im.ene.toro.ToroPlayer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link Common#ORDER_COMPARATOR} sorting and the View-free part of a selection pass as done by
+ * {@link Container#onScrollStateChanged(int)}: copy the managed players, select, then play the
+ * selected ones and pause (and save the {@link im.ene.toro.media.PlaybackInfo} of) the others.
+ */
+@State(Scope.Thread) //
+@BenchmarkMode(Mode.Throughput) //
+@OutputTimeUnit(TimeUnit.MICROSECONDS) //
+@Warmup(iterations = 3, time = 1) //
+@Measurement(iterations = 5, time = 1) //
+@Fork(1) //
+public class SelectionPassBenchmark {
+
+  // Number of managed players. Every 4th player doesn't want to play.
+  @Param({ "2", "8", "32" }) //
+  public int players;
+
+  private PlayerManager manager;
+  private PlaybackInfoCache cache;
+  private List<ToroPlayer> shuffled;
+  private PlayerSelector selector = PlayerSelector.DEFAULT;
+
+  @Setup public void setUp() {
+    manager = new PlayerManager();
+    cache = new PlaybackInfoCache(null);
+    cache.onAttach();
+    List<ToroPlayer> source = FakePlayer.create(players, 4);
+    for (ToroPlayer player : source) {
+      manager.attachPlayer(player);
+      cache.onPlayerAttached(player);
+    }
+    shuffled = new ArrayList<>(source);
+    Collections.shuffle(shuffled);
+  }
+
+  @Benchmark public List<ToroPlayer> sortByOrder() {
+    List<ToroPlayer> copy = new ArrayList<>(shuffled);
+    Collections.sort(copy, Common.ORDER_COMPARATOR);
+    return copy;
+  }
+
+  @Benchmark public List<ToroPlayer> selectionPass() {
+    List<ToroPlayer> source = manager.getPlayers();
+    List<ToroPlayer> candidates = new ArrayList<>();
+    // Alternate the selector, so that every pass starts one player and pauses another one.
+    selector = selector.reverse();
+    Collection<ToroPlayer> toPlay = Common.selectPlayers(null, selector, source, candidates);
+    for (ToroPlayer player : toPlay) {
+      // PlayerManager#play(ToroPlayer, PlayerDispatcher) needs a Looper, call the player directly.
+      if (!player.isPlaying()) player.play();
+    }
+
+    source.removeAll(toPlay);
+    for (ToroPlayer player : source) {
+      if (player.isPlaying()) {
+        cache.savePlaybackInfo(player.getPlayerOrder(), player.getCurrentPlaybackInfo());
+        manager.pause(player);
+      }
+    }
+    return source;
+  }
+}
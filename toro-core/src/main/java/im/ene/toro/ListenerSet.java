@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2020 Nam Nguyen, nam@ene.im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package im.ene.toro;
+
+import androidx.annotation.NonNull;
+import androidx.core.util.ObjectsCompat;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A thread-safe {@link java.util.Set} of listeners backed by an array snapshot, with the same
+ * add/remove semantics of {@link java.util.concurrent.CopyOnWriteArraySet}: each mutation replaces
+ * the snapshot, and a traversal sees the snapshot taken when it starts.
+ *
+ * Unlike {@link java.util.concurrent.CopyOnWriteArraySet}, extension can traverse the snapshot
+ * returned by {@link #snapshot()} by index, without allocating an {@link Iterator} per event.
+ *
+ * <pre><code>
+ * {@literal @}Override public void onBuffering() {
+ *   Object[] listeners = snapshot();
+ *   for (int i = 0; i &lt; listeners.length; i++) {
+ *     ((EventListener) listeners[i]).onBuffering();
+ *   }
+ * }
+ * </code></pre>
+ *
+ * @param <T> type of the listener.
+ * @since 3.7.0
+ */
+public class ListenerSet<T> extends AbstractSet<T> {
+
+  private static final Object[] EMPTY = new Object[0];
+
+  private final Object lock = new Object();
+  private volatile Object[] elements = EMPTY;
+
+  /**
+   * @return current snapshot of the listeners. Must not be modified.
+   */
+  @NonNull protected final Object[] snapshot() {
+    return elements;
+  }
+
+  @Override public boolean add(T t) {
+    synchronized (lock) {
+      Object[] current = elements;
+      if (indexOf(current, t) >= 0) return false;
+      Object[] updated = new Object[current.length + 1];
+      System.arraycopy(current, 0, updated, 0, current.length);
+      updated[current.length] = t;
+      elements = updated;
+      return true;
+    }
+  }
+
+  @Override public boolean remove(Object o) {
+    synchronized (lock) {
+      Object[] current = elements;
+      int index = indexOf(current, o);
+      if (index < 0) return false;
+      if (current.length == 1) {
+        elements = EMPTY;
+      } else {
+        Object[] updated = new Object[current.length - 1];
+        System.arraycopy(current, 0, updated, 0, index);
+        System.arraycopy(current, index + 1, updated, index, current.length - index - 1);
+        elements = updated;
+      }
+      return true;
+    }
+  }
+
+  @Override public boolean contains(Object o) {
+    return indexOf(elements, o) >= 0;
+  }
+
+  @Override public void clear() {
+    synchronized (lock) {
+      elements = EMPTY;
+    }
+  }
+
+  @Override public int size() {
+    return elements.length;
+  }
+
+  @Override public boolean isEmpty() {
+    return elements.length == 0;
+  }
+
+  // Iterate on a snapshot. Like CopyOnWriteArraySet, the iterator doesn't support remove().
+  @NonNull @Override public Iterator<T> iterator() {
+    final Object[] snapshot = elements;
+    return new Iterator<T>() {
+      int cursor = 0;
+
+      @Override public boolean hasNext() {
+        return cursor < snapshot.length;
+      }
+
+      @SuppressWarnings("unchecked") @Override public T next() {
+        if (cursor >= snapshot.length) throw new NoSuchElementException();
+        return (T) snapshot[cursor++];
+      }
+
+      @Override public void remove() {
+        throw new UnsupportedOperationException();
+      }
+    };
+  }
+
+  private static int indexOf(Object[] elements, Object o) {
+    for (int i = 0; i < elements.length; i++) {
+      if (ObjectsCompat.equals(elements[i], o)) return i;
+    }
+    return -1;
+  }
+}
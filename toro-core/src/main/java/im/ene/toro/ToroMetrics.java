@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2020 Nam Nguyen, nam@ene.im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package im.ene.toro;
+
+import androidx.annotation.NonNull;
+import im.ene.toro.widget.Container;
+
+/**
+ * Receive the internal events of Toro, so that client can measure what Toro is doing during a
+ * scroll or a configuration change. Install an instance using
+ * {@link ToroUtil#setMetrics(ToroMetrics)}. When there is no {@link ToroMetrics} installed
+ * (default), Toro doesn't collect anything.
+ *
+ * All callbacks are called on the main thread, synchronously with the event. Implementation must
+ * return as fast as possible, and should not keep reference to the {@link Container}s or the
+ * {@link ToroPlayer}s passed to it.
+ *
+ * Client that only needs a few of the callbacks can extend {@link DefaultMetrics}.
+ *
+ * @since 3.7.0
+ */
+public interface ToroMetrics {
+
+  /**
+   * Called after a {@link Container} finishes a selection pass.
+   *
+   * @param container the {@link Container} that runs the pass.
+   * @param durationNanos wall time of the pass, in nanoseconds.
+   * @param candidateCount number of {@link ToroPlayer}s that want to play in this pass.
+   * @param selectedCount number of {@link ToroPlayer}s selected by the {@link PlayerSelector}.
+   * Always 0 for a {@link im.ene.toro.widget.BackgroundPlayerSelector}, whose result comes later.
+   */
+  void onSelectionPass(@NonNull Container container, long durationNanos, int candidateCount,
+      int selectedCount);
+
+  /**
+   * Called everytime Toro checks whether a {@link ToroPlayer} is allowed to play.
+   */
+  void onAllowsToPlayEvaluated(@NonNull ToroPlayer player, boolean allowed);
+
+  void onPlayerInitialized(@NonNull ToroPlayer player);
+
+  void onPlayerPlay(@NonNull ToroPlayer player);
+
+  void onPlayerPause(@NonNull ToroPlayer player);
+
+  void onPlayerReleased(@NonNull ToroPlayer player);
+
+  /**
+   * Called when a player instance is requested and reused from a pool.
+   */
+  void onPoolHit();
+
+  /**
+   * Called when a player instance is requested but the pool has none, so a new one is created.
+   */
+  void onPoolMiss();
+
+  /**
+   * Called when a player instance cannot be returned to its pool because the pool is full, and
+   * is released instead.
+   */
+  void onPoolEviction();
+
+  /**
+   * Called when the number of player instances (in use and in pool) changes.
+   */
+  void onLivePlayerCountChanged(int count);
+
+  /**
+   * Called when the playback info cache of a {@link Container} changes its size.
+   *
+   * @param container the {@link Container} owning the cache.
+   * @param hotCacheSize number of cached entries of the attached {@link ToroPlayer}s.
+   * @param coldCacheSize number of cached entries by the keys of the {@link CacheManager}.
+   */
+  void onCacheSizeChanged(@NonNull Container container, int hotCacheSize, int coldCacheSize);
+
+  /**
+   * A no-op implementation of {@link ToroMetrics}.
+   */
+  class DefaultMetrics implements ToroMetrics {
+
+    @Override public void onSelectionPass(@NonNull Container container, long durationNanos,
+        int candidateCount, int selectedCount) {
+
+    }
+
+    @Override public void onAllowsToPlayEvaluated(@NonNull ToroPlayer player, boolean allowed) {
+
+    }
+
+    @Override public void onPlayerInitialized(@NonNull ToroPlayer player) {
+
+    }
+
+    @Override public void onPlayerPlay(@NonNull ToroPlayer player) {
+
+    }
+
+    @Override public void onPlayerPause(@NonNull ToroPlayer player) {
+
+    }
+
+    @Override public void onPlayerReleased(@NonNull ToroPlayer player) {
+
+    }
+
+    @Override public void onPoolHit() {
+
+    }
+
+    @Override public void onPoolMiss() {
+
+    }
+
+    @Override public void onPoolEviction() {
+
+    }
+
+    @Override public void onLivePlayerCountChanged(int count) {
+
+    }
+
+    @Override
+    public void onCacheSizeChanged(@NonNull Container container, int hotCacheSize,
+        int coldCacheSize) {
+
+    }
+  }
+}
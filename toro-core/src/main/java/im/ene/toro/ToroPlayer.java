@@ -24,7 +24,6 @@ import im.ene.toro.media.VolumeInfo;
 import im.ene.toro.widget.Container;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
-import java.util.concurrent.CopyOnWriteArraySet;
 
 /**
  * Definition of a Player used in Toro. Besides common playback command ({@link #play()}, {@link
@@ -75,6 +74,25 @@ public interface ToroPlayer {
    */
   int getPlayerOrder();
 
+  /**
+   * Optional interface for a {@link ToroPlayer} that can copy its current {@link PlaybackInfo}
+   * into an existing instance. {@link Container} prefers this over
+   * {@link ToroPlayer#getCurrentPlaybackInfo()} when saving the info of its players, so that
+   * pausing, detaching and saving don't allocate a new {@link PlaybackInfo} every time.
+   *
+   * @since 3.7.0
+   */
+  interface PlaybackInfoReader {
+
+    /**
+     * Write the current {@link PlaybackInfo} of this Player to {@code out}. The instance is owned
+     * by the caller, implementation must not keep reference to it.
+     *
+     * @param out the {@link PlaybackInfo} to write to.
+     */
+    void readPlaybackInfo(@NonNull PlaybackInfo out);
+  }
+
   /**
    * A convenient callback to help {@link ToroPlayer} to listen to different playback states.
    */
@@ -101,55 +119,62 @@ public interface ToroPlayer {
     void onError(Exception error);
   }
 
-  class EventListeners extends CopyOnWriteArraySet<EventListener> implements EventListener {
+  class EventListeners extends ListenerSet<EventListener> implements EventListener {
 
     @Override public void onFirstFrameRendered() {
-      for (EventListener listener : this) {
-        listener.onFirstFrameRendered();
+      Object[] listeners = snapshot();
+      for (int i = 0; i < listeners.length; i++) {
+        ((EventListener) listeners[i]).onFirstFrameRendered();
       }
     }
 
     @Override public void onBuffering() {
-      for (EventListener listener : this) {
-        listener.onBuffering();
+      Object[] listeners = snapshot();
+      for (int i = 0; i < listeners.length; i++) {
+        ((EventListener) listeners[i]).onBuffering();
       }
     }
 
     @Override public void onPlaying() {
-      for (EventListener listener : this) {
-        listener.onPlaying();
+      Object[] listeners = snapshot();
+      for (int i = 0; i < listeners.length; i++) {
+        ((EventListener) listeners[i]).onPlaying();
       }
     }
 
     @Override public void onPaused() {
-      for (EventListener listener : this) {
-        listener.onPaused();
+      Object[] listeners = snapshot();
+      for (int i = 0; i < listeners.length; i++) {
+        ((EventListener) listeners[i]).onPaused();
       }
     }
 
     @Override public void onCompleted() {
-      for (EventListener listener : this) {
-        listener.onCompleted();
+      Object[] listeners = snapshot();
+      for (int i = 0; i < listeners.length; i++) {
+        ((EventListener) listeners[i]).onCompleted();
       }
     }
   }
 
-  class ErrorListeners extends CopyOnWriteArraySet<OnErrorListener>
+  class ErrorListeners extends ListenerSet<OnErrorListener>
       implements ToroPlayer.OnErrorListener {
 
     @Override public void onError(Exception error) {
-      for (ToroPlayer.OnErrorListener listener : this) {
-        listener.onError(error);
+      Object[] listeners = snapshot();
+      for (int i = 0; i < listeners.length; i++) {
+        ((ToroPlayer.OnErrorListener) listeners[i]).onError(error);
       }
     }
   }
 
-  class VolumeChangeListeners extends CopyOnWriteArraySet<ToroPlayer.OnVolumeChangeListener>
+  class VolumeChangeListeners extends ListenerSet<ToroPlayer.OnVolumeChangeListener>
       implements ToroPlayer.OnVolumeChangeListener {
 
     @Override public void onVolumeChanged(@NonNull VolumeInfo volumeInfo) {
-      for (ToroPlayer.OnVolumeChangeListener listener : this) {
-        listener.onVolumeChanged(volumeInfo);
+      Object[] listeners = snapshot();
+      for (int i = 0; i < listeners.length; i++) {
+        ((ToroPlayer.OnVolumeChangeListener) listeners[i]).onVolumeChanged(volumeInfo);
       }
     }
   }
@@ -23,9 +23,14 @@ import android.view.ViewGroup;
 import android.view.ViewParent;
 import androidx.annotation.FloatRange;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RestrictTo;
 import androidx.coordinatorlayout.widget.CoordinatorLayout;
+import androidx.tracing.Trace;
 import im.ene.toro.widget.Container;
 
+import static androidx.annotation.RestrictTo.Scope.LIBRARY_GROUP;
+
 /**
  * @author eneim | 5/31/17.
  */
@@ -34,21 +39,74 @@ public final class ToroUtil {
 
   @SuppressWarnings("unused") private static final String TAG = "ToroLib:Util";
 
+  // Both are read on the main thread for every selection pass, so keep them as plain fields.
+  @Nullable private static volatile ToroMetrics metrics;  // null --> disabled.
+  private static volatile boolean tracingEnabled;
+
   private ToroUtil() {
     throw new RuntimeException("Meh!");
   }
 
+  /**
+   * Install a {@link ToroMetrics} to receive Toro's internal events. Setting {@code null} disables
+   * the metrics, which is the default.
+   *
+   * @param metrics the {@link ToroMetrics} to install, or {@code null} to disable.
+   * @since 3.7.0
+   */
+  public static void setMetrics(@Nullable ToroMetrics metrics) {
+    ToroUtil.metrics = metrics;
+  }
+
+  /**
+   * @return the installed {@link ToroMetrics}, or {@code null} if the metrics is disabled.
+   * @since 3.7.0
+   */
+  @Nullable public static ToroMetrics getMetrics() {
+    return metrics;
+  }
+
+  /**
+   * Enable or disable the trace sections of Toro, so that the selection passes, the player
+   * operations and the pool operations show up in systrace/Perfetto. Disabled by default.
+   *
+   * @since 3.7.0
+   */
+  public static void setTracingEnabled(boolean enabled) {
+    ToroUtil.tracingEnabled = enabled;
+  }
+
+  public static boolean isTracingEnabled() {
+    return tracingEnabled;
+  }
+
+  // Must be paired with endSection() on the same thread, even if the tracing is toggled in between.
+  @RestrictTo(LIBRARY_GROUP) //
+  public static boolean beginSection(@NonNull String sectionName) {
+    if (!tracingEnabled) return false;
+    Trace.beginSection(sectionName);
+    return true;
+  }
+
+  @RestrictTo(LIBRARY_GROUP) //
+  public static void endSection(boolean sectionStarted) {
+    if (sectionStarted) Trace.endSection();
+  }
+
   /**
    * Get the ratio in range of 0.0 ~ 1.0 the visible area of a {@link ToroPlayer}'s playerView.
    *
    * @param player the {@link ToroPlayer} need to investigate.
    * @param container the {@link ViewParent} that holds the {@link ToroPlayer}. If {@code null}
-   * then this method must returns 0.0f;
+   * then this method must returns 0.0f. If it is a {@link Container}, the result is calculated by
+   * {@link Container#getVisibleAreaOffset(ToroPlayer)}.
    * @return the value in range of 0.0 ~ 1.0 of the visible area.
    */
   @FloatRange(from = 0.0, to = 1.0) //
   public static float visibleAreaOffset(@NonNull ToroPlayer player, ViewParent container) {
     if (container == null) return 0.0f;
+    // Cheaper: use the viewport snapshot of the Container instead of walking to the root View.
+    if (container instanceof Container) return ((Container) container).getVisibleAreaOffset(player);
 
     View playerView = player.getPlayerView();
     Rect drawRect = new Rect();
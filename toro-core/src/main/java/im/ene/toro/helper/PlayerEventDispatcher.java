@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2020 Nam Nguyen, nam@ene.im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package im.ene.toro.helper;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+import androidx.annotation.NonNull;
+import im.ene.toro.ToroPlayer.State;
+import java.util.ArrayList;
+
+/**
+ * Deliver the playback state changes of all {@link ToroPlayerHelper}s, in one batch per frame.
+ *
+ * Each Helper keeps its own pending state as primitive fields. Within a frame, only the latest
+ * state of a Helper is delivered, and a state equals to the last delivered one is dropped. The only
+ * exception is {@link State#STATE_END}, which is never dropped.
+ */
+final class PlayerEventDispatcher implements Choreographer.FrameCallback {
+
+  static final int STATE_NONE = -1;
+
+  private static PlayerEventDispatcher instance; // main thread only.
+  private static final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+  @NonNull static PlayerEventDispatcher getInstance() {
+    if (instance == null) instance = new PlayerEventDispatcher();
+    return instance;
+  }
+
+  // Helpers to dispatch in the next frame, and the ones being dispatched in current frame.
+  private ArrayList<ToroPlayerHelper> pending = new ArrayList<>();
+  private ArrayList<ToroPlayerHelper> dispatching = new ArrayList<>();
+  private boolean frameScheduled;
+
+  private PlayerEventDispatcher() {
+  }
+
+  // Can be called from any thread, but the state is only touched on the main thread.
+  static void enqueue(@NonNull final ToroPlayerHelper helper, final boolean playWhenReady,
+      @State final int playbackState) {
+    if (Looper.myLooper() == Looper.getMainLooper()) {
+      getInstance().enqueueInternal(helper, playWhenReady, playbackState);
+    } else {
+      mainHandler.post(new Runnable() {
+        @Override public void run() {
+          getInstance().enqueueInternal(helper, playWhenReady, playbackState);
+        }
+      });
+    }
+  }
+
+  // Called on the main thread, drop all pending states of the helper.
+  static void cancel(@NonNull ToroPlayerHelper helper) {
+    helper.pendingState = STATE_NONE;
+    helper.pendingEnd = false;
+    helper.deliveredState = STATE_NONE;
+  }
+
+  private void enqueueInternal(ToroPlayerHelper helper, boolean playWhenReady, int playbackState) {
+    if (playbackState == State.STATE_END) {
+      helper.pendingEnd = true;
+      helper.pendingState = STATE_NONE; // older states are outdated.
+    } else {
+      helper.pendingState = playbackState;
+      helper.pendingPlayWhenReady = playWhenReady;
+    }
+
+    if (!helper.queued) {
+      helper.queued = true;
+      pending.add(helper);
+    }
+
+    if (!frameScheduled) {
+      frameScheduled = true;
+      Choreographer.getInstance().postFrameCallback(this);
+    }
+  }
+
+  @Override public void doFrame(long frameTimeNanos) {
+    frameScheduled = false;
+    // Swap, so that states enqueued during the dispatch go to the next frame.
+    ArrayList<ToroPlayerHelper> batch = pending;
+    pending = dispatching;
+    dispatching = batch;
+    for (int i = 0, size = batch.size(); i < size; i++) {
+      ToroPlayerHelper helper = batch.get(i);
+      helper.queued = false;
+      dispatch(helper);
+    }
+    batch.clear();
+  }
+
+  private static void dispatch(ToroPlayerHelper helper) {
+    if (helper.pendingEnd) {
+      helper.pendingEnd = false;
+      helper.deliveredState = State.STATE_END;
+      helper.dispatchPlayerState(false, State.STATE_END);
+    }
+
+    int state = helper.pendingState;
+    if (state == STATE_NONE) return;
+    boolean playWhenReady = helper.pendingPlayWhenReady;
+    helper.pendingState = STATE_NONE;
+    if (state == helper.deliveredState && playWhenReady == helper.deliveredPlayWhenReady) return;
+    helper.deliveredState = state;
+    helper.deliveredPlayWhenReady = playWhenReady;
+    helper.dispatchPlayerState(playWhenReady, state);
+  }
+}
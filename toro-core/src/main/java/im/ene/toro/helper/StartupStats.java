@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2020 Nam Nguyen, nam@ene.im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package im.ene.toro.helper;
+
+import androidx.annotation.FloatRange;
+import androidx.annotation.NonNull;
+import im.ene.toro.helper.StartupTrace.Milestone;
+import java.util.Arrays;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+import static im.ene.toro.ToroUtil.checkNotNull;
+import static im.ene.toro.helper.StartupTrace.MILESTONE_COUNT;
+import static im.ene.toro.helper.StartupTrace.TIME_UNSET;
+
+/**
+ * Process-wide aggregation of {@link StartupTrace}s reported by {@link ToroPlayerHelper}s. The
+ * latest {@link #SAMPLE_SIZE} durations of each {@link Milestone} are kept, from which the
+ * percentiles are calculated.
+ *
+ * Client can either listen to each recorded trace using {@link Listener}, or query the aggregated
+ * values at any time using {@link #snapshot()}.
+ *
+ * <pre><code>
+ * StartupStats.Snapshot snapshot = StartupStats.getInstance().snapshot();
+ * long p90 = snapshot.percentile(StartupTrace.Milestone.FIRST_FRAME, 0.9f);
+ * </code></pre>
+ */
+@SuppressWarnings({ "unused", "WeakerAccess" }) //
+public final class StartupStats {
+
+  static final int SAMPLE_SIZE = 128;
+
+  private static volatile StartupStats instance;
+
+  @NonNull public static StartupStats getInstance() {
+    if (instance == null) {
+      synchronized (StartupStats.class) {
+        if (instance == null) instance = new StartupStats();
+      }
+    }
+    return instance;
+  }
+
+  /**
+   * Listener to receive every {@link StartupTrace} recorded to {@link StartupStats}.
+   */
+  public interface Listener {
+
+    /**
+     * Called on the main thread right after a {@link StartupTrace} is recorded. The trace instance
+     * is reused by its Helper, client must copy it to keep it.
+     *
+     * @param trace the recorded {@link StartupTrace}.
+     * @param stats the {@link StartupStats} that records the trace.
+     */
+    void onStartupRecorded(@NonNull StartupTrace trace, @NonNull StartupStats stats);
+  }
+
+  private final CopyOnWriteArraySet<Listener> listeners = new CopyOnWriteArraySet<>();
+
+  // Ring buffers of durations, one per Milestone.
+  private final long[][] samples = new long[MILESTONE_COUNT][SAMPLE_SIZE];
+  private final int[] sampleCounts = new int[MILESTONE_COUNT];
+  private final int[] cursors = new int[MILESTONE_COUNT];
+
+  private int recordCount;
+  private int playerFromPoolCount;
+  private int mediaFromCacheCount;
+  private int manifestFromCacheCount;
+
+  private StartupStats() {
+  }
+
+  public void addListener(@NonNull Listener listener) {
+    listeners.add(checkNotNull(listener));
+  }
+
+  public void removeListener(Listener listener) {
+    listeners.remove(listener);
+  }
+
+  /**
+   * Record a {@link StartupTrace}. A trace is recorded only once, later calls with the same trace
+   * will be ignored until it is reset.
+   */
+  public void record(@NonNull StartupTrace trace) {
+    if (trace.isRecorded()) return;
+    synchronized (this) {
+      for (int i = 0; i < MILESTONE_COUNT; i++) {
+        long duration = trace.getDuration(i);
+        if (duration == TIME_UNSET) continue;
+        samples[i][cursors[i]] = duration;
+        cursors[i] = (cursors[i] + 1) % SAMPLE_SIZE;
+        if (sampleCounts[i] < SAMPLE_SIZE) sampleCounts[i]++;
+      }
+      recordCount++;
+      if (trace.isPlayerFromPool()) playerFromPoolCount++;
+      if (trace.isMediaFromCache()) mediaFromCacheCount++;
+      if (trace.isManifestFromCache()) manifestFromCacheCount++;
+    }
+
+    trace.setRecorded();
+    for (Listener listener : listeners) {
+      listener.onStartupRecorded(trace, this);
+    }
+  }
+
+  /**
+   * @return an immutable {@link Snapshot} of current aggregated values.
+   */
+  @NonNull public synchronized Snapshot snapshot() {
+    long[][] sorted = new long[MILESTONE_COUNT][];
+    for (int i = 0; i < MILESTONE_COUNT; i++) {
+      sorted[i] = Arrays.copyOf(samples[i], sampleCounts[i]);
+      Arrays.sort(sorted[i]);
+    }
+    return new Snapshot(sorted, recordCount, playerFromPoolCount, mediaFromCacheCount,
+        manifestFromCacheCount);
+  }
+
+  public synchronized void reset() {
+    for (int i = 0; i < MILESTONE_COUNT; i++) {
+      sampleCounts[i] = 0;
+      cursors[i] = 0;
+    }
+    recordCount = 0;
+    playerFromPoolCount = 0;
+    mediaFromCacheCount = 0;
+    manifestFromCacheCount = 0;
+  }
+
+  /**
+   * Immutable aggregated values of {@link StartupStats} at the moment it is created.
+   */
+  public static final class Snapshot {
+
+    private final long[][] sorted;
+    private final int recordCount;
+    private final int playerFromPoolCount;
+    private final int mediaFromCacheCount;
+    private final int manifestFromCacheCount;
+
+    Snapshot(long[][] sorted, int recordCount, int playerFromPoolCount, int mediaFromCacheCount,
+        int manifestFromCacheCount) {
+      this.sorted = sorted;
+      this.recordCount = recordCount;
+      this.playerFromPoolCount = playerFromPoolCount;
+      this.mediaFromCacheCount = mediaFromCacheCount;
+      this.manifestFromCacheCount = manifestFromCacheCount;
+    }
+
+    /**
+     * Get the percentile of the duration to a {@link Milestone}, in milliseconds.
+     *
+     * @param milestone the {@link Milestone} to query.
+     * @param fraction the percentile in range of 0.0 ~ 1.0, for example 0.5f for the median.
+     * @return the duration, or {@link StartupTrace#TIME_UNSET} if there is no sample.
+     */
+    public long percentile(@Milestone int milestone,
+        @FloatRange(from = 0.0, to = 1.0) float fraction) {
+      long[] values = sorted[milestone];
+      if (values.length == 0) return TIME_UNSET;
+      int index = (int) Math.ceil(fraction * values.length) - 1;
+      return values[Math.min(Math.max(index, 0), values.length - 1)];
+    }
+
+    /**
+     * @return number of samples available for a {@link Milestone}, at most {@link #SAMPLE_SIZE}.
+     */
+    public int getSampleCount(@Milestone int milestone) {
+      return sorted[milestone].length;
+    }
+
+    /**
+     * @return total number of {@link StartupTrace}s recorded.
+     */
+    public int getRecordCount() {
+      return recordCount;
+    }
+
+    public int getPlayerFromPoolCount() {
+      return playerFromPoolCount;
+    }
+
+    public int getMediaFromCacheCount() {
+      return mediaFromCacheCount;
+    }
+
+    public int getManifestFromCacheCount() {
+      return manifestFromCacheCount;
+    }
+
+    @NonNull @Override public String toString() {
+      return "Snapshot{"
+          + "records="
+          + recordCount
+          + ", firstFrame(p50/p90)="
+          + percentile(Milestone.FIRST_FRAME, 0.5f)
+          + "/"
+          + percentile(Milestone.FIRST_FRAME, 0.9f)
+          + ", pool="
+          + playerFromPoolCount
+          + ", mediaCache="
+          + mediaFromCacheCount
+          + ", manifestCache="
+          + manifestFromCacheCount
+          + '}';
+    }
+  }
+}
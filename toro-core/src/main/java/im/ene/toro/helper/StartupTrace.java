@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2020 Nam Nguyen, nam@ene.im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package im.ene.toro.helper;
+
+import android.os.SystemClock;
+import androidx.annotation.IntDef;
+import androidx.annotation.NonNull;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.Arrays;
+
+/**
+ * Timestamps of the start-up of one playback, from the moment the player is initialized to the
+ * moment its first frame is rendered. Each {@link ToroPlayerHelper} owns one instance, which is
+ * filled in as the playback goes through its {@link Milestone}s and reported to
+ * {@link StartupStats} once the first frame is rendered.
+ *
+ * Besides the timestamps, a trace is tagged with whether the Player instance came from the pool,
+ * whether the media and the manifest were served from cache. These tags are set by the
+ * implementation of the Helper, if it knows about them.
+ *
+ * Instance of this class is reused by its Helper. Client that needs to keep it must make a copy
+ * using {@link #StartupTrace(StartupTrace)}.
+ */
+@SuppressWarnings("WeakerAccess") //
+public final class StartupTrace {
+
+  public static final long TIME_UNSET = -1;
+
+  @Retention(RetentionPolicy.SOURCE)  //
+  @IntDef({
+      Milestone.INITIALIZE, Milestone.SELECT, Milestone.PREPARE, Milestone.BUFFERING,
+      Milestone.READY, Milestone.FIRST_FRAME
+  })  //
+  public @interface Milestone {
+    int INITIALIZE = 0; // ToroPlayerHelper#initialize(Container, PlaybackInfo)
+    int SELECT = 1;     // The Player is selected and asked to play.
+    int PREPARE = 2;    // The media is submitted to the Player for preparation.
+    int BUFFERING = 3;  // First buffering state.
+    int READY = 4;      // First ready state.
+    int FIRST_FRAME = 5;  // First frame rendered.
+  }
+
+  static final int MILESTONE_COUNT = 6;
+
+  private final long[] timestamps = new long[MILESTONE_COUNT];
+  private boolean playerFromPool;
+  private boolean mediaFromCache;
+  private boolean manifestFromCache;
+  private boolean recorded;
+
+  public StartupTrace() {
+    reset();
+  }
+
+  public StartupTrace(@NonNull StartupTrace other) {
+    System.arraycopy(other.timestamps, 0, this.timestamps, 0, MILESTONE_COUNT);
+    this.playerFromPool = other.playerFromPool;
+    this.mediaFromCache = other.mediaFromCache;
+    this.manifestFromCache = other.manifestFromCache;
+    this.recorded = other.recorded;
+  }
+
+  /**
+   * Mark a {@link Milestone} at current time. Only the first mark of each {@link Milestone} is
+   * kept, and nothing is marked once the trace is recorded.
+   */
+  public void mark(@Milestone int milestone) {
+    if (recorded || timestamps[milestone] != TIME_UNSET) return;
+    timestamps[milestone] = SystemClock.elapsedRealtime();
+  }
+
+  /**
+   * @return the {@link SystemClock#elapsedRealtime()} when the {@link Milestone} was marked, or
+   * {@link #TIME_UNSET} if it was not.
+   */
+  public long getTimestamp(@Milestone int milestone) {
+    return timestamps[milestone];
+  }
+
+  /**
+   * Get the time from the start of this trace to a {@link Milestone}. The start is the selection of
+   * the Player if it is marked, or its initialization otherwise.
+   *
+   * @return number of milliseconds, or {@link #TIME_UNSET} if it cannot be calculated.
+   */
+  public long getDuration(@Milestone int milestone) {
+    long start = timestamps[Milestone.SELECT];
+    if (start == TIME_UNSET) start = timestamps[Milestone.INITIALIZE];
+    long end = timestamps[milestone];
+    if (start == TIME_UNSET || end == TIME_UNSET || end < start) return TIME_UNSET;
+    return end - start;
+  }
+
+  public boolean isPlayerFromPool() {
+    return playerFromPool;
+  }
+
+  public void setPlayerFromPool(boolean playerFromPool) {
+    if (!recorded) this.playerFromPool = playerFromPool;
+  }
+
+  public boolean isMediaFromCache() {
+    return mediaFromCache;
+  }
+
+  public void setMediaFromCache(boolean mediaFromCache) {
+    if (!recorded) this.mediaFromCache = mediaFromCache;
+  }
+
+  public boolean isManifestFromCache() {
+    return manifestFromCache;
+  }
+
+  public void setManifestFromCache(boolean manifestFromCache) {
+    if (!recorded) this.manifestFromCache = manifestFromCache;
+  }
+
+  /**
+   * @return {@code true} if this trace was already reported to {@link StartupStats}.
+   */
+  public boolean isRecorded() {
+    return recorded;
+  }
+
+  void setRecorded() {
+    this.recorded = true;
+  }
+
+  public void reset() {
+    Arrays.fill(timestamps, TIME_UNSET);
+    playerFromPool = false;
+    mediaFromCache = false;
+    manifestFromCache = false;
+    recorded = false;
+  }
+
+  @NonNull @Override public String toString() {
+    return "Startup{"
+        + "select="
+        + getDuration(Milestone.SELECT)
+        + ", prepare="
+        + getDuration(Milestone.PREPARE)
+        + ", buffering="
+        + getDuration(Milestone.BUFFERING)
+        + ", ready="
+        + getDuration(Milestone.READY)
+        + ", firstFrame="
+        + getDuration(Milestone.FIRST_FRAME)
+        + ", pool="
+        + playerFromPool
+        + ", mediaCache="
+        + mediaFromCache
+        + ", manifestCache="
+        + manifestFromCache
+        + '}';
+  }
+}
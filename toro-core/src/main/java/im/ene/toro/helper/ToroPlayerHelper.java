@@ -16,9 +16,6 @@
 
 package im.ene.toro.helper;
 
-import android.os.Handler;
-import android.os.Looper;
-import android.os.Message;
 import androidx.annotation.CallSuper;
 import androidx.annotation.FloatRange;
 import androidx.annotation.NonNull;
@@ -44,52 +41,22 @@ import static im.ene.toro.ToroUtil.checkNotNull;
  */
 public abstract class ToroPlayerHelper {
 
-  private final Handler handler = new Handler(Looper.getMainLooper(), new Handler.Callback() {
-    @Override public boolean handleMessage(Message msg) {
-      boolean playWhenReady = (boolean) msg.obj;
-      switch (msg.what) {
-        case State.STATE_IDLE:
-          // TODO: deal with idle state, maybe error handling.
-          break;
-        case State.STATE_BUFFERING /* Player.STATE_BUFFERING */:
-          internalListener.onBuffering();
-          for (EventListener listener : getEventListeners()) {
-            listener.onBuffering();
-          }
-          break;
-        case State.STATE_READY /*  Player.STATE_READY */:
-          if (playWhenReady) {
-            internalListener.onPlaying();
-          } else {
-            internalListener.onPaused();
-          }
-
-          for (EventListener listener : getEventListeners()) {
-            if (playWhenReady) {
-              listener.onPlaying();
-            } else {
-              listener.onPaused();
-            }
-          }
-          break;
-        case State.STATE_END /* Player.STATE_ENDED */:
-          internalListener.onCompleted();
-          for (EventListener listener : getEventListeners()) {
-            listener.onCompleted();
-          }
-          break;
-        default:
-          break;
-      }
-      return true;
-    }
-  });
+  // Pending and last delivered playback state, managed by PlayerEventDispatcher on main thread.
+  /* pkg */ int pendingState = PlayerEventDispatcher.STATE_NONE;
+  /* pkg */ boolean pendingPlayWhenReady;
+  /* pkg */ boolean pendingEnd;
+  /* pkg */ int deliveredState = PlayerEventDispatcher.STATE_NONE;
+  /* pkg */ boolean deliveredPlayWhenReady;
+  /* pkg */ boolean queued;
 
   @NonNull protected final ToroPlayer player;
 
   // This instance should be setup from #initialize and cleared from #release
   protected Container container;
 
+  // Start-up timestamps of current playback. Reset from #release.
+  @NonNull protected final StartupTrace startupTrace = new StartupTrace();
+
   @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP) //
   private ToroPlayer.EventListeners eventListeners;
 
@@ -102,7 +69,8 @@ public abstract class ToroPlayerHelper {
   @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP) //
   protected final EventListener internalListener = new EventListener() {
     @Override public void onFirstFrameRendered() {
-
+      startupTrace.mark(StartupTrace.Milestone.FIRST_FRAME);
+      StartupStats.getInstance().record(startupTrace);
     }
 
     @Override public void onBuffering() {
@@ -111,18 +79,21 @@ public abstract class ToroPlayerHelper {
 
     @Override public void onPlaying() {
       player.getPlayerView().setKeepScreenOn(true);
+      // The playback may be started from the controller, not by the Container.
+      if (container != null) container.notifyPlayingStateChanged(player, true);
     }
 
     @Override public void onPaused() {
       player.getPlayerView().setKeepScreenOn(false);
       if (container != null) {
-        container.savePlaybackInfo( //
-            player.getPlayerOrder(), checkNotNull(player.getCurrentPlaybackInfo()));
+        container.notifyPlayingStateChanged(player, false);
+        container.savePlaybackInfo(player);
       }
     }
 
     @Override public void onCompleted() {
       if (container != null) {
+        container.notifyPlayingStateChanged(player, false);
         // Save PlaybackInfo.SCRAP to mark this player to be re-init.
         container.savePlaybackInfo(player.getPlayerOrder(), PlaybackInfo.SCRAP);
       }
@@ -155,6 +126,8 @@ public abstract class ToroPlayerHelper {
 
   public final void initialize(@NonNull Container container, @NonNull PlaybackInfo playbackInfo) {
     this.container = container;
+    // Container may call this many times before the playback starts, only the first one counts.
+    this.startupTrace.mark(StartupTrace.Milestone.INITIALIZE);
     this.initialize(playbackInfo);
   }
 
@@ -188,6 +161,16 @@ public abstract class ToroPlayerHelper {
    */
   @NonNull public abstract PlaybackInfo getLatestPlaybackInfo();
 
+  /**
+   * Same as {@link #getLatestPlaybackInfo()}, but copy the info into an existing instance.
+   * Implementation that can read its playback without allocation should override this.
+   *
+   * @param out the {@link PlaybackInfo} to write to.
+   */
+  public void readPlaybackInfo(@NonNull PlaybackInfo out) {
+    out.setTo(getLatestPlaybackInfo());
+  }
+
   public abstract void setPlaybackInfo(@NonNull PlaybackInfo playbackInfo);
 
   @CallSuper
@@ -227,14 +210,58 @@ public abstract class ToroPlayerHelper {
   // Mimic ExoPlayer
   @CallSuper protected final void onPlayerStateUpdated(boolean playWhenReady,
       @State int playbackState) {
-    handler.obtainMessage(playbackState, playWhenReady).sendToTarget();
+    // Mark the start-up here, the delivery of the state can be coalesced.
+    if (playbackState == State.STATE_BUFFERING) {
+      startupTrace.mark(StartupTrace.Milestone.BUFFERING);
+    } else if (playbackState == State.STATE_READY) {
+      startupTrace.mark(StartupTrace.Milestone.READY);
+    }
+    PlayerEventDispatcher.enqueue(this, playWhenReady, playbackState);
+  }
+
+  // Called by PlayerEventDispatcher on the main thread, at most once per frame for each state.
+  /* pkg */ void dispatchPlayerState(boolean playWhenReady, @State int playbackState) {
+    switch (playbackState) {
+      case State.STATE_IDLE:
+        // TODO: deal with idle state, maybe error handling.
+        break;
+      case State.STATE_BUFFERING /* Player.STATE_BUFFERING */:
+        internalListener.onBuffering();
+        getEventListeners().onBuffering();
+        break;
+      case State.STATE_READY /*  Player.STATE_READY */:
+        if (playWhenReady) {
+          internalListener.onPlaying();
+          getEventListeners().onPlaying();
+        } else {
+          internalListener.onPaused();
+          getEventListeners().onPaused();
+        }
+        break;
+      case State.STATE_END /* Player.STATE_ENDED */:
+        internalListener.onCompleted();
+        getEventListeners().onCompleted();
+        break;
+      default:
+        break;
+    }
   }
 
   @CallSuper public void release() {
-    handler.removeCallbacksAndMessages(null);
+    PlayerEventDispatcher.cancel(this);
+    this.startupTrace.reset();
     this.container = null;
   }
 
+  /**
+   * Get the {@link StartupTrace} of current playback. The instance is reused by this Helper.
+   *
+   * @return the {@link StartupTrace} of current playback.
+   */
+  @NonNull public final StartupTrace getStartupTrace() {
+    return startupTrace;
+  }
+
   @NonNull @Override public String toString() {
     return "ToroLib:Helper{" + "player=" + player + ", container=" + container + '}';
   }
@@ -40,10 +40,13 @@ public class PlaybackInfo implements Parcelable {
     this.volumeInfo = new VolumeInfo(false, 1.f);
   }
 
+  /**
+   * The {@link VolumeInfo} is copied by value, the caller keeps its own instance.
+   */
   public PlaybackInfo(int resumeWindow, long resumePosition, @NonNull VolumeInfo volumeInfo) {
     this.resumeWindow = resumeWindow;
     this.resumePosition = resumePosition;
-    this.volumeInfo = volumeInfo;
+    this.volumeInfo = new VolumeInfo(volumeInfo);
   }
 
   public PlaybackInfo() {
@@ -74,14 +77,32 @@ public class PlaybackInfo implements Parcelable {
     return volumeInfo;
   }
 
+  /**
+   * Copy the values of a {@link VolumeInfo} into this instance's own one. The {@link VolumeInfo}
+   * is never shared, as {@link #reset()} and {@link #setTo(PlaybackInfo)} update it in place.
+   *
+   * @param volumeInfo the {@link VolumeInfo} to copy from.
+   */
   public void setVolumeInfo(@NonNull VolumeInfo volumeInfo) {
-    this.volumeInfo = volumeInfo;
+    this.volumeInfo.setTo(volumeInfo.isMute(), volumeInfo.getVolume());
+  }
+
+  /**
+   * Copy all values of another {@link PlaybackInfo} into this instance. The {@link VolumeInfo} is
+   * copied by value, so the two instances never share it.
+   *
+   * @param other the {@link PlaybackInfo} to copy from.
+   */
+  public void setTo(@NonNull PlaybackInfo other) {
+    this.resumeWindow = other.resumeWindow;
+    this.resumePosition = other.resumePosition;
+    this.volumeInfo.setTo(other.volumeInfo.isMute(), other.volumeInfo.getVolume());
   }
 
   public void reset() {
     resumeWindow = INDEX_UNSET;
     resumePosition = TIME_UNSET;
-    volumeInfo = new VolumeInfo(false, 1.f);
+    volumeInfo.setTo(false, 1.f);
   }
 
   @Override public String toString() {
@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2020 Nam Nguyen, nam@ene.im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package im.ene.toro.widget;
+
+import android.os.Process;
+import androidx.annotation.NonNull;
+import androidx.annotation.WorkerThread;
+import im.ene.toro.PlayerSelector;
+import im.ene.toro.ToroPlayer;
+import im.ene.toro.annotations.Beta;
+import im.ene.toro.annotations.Sorted;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import static im.ene.toro.annotations.Sorted.Order.ASCENDING;
+
+/**
+ * A {@link PlayerSelector} whose ranking runs off the main thread.
+ *
+ * When set to a {@link Container}, at each selection pass the {@link Container} captures a
+ * {@link SelectionSnapshot} of its candidates on the main thread, then calls
+ * {@link #rank(SelectionSnapshot)} using {@link #getExecutor()}. The result is applied back on the
+ * main thread, only if no newer selection pass has started in the meantime. Until then, current
+ * playbacks are kept as-is.
+ *
+ * Implementation must only read the {@link SelectionSnapshot} and its own thread-safe data in
+ * {@link #rank(SelectionSnapshot)}, never the Views or the {@link ToroPlayer}s.
+ *
+ * <pre><code>
+ * container.setPlayerSelector(new BackgroundPlayerSelector() {
+ *   {@literal @}NonNull @Override public int[] rank(@NonNull SelectionSnapshot snapshot) {
+ *     int best = -1;
+ *     float bestScore = 0;
+ *     for (int i = 0; i &lt; snapshot.getCount(); i++) {
+ *       float score = snapshot.getVisibleFraction(i) * engagementScore(snapshot.getOrder(i));
+ *       if (score &gt; bestScore) { best = i; bestScore = score; }
+ *     }
+ *     return best &lt; 0 ? new int[0] : new int[] { snapshot.getOrder(best) };
+ *   }
+ * });
+ * </code></pre>
+ *
+ * @since 3.7.0
+ */
+@Beta //
+public abstract class BackgroundPlayerSelector implements PlayerSelector {
+
+  private static volatile ExecutorService defaultExecutor;
+
+  // A single background thread shared by all BackgroundPlayerSelectors by default.
+  static Executor defaultExecutor() {
+    if (defaultExecutor == null) {
+      synchronized (BackgroundPlayerSelector.class) {
+        if (defaultExecutor == null) {
+          defaultExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override public Thread newThread(@NonNull final Runnable r) {
+              Thread thread = new Thread(new Runnable() {
+                @Override public void run() {
+                  Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                  r.run();
+                }
+              }, "Toro:Selector");
+              thread.setDaemon(true);
+              return thread;
+            }
+          });
+        }
+      }
+    }
+    return defaultExecutor;
+  }
+
+  /**
+   * Rank the candidates captured in the {@link SelectionSnapshot}, and return the ones to play.
+   *
+   * @param snapshot the immutable {@link SelectionSnapshot} of current candidates.
+   * @return the {@link ToroPlayer#getPlayerOrder()}s of the candidates to play.
+   */
+  @WorkerThread @NonNull public abstract int[] rank(@NonNull SelectionSnapshot snapshot);
+
+  /**
+   * @return the {@link Executor} to run {@link #rank(SelectionSnapshot)}. By default, it is a single
+   * background thread shared by all {@link BackgroundPlayerSelector}s.
+   */
+  @NonNull public Executor getExecutor() {
+    return defaultExecutor();
+  }
+
+  /**
+   * Synchronous version of the selection, used when this selector is called directly, for example
+   * when it is the delegate of a {@link PressablePlayerSelector}.
+   */
+  @NonNull @Override public final Collection<ToroPlayer> select(@NonNull Container container,
+      @Sorted(order = ASCENDING) @NonNull List<ToroPlayer> items) {
+    SelectionSnapshot snapshot = SelectionSnapshot.capture(container, -1, items);
+    return SelectionSnapshot.resolve(rank(snapshot), items);
+  }
+
+  @NonNull @Override public PlayerSelector reverse() {
+    return this;
+  }
+}
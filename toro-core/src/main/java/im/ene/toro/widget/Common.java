@@ -22,8 +22,13 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.RestrictTo;
 import androidx.recyclerview.widget.RecyclerView;
+import im.ene.toro.PlayerSelector;
+import im.ene.toro.ToroMetrics;
 import im.ene.toro.ToroPlayer;
+import im.ene.toro.ToroUtil;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
@@ -76,9 +81,53 @@ final class Common {
     boolean valid = player instanceof RecyclerView.ViewHolder;  // Should be true
     if (valid) valid = ((RecyclerView.ViewHolder) player).itemView.getParent() != null;
     if (valid) valid = player.getPlayerView().getGlobalVisibleRect(dummyRect, dummyPoint);
+    ToroMetrics metrics = ToroUtil.getMetrics();
+    if (metrics != null) metrics.onAllowsToPlayEvaluated(player, valid);
     return valid;
   }
 
+  /**
+   * The core of a selection pass: collect the {@link ToroPlayer}s those want to play and ask the
+   * {@link PlayerSelector} to select.
+   *
+   * @param container the {@link Container} to pass to the {@link PlayerSelector}.
+   * @param selector the {@link PlayerSelector}, {@code null} to select nothing.
+   * @param source the managed {@link ToroPlayer}s, sorted by order (as kept by PlayerManager).
+   * @param candidates an empty list to be filled with the sorted candidates.
+   * @return the {@link ToroPlayer}s to play.
+   */
+  @NonNull static Collection<ToroPlayer> selectPlayers(Container container,
+      @Nullable PlayerSelector selector, @NonNull List<ToroPlayer> source,
+      @NonNull List<ToroPlayer> candidates) {
+    for (int i = 0, count = source.size(); i < count; i++) {
+      ToroPlayer player = source.get(i);
+      if (player.wantsToPlay()) candidates.add(player);
+    }
+    return selector != null ? selector.select(container, candidates)
+        : Collections.<ToroPlayer>emptyList();
+  }
+
+  // A ToroPlayer whose playerView is a Container hosts a nested Container. Its own players are
+  // counted and limited by that Container, not by the host's one.
+  static boolean isHost(@NonNull ToroPlayer player) {
+    return player.getPlayerView() instanceof Container;
+  }
+
+  // Keep the first 'count' players of a Collection, in its iteration order. Hosts are always kept.
+  @NonNull static List<ToroPlayer> limitPlayers(@NonNull Collection<ToroPlayer> source,
+      int count) {
+    List<ToroPlayer> result = new ArrayList<>();
+    for (ToroPlayer player : source) {
+      if (isHost(player)) {
+        result.add(player);
+      } else if (count > 0) {
+        result.add(player);
+        count--;
+      }
+    }
+    return result;
+  }
+
   @Nullable static <T> T findFirst(List<T> source, Filter<T> filter) {
     for (T t : source) {
       if (filter.accept(t)) return t;
@@ -18,6 +18,7 @@ package im.ene.toro.widget;
 
 import android.app.Activity;
 import android.content.Context;
+import android.graphics.Point;
 import android.graphics.Rect;
 import android.os.Handler;
 import android.os.Message;
@@ -30,27 +31,31 @@ import android.util.SparseArray;
 import android.view.MotionEvent;
 import android.view.View;
 import android.view.ViewGroup;
+import android.view.ViewParent;
 import android.view.ViewTreeObserver.OnGlobalLayoutListener;
 import androidx.annotation.CallSuper;
 import androidx.annotation.ColorInt;
+import androidx.annotation.FloatRange;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.collection.ArraySet;
 import androidx.coordinatorlayout.widget.CoordinatorLayout;
+import androidx.core.view.ViewCompat;
 import androidx.core.view.WindowInsetsCompat;
 import androidx.customview.view.AbsSavedState;
 import androidx.recyclerview.widget.RecyclerView;
 import im.ene.toro.CacheManager;
 import im.ene.toro.PlayerDispatcher;
 import im.ene.toro.PlayerSelector;
+import im.ene.toro.ToroMetrics;
 import im.ene.toro.ToroPlayer;
+import im.ene.toro.ToroUtil;
 import im.ene.toro.annotations.RemoveIn;
 import im.ene.toro.media.PlaybackInfo;
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.List;
-import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import static android.content.Context.POWER_SERVICE;
@@ -138,6 +143,23 @@ public class Container extends RecyclerView {
 
     playbackInfoCache.onAttach();
     playerManager.onAttach();
+    // A nested Container shares the budgets and the scheduler of its parent, only the top-level
+    // Containers are coordinated by the Window.
+    parentContainer = findParentContainer();
+    if (parentContainer != null) {
+      parentContainer.nestedContainers.add(this);
+      parentVisible = true;
+      // Restore the state kept by the parent, if this Container was detached or recreated.
+      stateKey = findStateKey(parentContainer);
+      if (stateKey != NO_POSITION) {
+        restoreStateSnapshot(parentContainer.playbackInfoCache.getNestedState(stateKey));
+      }
+    } else {
+      coordinator = PlaybackCoordinator.of(this);
+      coordinator.register(this);
+    }
+    viewportValid = false;
+    if (checkpointEnabled) PlaybackCheckpointer.getInstance().register(this);
 
     ViewGroup.LayoutParams params = getLayoutParams();
     if (params instanceof CoordinatorLayout.LayoutParams) {
@@ -167,19 +189,26 @@ public class Container extends RecyclerView {
       animatorFinishHandler.removeCallbacksAndMessages(null);
       animatorFinishHandler = null;
     }
+    selectionGeneration++;  // drop pending background selection.
+    if (checkpointEnabled) PlaybackCheckpointer.getInstance().unregister(this);
+    if (coordinator != null) {
+      coordinator.unregister(this);
+      coordinator = null;
+    }
 
-    List<ToroPlayer> players = playerManager.getPlayers();
-    if (!players.isEmpty()) {
-      for (int size = players.size(), i = size - 1; i >= 0; i--) {
-        ToroPlayer player = players.get(i);
-        if (player.isPlaying()) {
-          this.savePlaybackInfo(player.getPlayerOrder(), player.getCurrentPlaybackInfo());
-          playerManager.pause(player);
-        }
-        playerManager.release(player);
+    releasePlayers();
+    if (parentContainer != null) {
+      // Keep the state in the parent, for when this Container is attached or recreated again. The
+      // host may have moved since this Container was attached.
+      stateKey = findStateKey(parentContainer);
+      if (stateKey != NO_POSITION) {
+        parentContainer.playbackInfoCache.putNestedState(stateKey, getStateSnapshot());
       }
-      playerManager.clear();
+      parentContainer.nestedContainers.remove(this);
+      parentContainer = null;
     }
+    nestedContainers.clear();
+    pendingPass = false;
     playerManager.onDetach();
     playbackInfoCache.onDetach();
     dataObserver.registerAdapter(null);
@@ -194,14 +223,47 @@ public class Container extends RecyclerView {
    * @return list of players accepted by {@link Filter}. Empty list if there is no available player.
    */
   @NonNull public final List<ToroPlayer> filterBy(Filter filter) {
+    // The players are kept sorted by the PlayerManager, no need to sort again. Filter.PLAYING still
+    // scans isPlaying(): getPlayingPlayers() misses the Players started by themselves, unnotified.
+    List<ToroPlayer> players = playerManager.getOrderedPlayers();
+    if (filter == Filter.MANAGING) return new ArrayList<>(players);
     List<ToroPlayer> result = new ArrayList<>();
-    for (ToroPlayer player : playerManager.getPlayers()) {
+    for (int i = 0, size = players.size(); i < size; i++) {
+      ToroPlayer player = players.get(i);
       if (filter.accept(player)) result.add(player);
     }
-    Collections.sort(result, Common.ORDER_COMPARATOR);
     return result;
   }
 
+  /**
+   * Get the playing {@link ToroPlayer}s, sorted by Player order. Unlike
+   * {@link #filterBy(Filter)}, this doesn't scan nor copy the managed players: the playing ones
+   * are tracked as they are played and paused, so it is cheap enough to be polled, for example
+   * from {@link ToroPlayer#isPlaying()} of a ViewHolder hosting a nested {@link Container}. A
+   * {@link ToroPlayer} started by itself is only included once it is reported using
+   * {@link #notifyPlayingStateChanged(ToroPlayer, boolean)}, use {@link Filter#PLAYING} to check
+   * {@link ToroPlayer#isPlaying()} of all managed players instead.
+   *
+   * @return a read-only list, valid until the next change of the playback. Copy it to keep it.
+   * @since 3.7.0
+   */
+  @NonNull public final List<ToroPlayer> getPlayingPlayers() {
+    return playerManager.getPlayingPlayers();
+  }
+
+  /**
+   * Tell this {@link Container} that a managed {@link ToroPlayer} started or stopped playing by
+   * itself, for example from its controller, so that {@link #getPlayingPlayers()} is up to date.
+   * Players driven by a {@link im.ene.toro.helper.ToroPlayerHelper} don't need to call this.
+   *
+   * @param player the {@link ToroPlayer} whose playing state changed.
+   * @param playing {@code true} if it is playing now.
+   * @since 3.7.0
+   */
+  public final void notifyPlayingStateChanged(@NonNull ToroPlayer player, boolean playing) {
+    playerManager.onPlayingStateChanged(player, playing);
+  }
+
   // This method is called when:
   // [1] A ViewHolder is newly created, bound and then attached to RecyclerView.
   // [2] A ViewHolder is detached before, but still in bound state, not be recycled,
@@ -220,6 +282,7 @@ public class Container extends RecyclerView {
     }
 
     playbackInfoCache.onPlayerAttached(player);
+    if (lentPlayers.contains(player)) return;  // controlled by the borrower until it is returned.
     if (playerManager.manages(player)) {
       // I don't expect this to be called. If this happens, make sure to note the scenario.
       Log.w(TAG, "!!Already managed: player = [" + player + "]");
@@ -232,7 +295,7 @@ public class Container extends RecyclerView {
       child.getViewTreeObserver().addOnGlobalLayoutListener(new OnGlobalLayoutListener() {
         @Override public void onGlobalLayout() {
           child.getViewTreeObserver().removeOnGlobalLayoutListener(this);
-          if (Common.allowsToPlay(player)) {
+          if (!lentPlayers.contains(player) && Common.allowsToPlay(player)) {
             if (playerManager.attachPlayer(player)) {
               dispatchUpdateOnAnimationFinished(false);
             }
@@ -248,6 +311,11 @@ public class Container extends RecyclerView {
     ViewHolder holder = getChildViewHolder(child);
     if (!(holder instanceof ToroPlayer)) return;
     final ToroPlayer player = (ToroPlayer) holder;
+    if (lentPlayers.contains(player)) {
+      // Keep it alive for the borrower, it will be released when returned.
+      playbackInfoCache.onPlayerDetached(player);
+      return;
+    }
 
     boolean playerManaged = playerManager.manages(player);
     if (player.isPlaying()) {
@@ -256,7 +324,7 @@ public class Container extends RecyclerView {
         /* throw new IllegalStateException(
             "Player is playing while it is not in managed state: " + player); */
       }
-      this.savePlaybackInfo(player.getPlayerOrder(), player.getCurrentPlaybackInfo());
+      this.savePlaybackInfo(player);
       playerManager.pause(player);
     }
     if (playerManaged) {
@@ -274,6 +342,186 @@ public class Container extends RecyclerView {
 
   @CallSuper @Override public void onScrollStateChanged(int state) {
     super.onScrollStateChanged(state);
+    if (parentContainer != null && !parentVisible) {
+      // Not visible in the parent's viewport, nothing to play. Run once it is visible again.
+      pendingPass = true;
+      return;
+    }
+    if (parentContainer == null) viewportValid = false;  // Nested ones use the parent's snapshot.
+    ToroMetrics metrics = ToroUtil.getMetrics();
+    long startNanos = metrics != null ? System.nanoTime() : 0;
+    boolean section = ToroUtil.beginSection("Toro:Container#selectionPass");
+    try {
+      dispatchSelectionPass(state);
+    } finally {
+      ToroUtil.endSection(section);
+    }
+    if (metrics != null) {
+      metrics.onSelectionPass(this, System.nanoTime() - startNanos, lastCandidateCount,
+          lastSelectedCount);
+    }
+    if (coordinator != null) coordinator.onSelectionPass(this);
+    if (state == SCROLL_STATE_IDLE && !nestedContainers.isEmpty()) dispatchNestedPasses();
+  }
+
+  // Propagate the viewport snapshot to the nested Containers: pause the ones those become
+  // invisible, and run the passes requested by the visible ones.
+  private void dispatchNestedPasses() {
+    boolean limited = getPlayingBudget() != UNLIMITED || getPreparedBudget() != UNLIMITED;
+    for (int i = 0; i < nestedContainers.size(); i++) {
+      Container nested = nestedContainers.get(i);
+      boolean visible = !nested.getViewport().isEmpty();
+      if (visible != nested.parentVisible) {
+        nested.parentVisible = visible;
+        if (visible) {
+          nested.pendingPass = true;
+        } else {
+          nested.pausePlayers();
+        }
+      }
+      // When limited, the nested Containers must also catch up with the budgets.
+      if (visible && (nested.pendingPass || limited)
+          && nested.getScrollState() == SCROLL_STATE_IDLE) {
+        nested.pendingPass = false;
+        nested.onScrollStateChanged(SCROLL_STATE_IDLE);
+      }
+    }
+  }
+
+  // The key of a nested Container in the state of its parent: the order of the ViewHolder hosting
+  // it if that is a ToroPlayer, its adapter position otherwise.
+  private int findStateKey(@NonNull Container parent) {
+    ViewHolder holder = parent.findContainingViewHolder(this);
+    if (holder == null) return NO_POSITION;
+    return holder instanceof ToroPlayer ? ((ToroPlayer) holder).getPlayerOrder()
+        : holder.getAdapterPosition();
+  }
+
+  // Find the closest Container in the ancestors of this one, if any.
+  @Nullable private Container findParentContainer() {
+    ViewParent parent = getParent();
+    while (parent instanceof View) {
+      if (parent instanceof Container) return (Container) parent;
+      parent = parent.getParent();
+    }
+    return null;
+  }
+
+  // Save, pause and release all managed players. They will be managed again by the next pass.
+  /* pkg */ void releasePlayers() {
+    List<ToroPlayer> players = playerManager.getPlayers();
+    if (!players.isEmpty()) {
+      for (int size = players.size(), i = size - 1; i >= 0; i--) {
+        ToroPlayer player = players.get(i);
+        if (player.isPlaying()) {
+          this.savePlaybackInfo(player);
+          playerManager.pause(player);
+        }
+        playerManager.release(player);
+      }
+      playerManager.clear();
+    }
+  }
+
+  // Save and pause all playing players, but keep them managed.
+  private void pausePlayers() {
+    List<ToroPlayer> players = playerManager.getPlayers();
+    for (int i = 0, size = players.size(); i < size; i++) {
+      ToroPlayer player = players.get(i);
+      if (player.isPlaying()) {
+        this.savePlaybackInfo(player);
+        playerManager.pause(player);
+      }
+    }
+    for (int i = 0, size = nestedContainers.size(); i < size; i++) {
+      nestedContainers.get(i).pausePlayers();
+    }
+  }
+
+  /// Budgets. A Container and its nested Containers share one budget, its own players come first.
+
+  static final int UNLIMITED = PlaybackCoordinator.UNLIMITED;
+
+  // Number of playing players of this Container and its nested Containers.
+  /* pkg */ int getPlayingCount() {
+    int count = getOwnPlayingCount();
+    for (int i = 0, size = nestedContainers.size(); i < size; i++) {
+      count += nestedContainers.get(i).getPlayingCount();
+    }
+    return count;
+  }
+
+  // Number of managed players of this Container and its nested Containers.
+  /* pkg */ int getPreparedCount() {
+    int count = getOwnPreparedCount();
+    for (int i = 0, size = nestedContainers.size(); i < size; i++) {
+      count += nestedContainers.get(i).getPreparedCount();
+    }
+    return count;
+  }
+
+  private int getOwnPlayingCount() {
+    int count = 0;
+    List<ToroPlayer> players = playerManager.getPlayingPlayers();
+    for (int i = 0, size = players.size(); i < size; i++) {
+      if (!Common.isHost(players.get(i))) count++;
+    }
+    return count;
+  }
+
+  private int getOwnPreparedCount() {
+    int count = 0;
+    for (int i = 0, size = playerManager.getPlayerCount(); i < size; i++) {
+      if (!Common.isHost(playerManager.getPlayerAt(i))) count++;
+    }
+    return count;
+  }
+
+  // Number of players this Container and its nested Containers can play.
+  /* pkg */ int getPlayingBudget() {
+    if (parentContainer != null) return parentContainer.getPlayingBudgetOf(this);
+    return coordinator != null ? coordinator.getPlayingBudget(this) : UNLIMITED;
+  }
+
+  // Number of players this Container and its nested Containers can prepare.
+  /* pkg */ int getPreparedBudget() {
+    if (parentContainer != null) return parentContainer.getPreparedBudgetOf(this);
+    return coordinator != null ? coordinator.getPreparedBudget(this) : UNLIMITED;
+  }
+
+  private int getPlayingBudgetOf(@NonNull Container nested) {
+    int budget = getPlayingBudget();
+    if (budget == UNLIMITED) return UNLIMITED;
+    budget -= getOwnPlayingCount();
+    for (int i = 0, size = nestedContainers.size(); i < size && budget > 0; i++) {
+      Container other = nestedContainers.get(i);
+      if (other != nested) budget -= other.getPlayingCount();
+    }
+    return Math.max(budget, 0);
+  }
+
+  private int getPreparedBudgetOf(@NonNull Container nested) {
+    int budget = getPreparedBudget();
+    if (budget == UNLIMITED) return UNLIMITED;
+    budget -= getOwnPreparedCount();
+    for (int i = 0, size = nestedContainers.size(); i < size && budget > 0; i++) {
+      Container other = nestedContainers.get(i);
+      if (other != nested) budget -= other.getPreparedCount();
+    }
+    return Math.max(budget, 0);
+  }
+
+  // Number of candidates and selected Players of the last selection pass, for ToroMetrics.
+  private int lastCandidateCount;
+  private int lastSelectedCount;
+
+  // Increased at each selection pass, so that a pending background selection can tell it is stale.
+  private int selectionGeneration;
+
+  private void dispatchSelectionPass(int state) {
+    selectionGeneration++;
+    lastCandidateCount = 0;
+    lastSelectedCount = 0;
     // Need to handle the dead playback even when the Container is still scrolling/flinging.
     List<ToroPlayer> players = playerManager.getPlayers();
     // 1. Find players those are managed but not qualified to play anymore.
@@ -281,7 +529,7 @@ public class Container extends RecyclerView {
       ToroPlayer player = players.get(i);
       if (Common.allowsToPlay(player)) continue;
       if (player.isPlaying()) {
-        this.savePlaybackInfo(player.getPlayerOrder(), player.getCurrentPlaybackInfo());
+        this.savePlaybackInfo(player);
         playerManager.pause(player);
       }
       if (!playerManager.release(player)) player.release();
@@ -297,14 +545,19 @@ public class Container extends RecyclerView {
       return;
     }
 
+    // Budgets given by the coordinator of the Window or the parent Container. Unlimited by default.
+    final int preparedBudget = getPreparedBudget();
+    final int playingBudget = Math.min(getPlayingBudget(), preparedBudget);
+
     for (int i = 0; i < childCount; i++) {
       View child = layout.getChildAt(i);
       ViewHolder holder = super.getChildViewHolder(child);
       if (holder instanceof ToroPlayer) {
         ToroPlayer player = (ToroPlayer) holder;
         // Check candidate's condition
-        if (Common.allowsToPlay(player)) {
+        if (!lentPlayers.contains(player) && Common.allowsToPlay(player)) {
           if (!playerManager.manages(player)) {
+            if (!Common.isHost(player) && getOwnPreparedCount() >= preparedBudget) continue;
             playerManager.attachPlayer(player);
           }
           // Don't check the attach result, because the player may be managed already.
@@ -319,27 +572,252 @@ public class Container extends RecyclerView {
     int count = source.size();
     if (count < 1) return;  // No available player, return.
 
-    List<ToroPlayer> candidates = new ArrayList<>();
-    for (int i = 0; i < count; i++) {
-      ToroPlayer player = source.get(i);
-      if (player.wantsToPlay()) candidates.add(player);
+    if (playerSelector instanceof BackgroundPlayerSelector) {
+      dispatchBackgroundSelection((BackgroundPlayerSelector) playerSelector, source);
+      return;
     }
-    Collections.sort(candidates, Common.ORDER_COMPARATOR);
 
-    Collection<ToroPlayer> toPlay = playerSelector != null ? playerSelector.select(this, candidates)
-        : Collections.<ToroPlayer>emptyList();
+    List<ToroPlayer> candidates = new ArrayList<>();
+    Collection<ToroPlayer> toPlay = Common.selectPlayers(this, playerSelector, source, candidates);
+    if (playingBudget != UNLIMITED) toPlay = Common.limitPlayers(toPlay, playingBudget);
+    lastCandidateCount = candidates.size();
+    lastSelectedCount = toPlay.size();
+    int rank = 0;
     for (ToroPlayer player : toPlay) {
-      if (!player.isPlaying()) playerManager.play(player, playerDispatcher);
+      if (!player.isPlaying()) playerManager.play(player, playerDispatcher, rank);
+      rank++;
     }
 
     source.removeAll(toPlay);
     // Now 'source' contains only ones need to be paused.
     for (ToroPlayer player : source) {
       if (player.isPlaying()) {
-        this.savePlaybackInfo(player.getPlayerOrder(), player.getCurrentPlaybackInfo());
+        this.savePlaybackInfo(player);
         playerManager.pause(player);
+      } else {
+        playerManager.cancelPlay(player);  // Its start may be delayed or queued.
       }
     }
+
+    // Give up the paused players those exceed the budget.
+    if (preparedBudget == UNLIMITED) return;
+    for (int i = source.size() - 1; i >= 0 && getOwnPreparedCount() > preparedBudget; i--) {
+      ToroPlayer player = source.get(i);
+      if (Common.isHost(player)) continue;
+      if (!playerManager.release(player)) player.release();
+      playerManager.detachPlayer(player);
+    }
+  }
+
+  // Capture the candidates on the main thread, rank them in background then apply the result
+  // back on the main thread. Players those are not candidates anymore are paused immediately,
+  // the others keep their current state until the result comes.
+  private void dispatchBackgroundSelection(final BackgroundPlayerSelector selector,
+      List<ToroPlayer> source) {
+    final Handler handler = animatorFinishHandler;
+    if (handler == null) return;  // not attached.
+    List<ToroPlayer> candidates = new ArrayList<>();
+    for (int i = 0, count = source.size(); i < count; i++) {
+      ToroPlayer player = source.get(i);
+      if (player.wantsToPlay()) {
+        candidates.add(player);
+      } else if (player.isPlaying()) {
+        this.savePlaybackInfo(player);
+        playerManager.pause(player);
+      }
+    }
+    lastCandidateCount = candidates.size();
+
+    final int generation = selectionGeneration;
+    final SelectionSnapshot snapshot = SelectionSnapshot.capture(this, generation, candidates);
+    selector.getExecutor().execute(new Runnable() {
+      @Override public void run() {
+        final int[] selected = selector.rank(snapshot);
+        handler.post(new Runnable() {
+          @Override public void run() {
+            applyBackgroundSelection(selector, generation, selected);
+          }
+        });
+      }
+    });
+  }
+
+  /* pkg */ void applyBackgroundSelection(BackgroundPlayerSelector selector, int generation,
+      int[] selected) {
+    // Stale: a newer pass has started, the selector was changed or this Container was detached.
+    if (generation != selectionGeneration || selector != playerSelector) return;
+    if (animatorFinishHandler == null) return;
+    List<ToroPlayer> source = playerManager.getPlayers();
+    int budget = getPlayingBudget();
+    for (int i = 0, count = source.size(); i < count; i++) {
+      ToroPlayer player = source.get(i);
+      boolean host = Common.isHost(player);
+      // The player may have changed since the capture, check again before playing it.
+      int rank = SelectionSnapshot.indexOf(selected, player.getPlayerOrder());
+      if ((host || budget > 0)
+          && rank >= 0
+          && player.wantsToPlay()
+          && Common.allowsToPlay(player)) {
+        if (!host && budget != UNLIMITED) budget--;
+        if (!player.isPlaying()) playerManager.play(player, playerDispatcher, rank);
+      } else if (player.isPlaying()) {
+        this.savePlaybackInfo(player);
+        playerManager.pause(player);
+      } else {
+        playerManager.cancelPlay(player);
+      }
+    }
+  }
+
+  // ToroPlayers those are lent to other Views, not managed by PlayerManager until returned.
+  private final ArraySet<ToroPlayer> lentPlayers = new ArraySet<>();
+
+  /**
+   * Lend a playing or prepared {@link ToroPlayer} of this {@link Container}, so that its playback
+   * can be moved to another View (a fullscreen dialog, a floating mini-player, etc) without being
+   * re-prepared. Until it is returned using {@link #returnPlayer(ToroPlayer)}, this
+   * {@link Container} will not play, pause nor release the {@link ToroPlayer}, and its ViewHolder
+   * will not be recycled. This also holds after this {@link Container} is detached: the borrower
+   * must return it, then it is released.
+   *
+   * @param player the {@link ToroPlayer} to lend, must be managed by this {@link Container}.
+   * @return {@code true} if the {@link ToroPlayer} is lent, {@code false} otherwise.
+   * @since 3.7.0
+   */
+  public final boolean lendPlayer(@NonNull ToroPlayer player) {
+    if (!(player instanceof ViewHolder) || !playerManager.manages(player)) return false;
+    if (!lentPlayers.add(player)) return false;
+    this.savePlaybackInfo(player);
+    playerManager.detachPlayer(player);
+    ((ViewHolder) player).setIsRecyclable(false);
+    return true;
+  }
+
+  /**
+   * Return a {@link ToroPlayer} lent by {@link #lendPlayer(ToroPlayer)}. The caller must have
+   * moved the playback back to {@link ToroPlayer#getPlayerView()} before this call. If the
+   * {@link ToroPlayer} is still attached to this {@link Container}, it is managed again as usual.
+   * Otherwise it is released.
+   *
+   * @param player the {@link ToroPlayer} to return.
+   * @since 3.7.0
+   */
+  public final void returnPlayer(@NonNull ToroPlayer player) {
+    if (!lentPlayers.remove(player)) return;
+    ViewHolder holder = (ViewHolder) player;
+    holder.setIsRecyclable(true);
+    // animatorFinishHandler is null once this Container is detached.
+    if (animatorFinishHandler != null && holder.itemView.getParent() == this) {
+      if (playerManager.attachPlayer(player)) dispatchUpdateOnAnimationFinished(true);
+    } else {
+      if (player.isPlaying()) {
+        this.savePlaybackInfo(player);
+        player.pause();
+      }
+      player.release();
+    }
+  }
+
+  /**
+   * @return {@code true} if the {@link ToroPlayer} is lent and not yet returned.
+   * @since 3.7.0
+   */
+  public final boolean isPlayerLent(@NonNull ToroPlayer player) {
+    return lentPlayers.contains(player);
+  }
+
+  // The PlaybackCoordinator of the Window, available while this top-level Container is attached.
+  /* pkg */ @Nullable PlaybackCoordinator coordinator;
+  // Last visibility known by the PlaybackCoordinator.
+  /* pkg */ boolean coordinatorVisible = true;
+
+  // The closest ancestor Container, available while this nested Container is attached.
+  /* pkg */ @Nullable Container parentContainer;
+  // Attached Containers those have this Container as their parent.
+  /* pkg */ final ArrayList<Container> nestedContainers = new ArrayList<>();
+  // Last visibility known by the parent Container.
+  /* pkg */ boolean parentVisible = true;
+  // True if a pass was requested while it could not run, the parent Container will run it.
+  /* pkg */ boolean pendingPass = false;
+
+  // Visible area of this Container in its own coordinates. A top-level Container refreshes it at
+  // each selection pass, a nested Container derives it from the snapshot of its parent.
+  private final Rect viewport = new Rect();
+  private final Rect tmpRect = new Rect();
+  private final Point tmpPoint = new Point();
+  private boolean viewportValid = false;
+  private int viewportVersion;
+  private int parentViewportVersion;
+
+  /**
+   * Get the ratio in range of 0.0 ~ 1.0 the visible area of a {@link ToroPlayer}'s playerView,
+   * which is a descendant of this {@link Container}. Unlike
+   * {@link View#getGlobalVisibleRect(Rect)}, this doesn't walk up to the root View for each
+   * player: the visible area of this {@link Container} is captured once, at each selection pass.
+   * For a nested {@link Container}, it is derived from the one of its parent.
+   *
+   * @param player the {@link ToroPlayer} to investigate.
+   * @return the value in range of 0.0 ~ 1.0 of the visible area.
+   * @since 3.7.0
+   */
+  @FloatRange(from = 0.0, to = 1.0) //
+  public final float getVisibleAreaOffset(@NonNull ToroPlayer player) {
+    View playerView = player.getPlayerView();
+    int area = playerView.getWidth() * playerView.getHeight();
+    if (area <= 0 || playerView.getVisibility() != View.VISIBLE) return 0.f;
+    Rect viewport = getViewport();
+    if (viewport.isEmpty()) return 0.f;
+    Rect rect = tmpRect;
+    rect.set(0, 0, playerView.getWidth(), playerView.getHeight());
+    try {
+      offsetDescendantRectToMyCoords(playerView, rect);
+    } catch (IllegalArgumentException er) {
+      return 0.f; // Not a descendant anymore.
+    }
+    if (!rect.intersect(viewport)) return 0.f;
+    return Math.min(rect.width() * rect.height() / (float) area, 1.f);
+  }
+
+  /* pkg */ @NonNull Rect getViewport() {
+    if (parentContainer != null) {
+      Container parent = parentContainer;
+      Rect parentViewport = parent.getViewport();
+      if (!viewportValid || parentViewportVersion != parent.viewportVersion) {
+        parentViewportVersion = parent.viewportVersion;
+        Rect rect = tmpRect;
+        rect.set(0, 0, getWidth(), getHeight());
+        parent.offsetDescendantRectToMyCoords(this, rect);
+        int left = rect.left;
+        int top = rect.top;
+        if (getVisibility() == View.VISIBLE && rect.intersect(parentViewport)) {
+          rect.offset(-left, -top);
+          viewport.set(rect);
+        } else {
+          viewport.setEmpty();
+        }
+        viewportValid = true;
+        viewportVersion++;
+      }
+    } else if (!viewportValid) {
+      if (isShown() && getGlobalVisibleRect(viewport, tmpPoint)) {
+        viewport.offset(-tmpPoint.x, -tmpPoint.y);
+      } else {
+        viewport.setEmpty();
+      }
+      viewportValid = true;
+      viewportVersion++;
+    }
+    return viewport;
+  }
+
+  @CallSuper @Override public void onScrolled(int dx, int dy) {
+    super.onScrolled(dx, dy);
+    viewportValid = false;  // The nested Containers have moved.
+  }
+
+  @CallSuper @Override protected void onLayout(boolean changed, int l, int t, int r, int b) {
+    super.onLayout(changed, l, t, r, b);
+    viewportValid = false;
   }
 
   /**
@@ -385,6 +863,12 @@ public class Container extends RecyclerView {
 
   void dispatchUpdateOnAnimationFinished(boolean immediate) {
     if (getScrollState() != SCROLL_STATE_IDLE) return;
+    if (parentContainer != null) {
+      // Coalesced with the passes of the parent, which runs the pending ones of its nested.
+      pendingPass = true;
+      parentContainer.dispatchUpdateOnAnimationFinished(immediate);
+      return;
+    }
     if (animatorFinishHandler == null) return;
     final long duration = immediate ? SOME_BLINKS : getMaxAnimationDuration();
     if (getItemAnimator() != null) {
@@ -426,12 +910,11 @@ public class Container extends RecyclerView {
   }
 
   //// PlaybackInfo Cache implementation
+  // PlaybackInfoCache holds the CacheManager and the Initializer of this Container.
   /* pkg */ final PlaybackInfoCache playbackInfoCache = new PlaybackInfoCache(this);
-  /* pkg */ Initializer playerInitializer = Initializer.DEFAULT;
-  private CacheManager cacheManager = null; // null by default
 
   public final void setPlayerInitializer(@NonNull Initializer playerInitializer) {
-    this.playerInitializer = playerInitializer;
+    this.playbackInfoCache.initializer = playerInitializer;
   }
 
   /**
@@ -446,14 +929,33 @@ public class Container extends RecyclerView {
     if (playbackInfo != null) playbackInfoCache.savePlaybackInfo(order, playbackInfo);
   }
 
+  /**
+   * Save current {@link PlaybackInfo} of a {@link ToroPlayer}. If the Player implements
+   * {@link ToroPlayer.PlaybackInfoReader}, its info is copied into the cached record directly,
+   * otherwise {@link ToroPlayer#getCurrentPlaybackInfo()} is used.
+   *
+   * @param player the {@link ToroPlayer} whose {@link PlaybackInfo} to be saved.
+   * @since 3.7.0
+   */
+  public final void savePlaybackInfo(@NonNull ToroPlayer player) {
+    if (player instanceof ToroPlayer.PlaybackInfoReader) {
+      playbackInfoCache.savePlaybackInfoOf(player.getPlayerOrder(),
+          (ToroPlayer.PlaybackInfoReader) player);
+    } else {
+      this.savePlaybackInfo(player.getPlayerOrder(), player.getCurrentPlaybackInfo());
+    }
+  }
+
   /**
    * Get the cached {@link PlaybackInfo} at a specific order.
    *
    * @param order order of the {@link ToroPlayer} to get the cached {@link PlaybackInfo}.
-   * @return cached {@link PlaybackInfo} if available, a new one if there is no cached one.
+   * @return a copy of the cached {@link PlaybackInfo} if available, a new one if there is no cached
+   * one. Changing it doesn't change the cache, use {@link #savePlaybackInfo(int, PlaybackInfo)} for
+   * that.
    */
   @NonNull public final PlaybackInfo getPlaybackInfo(int order) {
-    return playbackInfoCache.getPlaybackInfo(order);
+    return new PlaybackInfo(playbackInfoCache.getPlaybackInfo(order));
   }
 
   /**
@@ -475,26 +977,83 @@ public class Container extends RecyclerView {
    * this method returns current {@link PlaybackInfo} of attached {@link ToroPlayer}s only.
    */
   @NonNull public SparseArray<PlaybackInfo> getLatestPlaybackInfos() {
-    SparseArray<PlaybackInfo> cache = new SparseArray<>();
-    List<ToroPlayer> activePlayers = this.filterBy(Container.Filter.PLAYING);
-    // This will update hotCache and coldCache if they are available.
-    for (ToroPlayer player : activePlayers) {
-      this.savePlaybackInfo(player.getPlayerOrder(), player.getCurrentPlaybackInfo());
-    }
+    savePlayingPlaybackInfos();
+    // Copies of the cached records, client is free to keep them.
+    return playbackInfoCache.saveStates();
+  }
 
-    if (cacheManager == null) {
-      if (playbackInfoCache.hotCache != null) {
-        for (Map.Entry<Integer, PlaybackInfo> entry : playbackInfoCache.hotCache.entrySet()) {
-          cache.put(entry.getKey(), entry.getValue());
-        }
-      }
-    } else {
-      for (Map.Entry<Integer, Object> entry : playbackInfoCache.coldKeyToOrderMap.entrySet()) {
-        cache.put(entry.getKey(), playbackInfoCache.coldCache.get(entry.getValue()));
-      }
+  // This will update hotCache and coldCache if they are available. No need to sort the players.
+  private void savePlayingPlaybackInfos() {
+    List<ToroPlayer> players = playerManager.getPlayingPlayers();
+    for (int i = 0, size = players.size(); i < size; i++) {
+      this.savePlaybackInfo(players.get(i));
     }
+  }
 
-    return cache;
+  /// State snapshot
+
+  // Latest snapshot of this Container, and the modCounts of the cache it was built from. The
+  // snapshots of the nested Containers are kept by the PlaybackInfoCache, so that they follow the
+  // Adapter changes and the keys of the CacheManager.
+  private StateSnapshot stateSnapshot = StateSnapshot.EMPTY;
+  private int snapshotModCount = -1;
+  private int snapshotNestedModCount = -1;
+  // Key of this nested Container in the state of its parent.
+  /* pkg */ int stateKey = NO_POSITION;
+
+  /**
+   * Get a {@link StateSnapshot} of this {@link Container} and its nested {@link Container}s. Only
+   * the parts those changed since the last call are rebuilt, so calling this method repeatedly
+   * (for example in {@link ToroPlayer#getCurrentPlaybackInfo()} of a ViewHolder hosting a nested
+   * {@link Container}) is cheap when nothing is playing.
+   *
+   * @return the latest {@link StateSnapshot}, immutable.
+   * @since 3.7.0
+   */
+  @NonNull public final StateSnapshot getStateSnapshot() {
+    // Playing players move all the time, their subtrees are always dirty.
+    savePlayingPlaybackInfos();
+    for (int i = 0, size = nestedContainers.size(); i < size; i++) {
+      Container nested = nestedContainers.get(i);
+      nested.stateKey = nested.findStateKey(this);
+      if (nested.stateKey == NO_POSITION) continue;
+      playbackInfoCache.putNestedState(nested.stateKey, nested.getStateSnapshot());
+    }
+
+    if (snapshotModCount != playbackInfoCache.modCount) {
+      snapshotModCount = playbackInfoCache.modCount;
+      snapshotNestedModCount = playbackInfoCache.nestedModCount;
+      stateSnapshot = new StateSnapshot(playbackInfoCache.saveStates(),
+          playbackInfoCache.saveNestedStates());
+    } else if (snapshotNestedModCount != playbackInfoCache.nestedModCount) {
+      // Only a nested subtree changed, share the PlaybackInfos of this node.
+      snapshotNestedModCount = playbackInfoCache.nestedModCount;
+      stateSnapshot = new StateSnapshot(stateSnapshot.playbackInfos,
+          playbackInfoCache.saveNestedStates());
+    }
+    return stateSnapshot;
+  }
+
+  /**
+   * Restore a {@link StateSnapshot} obtained from {@link #getStateSnapshot()}. The state of the
+   * nested {@link Container}s is restored when they are attached, or right away if they are. Should
+   * be called before the players are initialized, for example right after setting the Adapter.
+   *
+   * @param snapshot the {@link StateSnapshot} to restore.
+   * @since 3.7.0
+   */
+  public final void restoreStateSnapshot(@Nullable StateSnapshot snapshot) {
+    if (snapshot == null) return;
+    playbackInfoCache.restoreStates(snapshot.playbackInfos);
+    SparseArray<StateSnapshot> nestedSnapshots = snapshot.nestedSnapshots;
+    for (int i = 0, size = nestedSnapshots.size(); i < size; i++) {
+      playbackInfoCache.putNestedState(nestedSnapshots.keyAt(i), nestedSnapshots.valueAt(i));
+    }
+    for (int i = 0, size = nestedContainers.size(); i < size; i++) {
+      Container nested = nestedContainers.get(i);
+      StateSnapshot nestedSnapshot = nestedSnapshots.get(nested.stateKey);
+      if (nestedSnapshot != null) nested.restoreStateSnapshot(nestedSnapshot);
+    }
   }
 
   /**
@@ -509,9 +1068,9 @@ public class Container extends RecyclerView {
    * @param cacheManager The {@link CacheManager} to set to the {@link Container}.
    */
   public final void setCacheManager(@Nullable CacheManager cacheManager) {
-    if (this.cacheManager == cacheManager) return;
+    if (this.playbackInfoCache.cacheManager == cacheManager) return;
     this.playbackInfoCache.clearCache();
-    this.cacheManager = cacheManager;
+    this.playbackInfoCache.cacheManager = cacheManager;
   }
 
   /**
@@ -520,7 +1079,67 @@ public class Container extends RecyclerView {
    * @return current {@link CacheManager} of the {@link Container}. Can be {@code null}.
    */
   @Nullable public final CacheManager getCacheManager() {
-    return cacheManager;
+    return playbackInfoCache.cacheManager;
+  }
+
+  /* pkg */ boolean checkpointEnabled = false;
+  /* pkg */ @Nullable PlaybackCheckpointer.Store checkpointStore = null;
+
+  /**
+   * Enable or disable the periodic checkpoint of this {@link Container}. If enabled, the
+   * {@link PlaybackInfo} of its playing {@link ToroPlayer}s are saved every
+   * {@link PlaybackCheckpointer#getInterval()} milliseconds, as long as it is attached to Window.
+   *
+   * @param enabled {@code true} to enable the checkpoint.
+   * @since 3.7.0
+   */
+  public final void setCheckpointEnabled(boolean enabled) {
+    if (this.checkpointEnabled == enabled) return;
+    this.checkpointEnabled = enabled;
+    if (!ViewCompat.isAttachedToWindow(this)) return;
+    if (enabled) {
+      PlaybackCheckpointer.getInstance().register(this);
+    } else {
+      PlaybackCheckpointer.getInstance().unregister(this);
+    }
+  }
+
+  public final boolean isCheckpointEnabled() {
+    return checkpointEnabled;
+  }
+
+  /**
+   * Set the {@link PlaybackCheckpointer.Store} to persist the checkpoints of this
+   * {@link Container}. Without a store, checkpoints are only saved to the playback cache.
+   *
+   * @param store the {@link PlaybackCheckpointer.Store} to use, or {@code null} to remove.
+   * @since 3.7.0
+   */
+  public final void setCheckpointStore(@Nullable PlaybackCheckpointer.Store store) {
+    this.checkpointStore = store;
+  }
+
+  @Nullable private PlayerRetainer playerRetainer;
+
+  /**
+   * Set a {@link PlayerRetainer} to keep the playing {@link ToroPlayer}s alive through a
+   * configuration change. Only works with a non-null {@link CacheManager}, whose keys are used to
+   * match the retained resource with the {@link ToroPlayer}s after the recreation.
+   *
+   * @param playerRetainer the {@link PlayerRetainer} to use, or {@code null} to remove.
+   * @since 3.7.0
+   */
+  public final void setPlayerRetainer(@Nullable PlayerRetainer playerRetainer) {
+    this.playerRetainer = playerRetainer;
+  }
+
+  @Nullable public final PlayerRetainer getPlayerRetainer() {
+    return playerRetainer;
+  }
+
+  private boolean retainPlayer(@NonNull ToroPlayer player) {
+    Object key = playbackInfoCache.getKey(player.getPlayerOrder());
+    return key != null && playerRetainer != null && playerRetainer.retainPlayer(this, player, key);
   }
 
   /**
@@ -542,7 +1161,7 @@ public class Container extends RecyclerView {
       // if onSaveInstanceState is called before, source will contain no item, just fine.
       for (ToroPlayer player : players) {
         if (player.isPlaying()) {
-          this.savePlaybackInfo(player.getPlayerOrder(), player.getCurrentPlaybackInfo());
+          this.savePlaybackInfo(player);
           playerManager.pause(player);
         }
       }
@@ -601,7 +1220,7 @@ public class Container extends RecyclerView {
       List<ToroPlayer> players = playerManager.getPlayers();
       for (ToroPlayer player : players) {
         if (player.isPlaying()) {
-          this.savePlaybackInfo(player.getPlayerOrder(), player.getCurrentPlaybackInfo());
+          this.savePlaybackInfo(player);
           playerManager.pause(player);
         }
       }
@@ -626,19 +1245,24 @@ public class Container extends RecyclerView {
 
   @Override protected Parcelable onSaveInstanceState() {
     Parcelable superState = super.onSaveInstanceState();
+    boolean recreating =
+        getContext() instanceof Activity && ((Activity) getContext()).isChangingConfigurations();
+
     List<ToroPlayer> source = playerManager.getPlayers();
+    List<ToroPlayer> selected = null;  // playing players, candidates to be retained.
     for (ToroPlayer player : source) {
       if (player.isPlaying()) {
-        this.savePlaybackInfo(player.getPlayerOrder(), player.getCurrentPlaybackInfo());
+        this.savePlaybackInfo(player);
         playerManager.pause(player);
+        if (recreating && playerRetainer != null) {
+          if (selected == null) selected = new ArrayList<>();
+          selected.add(player);
+        }
       }
     }
 
     final SparseArray<PlaybackInfo> states = playbackInfoCache.saveStates();
 
-    boolean recreating =
-        getContext() instanceof Activity && ((Activity) getContext()).isChangingConfigurations();
-
     // Release current players on recreation event only.
     // Note that there are cases where this method is called without the activity destroying/recreating.
     // For example: in API 26 (my test mostly run on 8.0), when user click to "Current App" button,
@@ -648,7 +1272,9 @@ public class Container extends RecyclerView {
     // We only need to release current resources when the recreation happens.
     if (recreating) {
       for (ToroPlayer player : source) {
-        if (!playerManager.release(player)) player.release();
+        if (selected == null || !selected.contains(player) || !retainPlayer(player)) {
+          if (!playerManager.release(player)) player.release();
+        }
         playerManager.detachPlayer(player);
       }
     }
@@ -656,6 +1282,10 @@ public class Container extends RecyclerView {
     // Client must consider this behavior using CacheManager implement.
     PlayerViewState playerViewState = new PlayerViewState(superState);
     playerViewState.statesCache = states;
+    // Nested Containers don't save their own state, RecyclerView doesn't dispatch it to children.
+    if (!playbackInfoCache.nestedStates.isEmpty() || !nestedContainers.isEmpty()) {
+      playerViewState.nestedStates = getStateSnapshot().nestedSnapshots;
+    }
 
     // To mark that this method was called. An activity recreation will clear this.
     if (states != null && states.size() > 0) {
@@ -678,16 +1308,26 @@ public class Container extends RecyclerView {
     super.onRestoreInstanceState(viewState.getSuperState());
     SparseArray<?> saveStates = viewState.statesCache;
     if (saveStates != null) playbackInfoCache.restoreStates(saveStates);
+    SparseArray<?> nestedSaveStates = viewState.nestedStates;
+    if (nestedSaveStates != null) {
+      for (int i = 0, size = nestedSaveStates.size(); i < size; i++) {
+        Object value = nestedSaveStates.valueAt(i);
+        if (value instanceof StateSnapshot) {
+          playbackInfoCache.putNestedState(nestedSaveStates.keyAt(i), (StateSnapshot) value);
+        }
+      }
+    }
   }
 
   /**
    * Store the array of {@link PlaybackInfo} of recently cached playback. This state will be used
-   * only when {@link #cacheManager} is not {@code null}. Extension of {@link Container} must
+   * only when {@link #getCacheManager()} is not {@code null}. Extension of {@link Container} must
    * also have its own version of {@link SavedState} extends this {@link PlayerViewState}.
    */
   public static class PlayerViewState extends AbsSavedState {
 
     SparseArray<?> statesCache;
+    SparseArray<?> nestedStates;  // StateSnapshot of the nested Containers, by their keys.
 
     /**
      * Called by onSaveInstanceState
@@ -702,6 +1342,7 @@ public class Container extends RecyclerView {
     PlayerViewState(Parcel in, ClassLoader loader) {
       super(in, loader);
       statesCache = in.readSparseArray(loader);
+      nestedStates = in.readSparseArray(loader);
     }
 
     PlayerViewState(Parcel in) {
@@ -712,6 +1353,8 @@ public class Container extends RecyclerView {
       super.writeToParcel(dest, flags);
       //noinspection unchecked
       dest.writeSparseArray((SparseArray<Object>) statesCache);
+      //noinspection unchecked
+      dest.writeSparseArray((SparseArray<Object>) nestedStates);
     }
 
     public static final Creator<PlayerViewState> CREATOR =
@@ -756,6 +1399,7 @@ public class Container extends RecyclerView {
     }
 
     @Override public void onChanged() {
+      playerManager.onOrdersChanged();
       dispatchUpdateOnAnimationFinished(true);
     }
 
@@ -764,14 +1408,17 @@ public class Container extends RecyclerView {
     }
 
     @Override public void onItemRangeInserted(int positionStart, int itemCount) {
+      playerManager.onOrdersChanged();
       dispatchUpdateOnAnimationFinished(false);
     }
 
     @Override public void onItemRangeRemoved(int positionStart, int itemCount) {
+      playerManager.onOrdersChanged();
       dispatchUpdateOnAnimationFinished(false);
     }
 
     @Override public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+      playerManager.onOrdersChanged();
       dispatchUpdateOnAnimationFinished(false);
     }
   }
@@ -1097,6 +1744,30 @@ public class Container extends RecyclerView {
     void onFinishInteraction();
   }
 
+  /**
+   * Keep the resource of the playing {@link ToroPlayer}s of a {@link Container} alive through a
+   * configuration change, so that they can be reused by the {@link Container} of the recreated
+   * Activity instead of being prepared from scratch.
+   *
+   * @since 3.7.0
+   */
+  public interface PlayerRetainer {
+
+    /**
+     * Called when the {@link Container} is about to release a playing {@link ToroPlayer} because
+     * its Activity is being recreated. Implementation that takes over the resource of the
+     * {@link ToroPlayer} must clean up the {@link ToroPlayer} by itself.
+     *
+     * @param container the {@link Container} of the {@link ToroPlayer}.
+     * @param player the {@link ToroPlayer} to retain. It is already paused.
+     * @param key the key of the {@link ToroPlayer} obtained from the {@link CacheManager}.
+     * @return {@code true} if the resource is retained, in which case the {@link Container} will
+     * not release the {@link ToroPlayer}, {@code false} otherwise.
+     */
+    boolean retainPlayer(@NonNull Container container, @NonNull ToroPlayer player,
+        @NonNull Object key);
+  }
+
   public interface Initializer {
 
     @NonNull PlaybackInfo initPlaybackInfo(int order);
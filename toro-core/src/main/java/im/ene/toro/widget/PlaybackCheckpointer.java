@@ -0,0 +1,219 @@
+/*
+ * Copyright (c) 2020 Nam Nguyen, nam@ene.im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package im.ene.toro.widget;
+
+import android.os.Handler;
+import android.os.Looper;
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import im.ene.toro.CacheManager;
+import im.ene.toro.ToroPlayer;
+import im.ene.toro.ToroUtil;
+import im.ene.toro.media.PlaybackInfo;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Periodically save the {@link PlaybackInfo} of playing {@link ToroPlayer}s, so that a process
+ * killed during a playback doesn't lose all the progress.
+ *
+ * A single timer on the main thread is shared by all {@link Container}s that enable it using
+ * {@link Container#setCheckpointEnabled(boolean)}. At each tick, for each such {@link Container},
+ * the {@link PlaybackInfo} of its playing {@link ToroPlayer}s is read and saved to the playback
+ * cache of the {@link Container}. Players whose position hasn't moved since the last save are
+ * skipped. The saved entries of one {@link Container} are then delivered together to its
+ * {@link Store}, if there is one, as a single {@link Checkpoint}.
+ *
+ * <pre><code>
+ * container.setCheckpointEnabled(true);
+ * container.setCheckpointStore(new PlaybackCheckpointer.Store() {
+ *   {@literal @}Override public void onCheckpoint(@NonNull Container container,
+ *       @NonNull PlaybackCheckpointer.Checkpoint checkpoint) {
+ *     for (int i = 0; i &lt; checkpoint.size(); i++) {
+ *       editor.putLong(String.valueOf(checkpoint.getKey(i)),
+ *           checkpoint.getPlaybackInfo(i).getResumePosition());
+ *     }
+ *     editor.apply();
+ *   }
+ * });
+ * </code></pre>
+ *
+ * @since 3.7.0
+ */
+@SuppressWarnings({ "unused", "WeakerAccess" }) //
+public final class PlaybackCheckpointer {
+
+  public static final long DEFAULT_INTERVAL_MS = 5_000;
+
+  private static PlaybackCheckpointer instance;
+
+  @MainThread @NonNull public static PlaybackCheckpointer getInstance() {
+    if (instance == null) instance = new PlaybackCheckpointer();
+    return instance;
+  }
+
+  /**
+   * Persistent storage for the {@link PlaybackInfo}s saved by {@link PlaybackCheckpointer}.
+   */
+  public interface Store {
+
+    /**
+     * Called on the main thread with all the entries of a {@link Container} saved in one tick. The
+     * {@link Checkpoint} instance and its {@link PlaybackInfo}s are reused, implementation must
+     * copy what it needs before returning, and should do the actual I/O off the main thread.
+     *
+     * @param container the {@link Container} whose {@link ToroPlayer}s are checkpointed.
+     * @param checkpoint the saved entries, never empty.
+     */
+    void onCheckpoint(@NonNull Container container, @NonNull Checkpoint checkpoint);
+  }
+
+  /**
+   * The entries saved for one {@link Container} in one tick. Reused across ticks.
+   */
+  public static final class Checkpoint {
+
+    private int size;
+    private int[] orders = new int[4];
+    private Object[] keys = new Object[4];
+    private PlaybackInfo[] infos = new PlaybackInfo[4];
+
+    Checkpoint() {
+    }
+
+    public int size() {
+      return size;
+    }
+
+    /**
+     * @return the order of the {@link ToroPlayer} of the entry at {@code index}.
+     */
+    public int getOrder(int index) {
+      return orders[index];
+    }
+
+    /**
+     * @return the key obtained from the {@link CacheManager} of the {@link Container} for the
+     * entry at {@code index}, or {@code null} if there is no {@link CacheManager}.
+     */
+    @Nullable public Object getKey(int index) {
+      return keys[index];
+    }
+
+    @NonNull public PlaybackInfo getPlaybackInfo(int index) {
+      return infos[index];
+    }
+
+    void add(int order, @Nullable Object key, @NonNull PlaybackInfo info) {
+      if (size == orders.length) {
+        int capacity = size * 2;
+        orders = Arrays.copyOf(orders, capacity);
+        keys = Arrays.copyOf(keys, capacity);
+        infos = Arrays.copyOf(infos, capacity);
+      }
+      if (infos[size] == null) infos[size] = new PlaybackInfo();
+      orders[size] = order;
+      keys[size] = key;
+      infos[size].setTo(info);
+      size++;
+    }
+
+    void clear() {
+      Arrays.fill(keys, 0, size, null);
+      size = 0;
+    }
+  }
+
+  private final Handler handler = new Handler(Looper.getMainLooper());
+  private final ArrayList<Container> containers = new ArrayList<>();
+  private final PlaybackInfo scratch = new PlaybackInfo();
+  private final Checkpoint checkpoint = new Checkpoint();
+  private long intervalMs = DEFAULT_INTERVAL_MS;
+
+  private final Runnable tick = new Runnable() {
+    @Override public void run() {
+      checkpointNow();
+      if (!containers.isEmpty()) handler.postDelayed(this, intervalMs);
+    }
+  };
+
+  private PlaybackCheckpointer() {
+  }
+
+  /**
+   * Set the interval between two checkpoints. Takes effect from the next tick.
+   *
+   * @param intervalMs interval in milliseconds, must be positive.
+   */
+  @MainThread public void setInterval(long intervalMs) {
+    if (intervalMs <= 0) throw new IllegalArgumentException("Interval must be positive.");
+    this.intervalMs = intervalMs;
+  }
+
+  public long getInterval() {
+    return intervalMs;
+  }
+
+  /**
+   * Checkpoint all registered {@link Container}s immediately, without waiting for the next tick.
+   * Useful when the App is about to go to background or receives a low memory warning.
+   */
+  @MainThread public void checkpointNow() {
+    if (containers.isEmpty()) return;
+    boolean section = ToroUtil.beginSection("Toro:Checkpoint");
+    try {
+      // Stores may disable checkpoint of their Container, so don't cache the size.
+      for (int i = 0; i < containers.size(); i++) {
+        checkpoint(containers.get(i));
+      }
+    } finally {
+      ToroUtil.endSection(section);
+    }
+  }
+
+  private void checkpoint(@NonNull Container container) {
+    final PlayerManager manager = container.playerManager;
+    final PlaybackInfoCache cache = container.playbackInfoCache;
+    checkpoint.clear();
+    for (int i = 0, count = manager.getPlayerCount(); i < count; i++) {
+      ToroPlayer player = manager.getPlayerAt(i);
+      if (!player.isPlaying()) continue;
+      int order = player.getPlayerOrder();
+      if (player instanceof ToroPlayer.PlaybackInfoReader) {
+        ((ToroPlayer.PlaybackInfoReader) player).readPlaybackInfo(scratch);
+      } else {
+        scratch.setTo(player.getCurrentPlaybackInfo());
+      }
+      if (cache.checkpoint(order, scratch)) checkpoint.add(order, cache.getKey(order), scratch);
+    }
+
+    Store store = container.checkpointStore;
+    if (store != null && checkpoint.size() > 0) store.onCheckpoint(container, checkpoint);
+    checkpoint.clear();
+  }
+
+  @MainThread void register(@NonNull Container container) {
+    if (containers.contains(container)) return;
+    containers.add(container);
+    if (containers.size() == 1) handler.postDelayed(tick, intervalMs);
+  }
+
+  @MainThread void unregister(@NonNull Container container) {
+    if (containers.remove(container) && containers.isEmpty()) handler.removeCallbacks(tick);
+  }
+}
@@ -0,0 +1,304 @@
+/*
+ * Copyright (c) 2020 Nam Nguyen, nam@ene.im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package im.ene.toro.widget;
+
+import android.app.Activity;
+import android.graphics.Rect;
+import android.view.View;
+import android.view.ViewTreeObserver;
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import im.ene.toro.R;
+import java.util.ArrayList;
+
+/**
+ * Coordinate the playback of all {@link Container}s in the same Window, so that screens with many
+ * {@link Container}s (nested pagers, one feed per tab, etc) don't play or hold more players than
+ * they can afford.
+ *
+ * Each {@link Container} registers to the coordinator of its Window when it is attached. At each
+ * selection pass, the {@link Container}s are ranked: the one having focus comes first, then the
+ * one with the larger visible area. A {@link Container} can only play and prepare as many players
+ * as the budgets leave after the {@link Container}s ranked before it. When a {@link Container}
+ * takes more, the {@link Container}s ranked after it are asked to refresh and give up the extra
+ * players.
+ *
+ * Nested {@link Container}s are not registered here: they share the budgets of their parent
+ * {@link Container}, after the players of the parent itself.
+ *
+ * Optionally, {@link Container}s those become completely invisible (an off-screen page, a hidden
+ * tab) release all their players right away, without waiting for their own next scroll.
+ *
+ * Without any configuration, the coordinator doesn't limit anything.
+ *
+ * <pre><code>
+ * PlaybackCoordinator.of(activity)
+ *     .setMaxPlayingPlayers(1)
+ *     .setMaxPreparedPlayers(3)
+ *     .setReleaseInvisibleContainers(true);
+ * </code></pre>
+ *
+ * @since 3.7.0
+ */
+@SuppressWarnings({ "unused", "WeakerAccess", "UnusedReturnValue" }) //
+public final class PlaybackCoordinator {
+
+  public static final int UNLIMITED = Integer.MAX_VALUE;
+
+  /**
+   * Get the {@link PlaybackCoordinator} of the Window of an {@link Activity}.
+   */
+  @MainThread @NonNull public static PlaybackCoordinator of(@NonNull Activity activity) {
+    return of(activity.getWindow().getDecorView());
+  }
+
+  /**
+   * Get the {@link PlaybackCoordinator} of the Window a View is attached to. The View must be
+   * attached to its Window, otherwise the coordinator is scoped to its detached hierarchy.
+   */
+  @MainThread @NonNull public static PlaybackCoordinator of(@NonNull View view) {
+    // Kept as a tag of the root View, so it lives as long as the Window does.
+    View root = view.getRootView();
+    Object tag = root.getTag(R.id.toro_playback_coordinator);
+    if (tag instanceof PlaybackCoordinator) return (PlaybackCoordinator) tag;
+    PlaybackCoordinator coordinator = new PlaybackCoordinator(root);
+    root.setTag(R.id.toro_playback_coordinator, coordinator);
+    return coordinator;
+  }
+
+  @NonNull final View root;
+  final ArrayList<Container> containers = new ArrayList<>();
+
+  private int maxPlayingPlayers = UNLIMITED;
+  private int maxPreparedPlayers = UNLIMITED;
+  private boolean releaseInvisibleContainers = false;
+  private boolean visibilityCheckPending = false;
+
+  // Scratches for ranking, main thread only.
+  private final Rect rect = new Rect();
+  private final ArrayList<Container> ranked = new ArrayList<>();
+  private float[] scores = new float[4];
+
+  private final Runnable visibilityCheck = new Runnable() {
+    @Override public void run() {
+      visibilityCheckPending = false;
+      dispatchVisibilityChanges();
+    }
+  };
+
+  private final ViewTreeObserver.OnScrollChangedListener scrollListener =
+      new ViewTreeObserver.OnScrollChangedListener() {
+        @Override public void onScrollChanged() {
+          scheduleVisibilityCheck();
+        }
+      };
+
+  private final ViewTreeObserver.OnGlobalLayoutListener layoutListener =
+      new ViewTreeObserver.OnGlobalLayoutListener() {
+        @Override public void onGlobalLayout() {
+          scheduleVisibilityCheck();
+        }
+      };
+
+  private PlaybackCoordinator(@NonNull View root) {
+    this.root = root;
+  }
+
+  /**
+   * Set the maximum number of players playing at the same time in this Window.
+   */
+  @MainThread public PlaybackCoordinator setMaxPlayingPlayers(int maxPlayingPlayers) {
+    if (maxPlayingPlayers < 0) throw new IllegalArgumentException("Negative budget.");
+    this.maxPlayingPlayers = maxPlayingPlayers;
+    requestPasses(0);
+    return this;
+  }
+
+  public int getMaxPlayingPlayers() {
+    return maxPlayingPlayers;
+  }
+
+  /**
+   * Set the maximum number of players initialized (playing or ready to play) at the same time in
+   * this Window.
+   */
+  @MainThread public PlaybackCoordinator setMaxPreparedPlayers(int maxPreparedPlayers) {
+    if (maxPreparedPlayers < 0) throw new IllegalArgumentException("Negative budget.");
+    this.maxPreparedPlayers = maxPreparedPlayers;
+    requestPasses(0);
+    return this;
+  }
+
+  public int getMaxPreparedPlayers() {
+    return maxPreparedPlayers;
+  }
+
+  /**
+   * If {@code true}, a {@link Container} that becomes completely invisible releases all of its
+   * players immediately, and refreshes its playback once it is visible again.
+   */
+  @MainThread
+  public PlaybackCoordinator setReleaseInvisibleContainers(boolean releaseInvisibleContainers) {
+    if (this.releaseInvisibleContainers == releaseInvisibleContainers) return this;
+    this.releaseInvisibleContainers = releaseInvisibleContainers;
+    ViewTreeObserver observer = root.getViewTreeObserver();
+    if (releaseInvisibleContainers) {
+      observer.addOnScrollChangedListener(scrollListener);
+      observer.addOnGlobalLayoutListener(layoutListener);
+      for (int i = 0, size = containers.size(); i < size; i++) {
+        containers.get(i).coordinatorVisible = isVisible(containers.get(i));
+      }
+    } else {
+      observer.removeOnScrollChangedListener(scrollListener);
+      observer.removeOnGlobalLayoutListener(layoutListener);
+      root.removeCallbacks(visibilityCheck);
+      visibilityCheckPending = false;
+    }
+    return this;
+  }
+
+  public boolean isReleaseInvisibleContainers() {
+    return releaseInvisibleContainers;
+  }
+
+  /// Called by Container
+
+  void register(@NonNull Container container) {
+    if (containers.contains(container)) return;
+    containers.add(container);
+    container.coordinatorVisible = true;
+  }
+
+  void unregister(@NonNull Container container) {
+    containers.remove(container);
+  }
+
+  boolean isLimited() {
+    return maxPlayingPlayers != UNLIMITED || maxPreparedPlayers != UNLIMITED;
+  }
+
+  /**
+   * @return number of players the {@link Container} can play, after the {@link Container}s ranked
+   * before it take their parts.
+   */
+  int getPlayingBudget(@NonNull Container container) {
+    if (maxPlayingPlayers == UNLIMITED) return UNLIMITED;
+    rank();
+    int budget = maxPlayingPlayers;
+    for (int i = 0, size = ranked.size(); i < size && budget > 0; i++) {
+      Container other = ranked.get(i);
+      if (other == container) break;
+      budget -= other.getPlayingCount();
+    }
+    return Math.max(budget, 0);
+  }
+
+  /**
+   * @return number of players the {@link Container} can prepare, after the {@link Container}s
+   * ranked before it take their parts.
+   */
+  int getPreparedBudget(@NonNull Container container) {
+    if (maxPreparedPlayers == UNLIMITED) return UNLIMITED;
+    rank();
+    int budget = maxPreparedPlayers;
+    for (int i = 0, size = ranked.size(); i < size && budget > 0; i++) {
+      Container other = ranked.get(i);
+      if (other == container) break;
+      budget -= other.getPreparedCount();
+    }
+    return Math.max(budget, 0);
+  }
+
+  // After a selection pass of a Container, let the ones ranked after it catch up with the budgets.
+  void onSelectionPass(@NonNull Container container) {
+    if (!isLimited()) return;
+    rank();
+    int index = ranked.indexOf(container);
+    if (index >= 0) requestPasses(index + 1);
+  }
+
+  /// Internal
+
+  // Ask the ranked Containers from an index, those take more than their budgets, to refresh.
+  private void requestPasses(int from) {
+    if (!isLimited()) return;
+    int playing = maxPlayingPlayers;
+    int prepared = maxPreparedPlayers;
+    rank();
+    for (int i = 0, size = ranked.size(); i < size; i++) {
+      Container container = ranked.get(i);
+      int playingCount = container.getPlayingCount();
+      int preparedCount = container.getPreparedCount();
+      if (i >= from && (playingCount > playing || preparedCount > prepared)) {
+        container.dispatchUpdateOnAnimationFinished(true);
+      }
+      if (playing != UNLIMITED) playing = Math.max(playing - playingCount, 0);
+      if (prepared != UNLIMITED) prepared = Math.max(prepared - preparedCount, 0);
+    }
+  }
+
+  // Rank registered Containers: focused one first, then by visible area, descending.
+  private void rank() {
+    ranked.clear();
+    int size = containers.size();
+    if (scores.length < size) scores = new float[size * 2];
+    for (int i = 0; i < size; i++) {
+      Container container = containers.get(i);
+      float score = visibleFraction(container);
+      if (container.hasFocus()) score += 1.f;
+      // Insertion sort, the number of Containers is small.
+      int index = ranked.size();
+      while (index > 0 && scores[index - 1] < score) {
+        scores[index] = scores[index - 1];
+        index--;
+      }
+      scores[index] = score;
+      ranked.add(index, container);
+    }
+  }
+
+  private float visibleFraction(@NonNull Container container) {
+    int area = container.getWidth() * container.getHeight();
+    if (area <= 0 || !container.isShown() || !container.getGlobalVisibleRect(rect)) return 0.f;
+    return rect.width() * rect.height() / (float) area;
+  }
+
+  private boolean isVisible(@NonNull Container container) {
+    return container.isShown() && container.getGlobalVisibleRect(rect);
+  }
+
+  private void scheduleVisibilityCheck() {
+    if (visibilityCheckPending) return;
+    visibilityCheckPending = true;
+    root.post(visibilityCheck);
+  }
+
+  private void dispatchVisibilityChanges() {
+    for (int i = 0; i < containers.size(); i++) {
+      Container container = containers.get(i);
+      boolean visible = isVisible(container);
+      if (visible == container.coordinatorVisible) continue;
+      container.coordinatorVisible = visible;
+      if (visible) {
+        container.dispatchUpdateOnAnimationFinished(true);
+      } else {
+        container.releasePlayers();
+        requestPasses(0);  // Give the freed budgets to the others.
+      }
+    }
+  }
+}
@@ -22,10 +22,12 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.recyclerview.widget.RecyclerView;
 import im.ene.toro.CacheManager;
+import im.ene.toro.ToroMetrics;
 import im.ene.toro.ToroPlayer;
 import im.ene.toro.ToroUtil;
 import im.ene.toro.media.PlaybackInfo;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
@@ -45,12 +47,26 @@ import static im.ene.toro.widget.Common.ORDER_COMPARATOR_INT;
  * [2] If a non-null {@link CacheManager} provided to the {@link Container}, this class must
  * properly manage the {@link PlaybackInfo} of detached {@link ToroPlayer} and restore it to
  * previous state after being re-attached.
+ *
+ * [3] Except {@link PlaybackInfo#SCRAP}, each {@link PlaybackInfo} in the caches is a record owned
+ * by this class. Saving to an existing entry copies the values into its record, so that the
+ * repeated saves of a {@link ToroPlayer} (on pause, detach, etc) don't allocate.
+ *
+ * [4] Keep the {@link StateSnapshot}s of the nested {@link Container}s by the order of their
+ * hosts, shifted on the Adapter changes like the hot cache, and by the keys of the
+ * {@link CacheManager} if any. At most {@link #MAX_NESTED_STATES} of each are kept.
  */
 @SuppressWarnings({ "unused" })
 @SuppressLint("UseSparseArrays") //
 final class PlaybackInfoCache extends RecyclerView.AdapterDataObserver {
 
-  @NonNull private final Container container;
+  static final int MAX_NESTED_STATES = 64;
+
+  // Only used for reporting, can be null when the cache is used alone (benchmarks, for example).
+  @Nullable private final Container container;
+  // Set by the Container.
+  /* pkg */ @Nullable CacheManager cacheManager = null;
+  /* pkg */ @NonNull Container.Initializer initializer = Container.Initializer.DEFAULT;
   // Cold cache represents the map between key obtained from CacheManager and PlaybackInfo. If the
   // CacheManager is null, this cache will hold nothing.
   /* pkg */ HashMap<Object, PlaybackInfo> coldCache = new HashMap<>();
@@ -63,15 +79,36 @@ final class PlaybackInfoCache extends RecyclerView.AdapterDataObserver {
   // Holds the map between Player's order and its key obtain from CacheManager.
   /* pkg */ TreeMap<Integer, Object> coldKeyToOrderMap = new TreeMap<>(ORDER_COMPARATOR_INT);
 
-  PlaybackInfoCache(@NonNull Container container) {
+  // Increased on every change of the caches, so that Container#getStateSnapshot() can tell whether
+  // its last snapshot is still valid.
+  /* pkg */ int modCount;
+
+  // Snapshots of the nested Containers by the orders of their hosts. Unlike hotCache, they survive
+  // the detach of the Container, and the ones far from the latest saved order are evicted first.
+  /* pkg */ final TreeMap<Integer, StateSnapshot> nestedStates =
+      new TreeMap<>(ORDER_COMPARATOR_INT);
+  // Same snapshots by the keys from CacheManager, which don't move on Adapter changes. Preferred
+  // over the orders if available. Least recently used ones are evicted first.
+  /* pkg */ final LinkedHashMap<Object, StateSnapshot> coldNestedStates =
+      new LinkedHashMap<Object, StateSnapshot>(16, 0.75f, true) {
+        @Override protected boolean removeEldestEntry(Map.Entry<Object, StateSnapshot> eldest) {
+          return size() > MAX_NESTED_STATES;
+        }
+      };
+  // Increased on every change of the nested snapshots.
+  /* pkg */ int nestedModCount;
+
+  PlaybackInfoCache(@Nullable Container container) {
     this.container = container;
   }
 
   final void onAttach() {
+    modCount++;
     hotCache = new TreeMap<>(ORDER_COMPARATOR_INT);
   }
 
   final void onDetach() {
+    modCount++;
     if (hotCache != null) {
       hotCache.clear();
       hotCache = null;
@@ -80,6 +117,7 @@ final class PlaybackInfoCache extends RecyclerView.AdapterDataObserver {
   }
 
   final void onPlayerAttached(ToroPlayer player) {
+    modCount++;
     int playerOrder = player.getPlayerOrder();
     // [1] Check if there is cold cache for this player
     Object key = getKey(playerOrder);
@@ -88,12 +126,14 @@ final class PlaybackInfoCache extends RecyclerView.AdapterDataObserver {
     PlaybackInfo cache = key == null ? null : coldCache.get(key);
     if (cache == null || cache == SCRAP) {
       // We init this even if there is no CacheManager available, because this is what User expects.
-      cache = container.playerInitializer.initPlaybackInfo(playerOrder);
+      // Copy it, as the Initializer may return the same instance for different orders.
+      cache = new PlaybackInfo(initializer.initPlaybackInfo(playerOrder));
       // Only save to cold cache when there is a valid CacheManager (key is not null).
       if (key != null) coldCache.put(key, cache);
     }
 
     if (hotCache != null) hotCache.put(playerOrder, cache);
+    reportCacheSize();
   }
 
   // Will be called from Container#onChildViewDetachedFromWindow(View)
@@ -104,12 +144,14 @@ final class PlaybackInfoCache extends RecyclerView.AdapterDataObserver {
   // [1] Take current hot cache entry of the player, and put back to cold cache.
   // [2] Remove the hot cache entry of the player.
   final void onPlayerDetached(ToroPlayer player) {
+    modCount++;
     int playerOrder = player.getPlayerOrder();
     if (hotCache != null && hotCache.containsKey(playerOrder)) {
       PlaybackInfo cache = hotCache.remove(playerOrder);
       Object key = getKey(playerOrder);
       if (key != null) coldCache.put(key, cache);
     }
+    reportCacheSize();
   }
 
   @SuppressWarnings("unused") final void onPlayerRecycled(ToroPlayer player) {
@@ -119,7 +161,8 @@ final class PlaybackInfoCache extends RecyclerView.AdapterDataObserver {
   /// Adapter change events handling
 
   @Override public void onChanged() {
-    if (container.getCacheManager() != null) {
+    modCount++;
+    if (cacheManager != null) {
       for (Integer key : coldKeyToOrderMap.keySet()) {
         Object cacheKey = getKey(key);
         coldCache.put(cacheKey, SCRAP);
@@ -132,11 +175,18 @@ final class PlaybackInfoCache extends RecyclerView.AdapterDataObserver {
         hotCache.put(key, SCRAP);
       }
     }
+
+    // Orders don't mean anything anymore, only the snapshots by keys are still valid.
+    if (!nestedStates.isEmpty()) {
+      nestedStates.clear();
+      nestedModCount++;
+    }
   }
 
   @Override public void onItemRangeChanged(final int positionStart, final int itemCount) {
     if (itemCount == 0) return;
-    if (container.getCacheManager() != null) {
+    modCount++;
+    if (cacheManager != null) {
       Set<Integer> changedColdKeys = new TreeSet<>(ORDER_COMPARATOR_INT);
       for (Integer key : coldKeyToOrderMap.keySet()) {
         if (key >= positionStart && key < positionStart + itemCount) {
@@ -163,13 +213,22 @@ final class PlaybackInfoCache extends RecyclerView.AdapterDataObserver {
         hotCache.put(key, SCRAP);
       }
     }
+
+    // Changed items start over, like their PlaybackInfo.
+    for (int i = 0; i < itemCount; i++) {
+      Object cacheKey = getKey(positionStart + i);
+      if (cacheKey != null) coldNestedStates.remove(cacheKey);
+      nestedStates.remove(positionStart + i);
+    }
+    nestedModCount++;
   }
 
   @Override public void onItemRangeInserted(final int positionStart, final int itemCount) {
     if (itemCount == 0) return;
+    modCount++;
     PlaybackInfo value;
     // Cold cache update
-    if (container.getCacheManager() != null) {
+    if (cacheManager != null) {
       // [1] Take keys of old one.
       // 1.1 Extract subset of keys only:
       Set<Integer> changedColdKeys = new TreeSet<>(ORDER_COMPARATOR_INT);
@@ -219,13 +278,16 @@ final class PlaybackInfoCache extends RecyclerView.AdapterDataObserver {
         hotCache.put(key + itemCount, changedHotEntriesCache.get(key));
       }
     }
+
+    shiftNestedStates(positionStart, Integer.MAX_VALUE, itemCount);
   }
 
   @Override public void onItemRangeRemoved(final int positionStart, final int itemCount) {
     if (itemCount == 0) return;
+    modCount++;
     PlaybackInfo value;
     // Cold cache update
-    if (container.getCacheManager() != null) {
+    if (cacheManager != null) {
       // [1] Take keys of old one.
       // 1.1 Extract subset of keys only:
       Set<Integer> changedColdKeys = new TreeSet<>(ORDER_COMPARATOR_INT);
@@ -274,18 +336,25 @@ final class PlaybackInfoCache extends RecyclerView.AdapterDataObserver {
         hotCache.put(key - itemCount, changedHotEntriesCache.get(key));
       }
     }
+
+    // The keys of the removed items are unknown now, their cold snapshots are left to the LRU.
+    for (int i = 0; i < itemCount; i++) {
+      nestedStates.remove(positionStart + i);
+    }
+    shiftNestedStates(positionStart + itemCount, Integer.MAX_VALUE, -itemCount);
   }
 
   // Dude I wanna test this thing >.<
   @Override public void onItemRangeMoved(final int fromPos, final int toPos, int itemCount) {
     if (fromPos == toPos) return;
+    modCount++;
 
     final int low = fromPos < toPos ? fromPos : toPos;
     final int high = fromPos + toPos - low;
     final int shift = fromPos < toPos ? -1 : 1;  // how item will be shifted due to the move
     PlaybackInfo value;
     // [1] Migrate cold cache.
-    if (container.getCacheManager() != null) {
+    if (cacheManager != null) {
       // 1.1 Extract subset of keys only:
       Set<Integer> changedColdKeys = new TreeSet<>(ORDER_COMPARATOR_INT);
       for (Integer key : coldKeyToOrderMap.keySet()) {
@@ -334,52 +403,119 @@ final class PlaybackInfoCache extends RecyclerView.AdapterDataObserver {
         }
       }
     }
+
+    // [3] Migrate nested snapshots.
+    StateSnapshot moved = nestedStates.remove(fromPos);
+    if (fromPos < toPos) {
+      shiftNestedStates(fromPos + 1, toPos, -1);
+    } else {
+      shiftNestedStates(toPos, fromPos - 1, 1);
+    }
+    if (moved != null) nestedStates.put(toPos, moved);
+  }
+
+  // Shift the nested snapshots of the orders in [from, to] by an offset.
+  private void shiftNestedStates(int from, int to, int offset) {
+    nestedModCount++;
+    Map<Integer, StateSnapshot> range = nestedStates.subMap(from, true, to, true);
+    if (range.isEmpty()) return;
+    Map<Integer, StateSnapshot> shifted = new HashMap<>(range);
+    range.clear();
+    for (Map.Entry<Integer, StateSnapshot> entry : shifted.entrySet()) {
+      nestedStates.put(entry.getKey() + offset, entry.getValue());
+    }
   }
 
-  @Nullable private Object getKey(int position) {
-    return position == RecyclerView.NO_POSITION ? null : container.getCacheManager() == null ? null
-        : container.getCacheManager().getKeyForOrder(position);
+  @Nullable Object getKey(int position) {
+    return position == RecyclerView.NO_POSITION ? null : cacheManager == null ? null
+        : cacheManager.getKeyForOrder(position);
   }
 
   //@Nullable private Integer getOrder(Object key) {
-  //  return container.getCacheManager() == null ? null
-  //      : container.getCacheManager().getOrderForKey(key);
+  //  return cacheManager == null ? null
+  //      : cacheManager.getOrderForKey(key);
   //}
 
   @NonNull final PlaybackInfo getPlaybackInfo(int position) {
     PlaybackInfo info = hotCache != null ? hotCache.get(position) : null;
     if (info == SCRAP) {  // has hot cache, but was SCRAP.
-      info = container.playerInitializer.initPlaybackInfo(position);
+      info = initializer.initPlaybackInfo(position);
     }
 
     Object key = getKey(position);
     info = info != null ? info : (key != null ? coldCache.get(key) : null);
-    if (info == null) info = container.playerInitializer.initPlaybackInfo(position);
+    if (info == null) info = initializer.initPlaybackInfo(position);
     return info;
   }
 
   // Call by Container#savePlaybackInfo and that method is called right before any pausing.
   final void savePlaybackInfo(int position, @NonNull PlaybackInfo playbackInfo) {
     ToroUtil.checkNotNull(playbackInfo);
-    if (hotCache != null) hotCache.put(position, playbackInfo);
     Object key = getKey(position);
-    if (key != null) coldCache.put(key, playbackInfo);
+    PlaybackInfo record;
+    if (playbackInfo == SCRAP) {
+      record = SCRAP;
+    } else {
+      record = obtainRecord(position, key);
+      record.setTo(playbackInfo);
+    }
+    putRecord(position, key, record);
+  }
+
+  // Same as savePlaybackInfo(int, PlaybackInfo), but let the Player write to the record directly.
+  final void savePlaybackInfoOf(int position, @NonNull ToroPlayer.PlaybackInfoReader reader) {
+    Object key = getKey(position);
+    PlaybackInfo record = obtainRecord(position, key);
+    reader.readPlaybackInfo(record);
+    putRecord(position, key, record);
+  }
+
+  // Called by PlaybackCheckpointer. Return false if the info didn't move since last save, in which
+  // case nothing is written.
+  final boolean checkpoint(int position, @NonNull PlaybackInfo playbackInfo) {
+    Object key = getKey(position);
+    PlaybackInfo record = obtainRecord(position, key);
+    if (record.equals(playbackInfo)) return false;
+    record.setTo(playbackInfo);
+    putRecord(position, key, record);
+    return true;
+  }
+
+  // Find the record of the position to write to, or create a new one if there is no such record.
+  @NonNull private PlaybackInfo obtainRecord(int position, @Nullable Object key) {
+    PlaybackInfo record = hotCache != null ? hotCache.get(position) : null;
+    if (record == null || record == SCRAP) record = key != null ? coldCache.get(key) : null;
+    if (record == null || record == SCRAP) record = new PlaybackInfo();
+    return record;
+  }
+
+  private void putRecord(int position, @Nullable Object key, @NonNull PlaybackInfo record) {
+    modCount++;
+    boolean sizeChanged = false;
+    if (hotCache != null) sizeChanged = hotCache.put(position, record) == null;
+    if (key != null) sizeChanged |= coldCache.put(key, record) == null;
+    if (sizeChanged) reportCacheSize();
   }
 
   @NonNull SparseArray<PlaybackInfo> saveStates() {
     SparseArray<PlaybackInfo> states = new SparseArray<>();
-    if (container.getCacheManager() != null) {
+    if (cacheManager != null) {
       for (Map.Entry<Integer, Object> entry : coldKeyToOrderMap.entrySet()) {
-        states.put(entry.getKey(), coldCache.get(entry.getValue()));
+        states.put(entry.getKey(), copyOf(coldCache.get(entry.getValue())));
       }
     } else if (hotCache != null) {
       for (Map.Entry<Integer, PlaybackInfo> entry : hotCache.entrySet()) {
-        states.put(entry.getKey(), entry.getValue());
+        states.put(entry.getKey(), copyOf(entry.getValue()));
       }
     }
     return states;
   }
 
+  // The records are reused, so don't let them leave this class.
+  @Nullable private static PlaybackInfo copyOf(@Nullable PlaybackInfo record) {
+    return record == null || record == SCRAP ? record : new PlaybackInfo(record);
+  }
+
   void restoreStates(@Nullable SparseArray<?> savedStates) {
     int cacheSize;
     if (savedStates != null && (cacheSize = savedStates.size()) > 0) {
@@ -393,8 +529,50 @@ final class PlaybackInfoCache extends RecyclerView.AdapterDataObserver {
     }
   }
 
+  /// Nested snapshots
+
+  @Nullable final StateSnapshot getNestedState(int order) {
+    Object key = getKey(order);
+    StateSnapshot snapshot = key != null ? coldNestedStates.get(key) : null;
+    return snapshot != null ? snapshot : nestedStates.get(order);
+  }
+
+  final void putNestedState(int order, @NonNull StateSnapshot snapshot) {
+    Object key = getKey(order);
+    boolean changed = nestedStates.put(order, snapshot) != snapshot;
+    if (key != null) changed |= coldNestedStates.put(key, snapshot) != snapshot;
+    if (!changed) return;
+    nestedModCount++;
+    // Evict the snapshots farthest from the latest one, they are the least likely to come back.
+    while (nestedStates.size() > MAX_NESTED_STATES) {
+      int first = nestedStates.firstKey();
+      int last = nestedStates.lastKey();
+      nestedStates.remove(order - first > last - order ? first : last);
+    }
+  }
+
+  @NonNull final SparseArray<StateSnapshot> saveNestedStates() {
+    SparseArray<StateSnapshot> states = new SparseArray<>(nestedStates.size());
+    for (Map.Entry<Integer, StateSnapshot> entry : nestedStates.entrySet()) {
+      states.put(entry.getKey(), entry.getValue());
+    }
+    return states;
+  }
+
   final void clearCache() {
+    modCount++;
+    nestedModCount++;
     coldCache.clear();
+    coldNestedStates.clear();  // the keys are from the old CacheManager.
     if (hotCache != null) hotCache.clear();
+    reportCacheSize();
+  }
+
+  private void reportCacheSize() {
+    ToroMetrics metrics = ToroUtil.getMetrics();
+    if (metrics != null && container != null) {
+      metrics.onCacheSizeChanged(container, hotCache != null ? hotCache.size() : 0,
+          coldCache.size());
+    }
   }
 }
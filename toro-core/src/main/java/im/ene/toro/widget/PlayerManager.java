@@ -22,10 +22,14 @@ import android.os.Message;
 import androidx.annotation.NonNull;
 import androidx.collection.ArraySet;
 import im.ene.toro.PlayerDispatcher;
+import im.ene.toro.ToroMetrics;
 import im.ene.toro.ToroPlayer;
+import im.ene.toro.ToroUtil;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.Set;
+
+import static androidx.recyclerview.widget.RecyclerView.NO_POSITION;
 
 /**
  * Manage the collection of {@link ToroPlayer}s for a specific {@link Container}.
@@ -42,15 +46,32 @@ final class PlayerManager implements Handler.Callback {
   private Handler handler;
 
   // Make sure each ToroPlayer will present only once in this Manager.
-  private final Set<ToroPlayer> players = new ArraySet<>();
+  private final ArraySet<ToroPlayer> players = new ArraySet<>();
+  // Same players, kept sorted by their orders, and the ones this Manager asked to play. Both are
+  // maintained on attach, detach, play and pause, so that ordered access needs no copy nor sort.
+  private final ArrayList<ToroPlayer> orderedPlayers = new ArrayList<>();
+  private final ArrayList<ToroPlayer> playingPlayers = new ArrayList<>();
+  private final List<ToroPlayer> orderedView = Collections.unmodifiableList(orderedPlayers);
+  private final List<ToroPlayer> playingView = Collections.unmodifiableList(playingPlayers);
+  // The queue of the StaggeredPlayerDispatcher in use, if any.
+  private StaggeredPlayerDispatcher staggeredDispatcher;
+  // Set when the orders may have changed (Adapter data changes), the lists are re-sorted lazily.
+  private boolean ordersChanged = false;
 
   boolean attachPlayer(@NonNull ToroPlayer player) {
-    return players.add(player);
+    if (!players.add(player)) return false;
+    if (player.getPlayerOrder() == NO_POSITION) ordersChanged = true;
+    insertOrdered(orderedPlayers, player);
+    return true;
   }
 
   boolean detachPlayer(@NonNull ToroPlayer player) {
     if (handler != null) handler.removeCallbacksAndMessages(player);
-    return players.remove(player);
+    if (staggeredDispatcher != null) staggeredDispatcher.cancel(player);
+    if (!players.remove(player)) return false;
+    orderedPlayers.remove(player);
+    playingPlayers.remove(player);
+    return true;
   }
 
   boolean manages(@NonNull ToroPlayer player) {
@@ -58,21 +79,148 @@ final class PlayerManager implements Handler.Callback {
   }
 
   /**
-   * Return a "Copy" of the collection of players this manager is managing.
+   * Return a "Copy" of the collection of players this manager is managing, sorted by their orders.
    *
    * @return a non null collection of Players those a managed.
    */
   @NonNull List<ToroPlayer> getPlayers() {
-    return new ArrayList<>(this.players);
+    return new ArrayList<>(getOrderedPlayers());
+  }
+
+  // Managed players sorted by their orders. Read-only view, valid until the next change.
+  @NonNull List<ToroPlayer> getOrderedPlayers() {
+    sortIfNeeded();
+    return orderedView;
+  }
+
+  // Players this Manager asked to play and which are still playing, sorted by their orders.
+  // Read-only view, valid until the next change.
+  @NonNull List<ToroPlayer> getPlayingPlayers() {
+    sortIfNeeded();
+    // A player can stop by itself (end of the media, error), drop it.
+    for (int i = playingPlayers.size() - 1; i >= 0; i--) {
+      if (!playingPlayers.get(i).isPlaying()) playingPlayers.remove(i);
+    }
+    return playingView;
+  }
+
+  // A managed player reports that it started or stopped playing, for example from its controller.
+  void onPlayingStateChanged(@NonNull ToroPlayer player, boolean playing) {
+    trackPlaying(player, playing);
+    if (staggeredDispatcher != null) {
+      if (playing) {
+        staggeredDispatcher.onStarted(player);
+      } else {
+        staggeredDispatcher.cancel(player);
+      }
+    }
+  }
+
+  private void trackPlaying(@NonNull ToroPlayer player, boolean playing) {
+    if (!playing) {
+      playingPlayers.remove(player);
+    } else if (players.contains(player) && !playingPlayers.contains(player)) {
+      sortIfNeeded();
+      insertOrdered(playingPlayers, player);
+    }
+  }
+
+  void onOrdersChanged() {
+    ordersChanged = true;
+  }
+
+  private void sortIfNeeded() {
+    if (!ordersChanged) return;
+    insertionSort(orderedPlayers);
+    insertionSort(playingPlayers);
+    // After notifyDataSetChanged(), players report NO_POSITION until the next layout. Their real
+    // orders are not known yet, so sort again on the next access. NO_POSITION sorts first.
+    ordersChanged = !orderedPlayers.isEmpty() //
+        && orderedPlayers.get(0).getPlayerOrder() == NO_POSITION;
+  }
+
+  // Binary search for the position, the list is sorted.
+  private static void insertOrdered(@NonNull ArrayList<ToroPlayer> list,
+      @NonNull ToroPlayer player) {
+    int order = player.getPlayerOrder();
+    int low = 0;
+    int high = list.size();
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (list.get(mid).getPlayerOrder() <= order) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    list.add(low, player);
+  }
+
+  // The lists are small and mostly sorted (orders shift together), no allocation.
+  private static void insertionSort(@NonNull ArrayList<ToroPlayer> list) {
+    for (int i = 1, size = list.size(); i < size; i++) {
+      ToroPlayer player = list.get(i);
+      int order = player.getPlayerOrder();
+      int j = i - 1;
+      while (j >= 0 && list.get(j).getPlayerOrder() > order) {
+        list.set(j + 1, list.get(j));
+        j--;
+      }
+      list.set(j + 1, player);
+    }
+  }
+
+  // Access the players by index, without copying. Must not be used while modifying the players.
+  int getPlayerCount() {
+    return players.size();
+  }
+
+  @NonNull ToroPlayer getPlayerAt(int index) {
+    return players.valueAt(index);
   }
 
   void initialize(@NonNull ToroPlayer player, Container container) {
-    player.initialize(container, container.getPlaybackInfo(player.getPlayerOrder()));
+    boolean section = ToroUtil.beginSection("Toro:Player#initialize");
+    try {
+      player.initialize(container, container.getPlaybackInfo(player.getPlayerOrder()));
+    } finally {
+      ToroUtil.endSection(section);
+    }
+    ToroMetrics metrics = ToroUtil.getMetrics();
+    if (metrics != null) metrics.onPlayerInitialized(player);
   }
 
   // 2018.07.02 Directly pass PlayerDispatcher so that we can easily expand the ability in the future.
   void play(@NonNull ToroPlayer player, PlayerDispatcher dispatcher) {
-    this.play(player, dispatcher.getDelayToPlay(player));
+    this.play(player, dispatcher, Integer.MAX_VALUE);
+  }
+
+  // rank: position of the player in the selection, used by the StaggeredPlayerDispatcher.
+  void play(@NonNull ToroPlayer player, PlayerDispatcher dispatcher, int rank) {
+    if (staggeredDispatcher != null && staggeredDispatcher != dispatcher) {
+      staggeredDispatcher.cancelAll(this);  // The dispatcher was changed.
+      staggeredDispatcher = null;
+    }
+    if (dispatcher instanceof StaggeredPlayerDispatcher) {
+      if (handler == null) return;  // equals to that this is not attached yet.
+      staggeredDispatcher = (StaggeredPlayerDispatcher) dispatcher;
+      staggeredDispatcher.enqueue(this, player, rank);
+    } else {
+      this.play(player, dispatcher.getDelayToPlay(player));
+    }
+  }
+
+  // Cancel the pending start of a player, if any. Called when the player is not selected anymore.
+  void cancelPlay(@NonNull ToroPlayer player) {
+    if (handler != null) handler.removeMessages(MSG_PLAY, player);
+    if (staggeredDispatcher != null) staggeredDispatcher.cancel(player);
+  }
+
+  // Called by StaggeredPlayerDispatcher. Return false if this doesn't manage the player anymore.
+  boolean playNow(@NonNull ToroPlayer player) {
+    if (handler == null || !players.contains(player)) return false;
+    dispatchPlay(player);
+    return true;
   }
 
   private void play(@NonNull ToroPlayer player, int delay) {
@@ -82,7 +230,7 @@ final class PlayerManager implements Handler.Callback {
     if (delay == PlayerDispatcher.DELAY_INFINITE) {
       // do nothing
     } else if (delay == PlayerDispatcher.DELAY_NONE) {
-      player.play();
+      dispatchPlay(player);
     } else {
       handler.sendMessageDelayed(handler.obtainMessage(MSG_PLAY, player), delay);
     }
@@ -91,7 +239,28 @@ final class PlayerManager implements Handler.Callback {
   void pause(@NonNull ToroPlayer player) {
     // remove all msg sent for the player
     if (handler != null) handler.removeCallbacksAndMessages(player);
-    player.pause();
+    if (staggeredDispatcher != null) staggeredDispatcher.cancel(player);
+    boolean section = ToroUtil.beginSection("Toro:Player#pause");
+    try {
+      player.pause();
+    } finally {
+      ToroUtil.endSection(section);
+    }
+    trackPlaying(player, false);
+    ToroMetrics metrics = ToroUtil.getMetrics();
+    if (metrics != null) metrics.onPlayerPause(player);
+  }
+
+  private void dispatchPlay(@NonNull ToroPlayer player) {
+    boolean section = ToroUtil.beginSection("Toro:Player#play");
+    try {
+      player.play();
+    } finally {
+      ToroUtil.endSection(section);
+    }
+    trackPlaying(player, true);  // Not ready yet, keep its slot in the StaggeredPlayerDispatcher.
+    ToroMetrics metrics = ToroUtil.getMetrics();
+    if (metrics != null) metrics.onPlayerPlay(player);
   }
 
   // return false if this manager could not release the player.
@@ -99,7 +268,16 @@ final class PlayerManager implements Handler.Callback {
   boolean release(@NonNull ToroPlayer player) {
     if (handler != null) handler.removeCallbacksAndMessages(null);
     if (manages(player)) {
-      player.release();
+      boolean section = ToroUtil.beginSection("Toro:Player#release");
+      try {
+        player.release();
+      } finally {
+        ToroUtil.endSection(section);
+      }
+      playingPlayers.remove(player);
+      if (staggeredDispatcher != null) staggeredDispatcher.cancel(player);
+      ToroMetrics metrics = ToroUtil.getMetrics();
+      if (metrics != null) metrics.onPlayerReleased(player);
       return true;
     } else {
       return false;
@@ -108,15 +286,20 @@ final class PlayerManager implements Handler.Callback {
 
   void recycle(ToroPlayer player) {
     if (handler != null) handler.removeCallbacksAndMessages(player);
+    if (staggeredDispatcher != null) staggeredDispatcher.cancel(player);
   }
 
   void clear() {
     if (handler != null) handler.removeCallbacksAndMessages(null);
+    if (staggeredDispatcher != null) staggeredDispatcher.cancelAll(this);
     this.players.clear();
+    this.orderedPlayers.clear();
+    this.playingPlayers.clear();
   }
 
   void deferPlaybacks() {
     if (handler != null) handler.removeMessages(MSG_PLAY);
+    if (staggeredDispatcher != null) staggeredDispatcher.cancelAll(this);
   }
 
   void onAttach() {
@@ -129,6 +312,10 @@ final class PlayerManager implements Handler.Callback {
       handler.removeCallbacksAndMessages(null);
       handler = null;
     }
+    if (staggeredDispatcher != null) {
+      staggeredDispatcher.cancelAll(this);
+      staggeredDispatcher = null;
+    }
   }
 
   @SuppressWarnings("WeakerAccess") static final int MSG_PLAY = 100;
@@ -136,7 +323,7 @@ final class PlayerManager implements Handler.Callback {
   @Override public boolean handleMessage(Message msg) {
     if (msg.what == MSG_PLAY && msg.obj instanceof ToroPlayer) {
       ToroPlayer player = (ToroPlayer) msg.obj;
-      player.play();
+      dispatchPlay(player);
     }
     return true;
   }
@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2020 Nam Nguyen, nam@ene.im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package im.ene.toro.widget;
+
+import android.graphics.Rect;
+import android.view.View;
+import androidx.annotation.NonNull;
+import im.ene.toro.ToroPlayer;
+import im.ene.toro.annotations.Sorted;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static im.ene.toro.annotations.Sorted.Order.ASCENDING;
+
+/**
+ * An immutable capture of the geometry and the state of the candidate {@link ToroPlayer}s of a
+ * {@link Container}, taken on the main thread at the beginning of a selection pass. It contains no
+ * reference to any View or {@link ToroPlayer}, so it can be safely read from any thread.
+ *
+ * Candidates are indexed from 0 to {@link #getCount()} - 1, in ascending order of
+ * {@link ToroPlayer#getPlayerOrder()}. All coordinates are in pixels, relative to the top-left of
+ * the {@link Container}.
+ *
+ * @see BackgroundPlayerSelector
+ * @since 3.7.0
+ */
+@SuppressWarnings("WeakerAccess") //
+public final class SelectionSnapshot {
+
+  private static final Rect tempRect = new Rect();  // main thread only.
+
+  private final int generation;
+  private final int scrollState;
+  private final int viewportWidth;
+  private final int viewportHeight;
+  private final int count;
+  private final int[] orders;
+  private final int[] bounds; // left, top, right, bottom of each candidate.
+  private final float[] visibleFractions;
+  private final boolean[] playing;
+
+  private SelectionSnapshot(int generation, int scrollState, int viewportWidth, int viewportHeight,
+      int count) {
+    this.generation = generation;
+    this.scrollState = scrollState;
+    this.viewportWidth = viewportWidth;
+    this.viewportHeight = viewportHeight;
+    this.count = count;
+    this.orders = new int[count];
+    this.bounds = new int[count * 4];
+    this.visibleFractions = new float[count];
+    this.playing = new boolean[count];
+  }
+
+  // Must be called on the main thread. Candidates must be sorted by order, ascending.
+  @NonNull static SelectionSnapshot capture(@NonNull Container container, int generation,
+      @Sorted(order = ASCENDING) @NonNull List<ToroPlayer> candidates) {
+    int width = container.getWidth();
+    int height = container.getHeight();
+    int count = candidates.size();
+    SelectionSnapshot snapshot =
+        new SelectionSnapshot(generation, container.getScrollState(), width, height, count);
+    for (int i = 0; i < count; i++) {
+      ToroPlayer player = candidates.get(i);
+      View playerView = player.getPlayerView();
+      playerView.getDrawingRect(tempRect);
+      int area = tempRect.width() * tempRect.height();
+      float fraction = 0.f;
+      if (playerView.getParent() != null) {
+        container.offsetDescendantRectToMyCoords(playerView, tempRect);
+        snapshot.bounds[i * 4] = tempRect.left;
+        snapshot.bounds[i * 4 + 1] = tempRect.top;
+        snapshot.bounds[i * 4 + 2] = tempRect.right;
+        snapshot.bounds[i * 4 + 3] = tempRect.bottom;
+        if (area > 0 && tempRect.intersect(0, 0, width, height)) {
+          fraction = tempRect.width() * tempRect.height() / (float) area;
+        }
+      }
+      snapshot.orders[i] = player.getPlayerOrder();
+      snapshot.visibleFractions[i] = fraction;
+      snapshot.playing[i] = player.isPlaying();
+    }
+    return snapshot;
+  }
+
+  // Map the selected orders back to the candidates. Unknown orders are ignored.
+  @NonNull static Collection<ToroPlayer> resolve(@NonNull int[] selectedOrders,
+      @NonNull List<ToroPlayer> candidates) {
+    List<ToroPlayer> result = new ArrayList<>(selectedOrders.length);
+    for (int i = 0, size = candidates.size(); i < size; i++) {
+      ToroPlayer player = candidates.get(i);
+      if (contains(selectedOrders, player.getPlayerOrder())) result.add(player);
+    }
+    return result;
+  }
+
+  static boolean contains(@NonNull int[] orders, int order) {
+    return indexOf(orders, order) >= 0;
+  }
+
+  // Rank of an order in the result of BackgroundPlayerSelector#rank, or -1.
+  static int indexOf(@NonNull int[] orders, int order) {
+    for (int i = 0; i < orders.length; i++) {
+      if (orders[i] == order) return i;
+    }
+    return -1;
+  }
+
+  /**
+   * @return the generation of the selection pass that captured this snapshot. Result of a
+   * snapshot whose generation is not the latest one is discarded by the {@link Container}.
+   */
+  public int getGeneration() {
+    return generation;
+  }
+
+  /**
+   * @return scroll state of the {@link Container} at the capture.
+   */
+  public int getScrollState() {
+    return scrollState;
+  }
+
+  public int getViewportWidth() {
+    return viewportWidth;
+  }
+
+  public int getViewportHeight() {
+    return viewportHeight;
+  }
+
+  /**
+   * @return number of candidates.
+   */
+  public int getCount() {
+    return count;
+  }
+
+  /**
+   * @return the {@link ToroPlayer#getPlayerOrder()} of the candidate at an index.
+   */
+  public int getOrder(int index) {
+    return orders[index];
+  }
+
+  public int getLeft(int index) {
+    return bounds[index * 4];
+  }
+
+  public int getTop(int index) {
+    return bounds[index * 4 + 1];
+  }
+
+  public int getRight(int index) {
+    return bounds[index * 4 + 2];
+  }
+
+  public int getBottom(int index) {
+    return bounds[index * 4 + 3];
+  }
+
+  /**
+   * @return fraction of the player View's area inside the {@link Container}, in range of 0.0 ~
+   * 1.0.
+   */
+  public float getVisibleFraction(int index) {
+    return visibleFractions[index];
+  }
+
+  /**
+   * @return distance in pixels from the center of the candidate to the center of the
+   * {@link Container}.
+   */
+  public float getDistanceToCenter(int index) {
+    float dx = (bounds[index * 4] + bounds[index * 4 + 2]) / 2.f - viewportWidth / 2.f;
+    float dy = (bounds[index * 4 + 1] + bounds[index * 4 + 3]) / 2.f - viewportHeight / 2.f;
+    return (float) Math.sqrt(dx * dx + dy * dy);
+  }
+
+  /**
+   * @return {@code true} if the candidate was playing at the capture.
+   */
+  public boolean isPlaying(int index) {
+    return playing[index];
+  }
+}
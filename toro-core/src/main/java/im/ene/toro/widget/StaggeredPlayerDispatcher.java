@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2020 Nam Nguyen, nam@ene.im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package im.ene.toro.widget;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import androidx.annotation.NonNull;
+import im.ene.toro.PlayerDispatcher;
+import im.ene.toro.ToroPlayer;
+import java.util.ArrayList;
+
+/**
+ * A {@link PlayerDispatcher} that doesn't start all the selected players in the same frame, but
+ * queues them, so that at most {@link #getMaxPreparingPlayers()} players are in preparation
+ * (creating the codec and the surface, loading the first segments) at once. The next start is
+ * released when a player in preparation reports that it is playing (its Player is ready), or after
+ * a timeout for the players those never report.
+ *
+ * Queued starts are ordered by the rank of the players in the selection, and cancelled when the
+ * players are not selected anymore, paused, released or when the {@link Container} scrolls.
+ *
+ * Players driven by a {@link im.ene.toro.helper.ToroPlayerHelper} report their state
+ * automatically, others can use {@link Container#notifyPlayingStateChanged(ToroPlayer, boolean)}.
+ *
+ * <pre><code>
+ * container.setPlayerDispatcher(new StaggeredPlayerDispatcher(1, 1500));
+ * </code></pre>
+ *
+ * One instance can be shared by many {@link Container}s, then the limit applies to all of them.
+ * Must be used on the main thread.
+ *
+ * @since 3.7.0
+ */
+@SuppressWarnings({ "unused", "WeakerAccess" }) //
+public final class StaggeredPlayerDispatcher implements PlayerDispatcher {
+
+  public static final int DEFAULT_MAX_PREPARING_PLAYERS = 1;
+  public static final long DEFAULT_TIMEOUT_MS = 2000;
+
+  static final class Entry {
+
+    final PlayerManager manager;
+    final ToroPlayer player;
+    int rank;
+    long startTime;
+
+    Entry(PlayerManager manager, ToroPlayer player, int rank) {
+      this.manager = manager;
+      this.player = player;
+      this.rank = rank;
+    }
+  }
+
+  private final int maxPreparingPlayers;
+  private final long timeoutMs;
+  private final Handler handler = new Handler(Looper.getMainLooper());
+
+  // Waiting starts, sorted by rank. And the started ones, by start time.
+  private final ArrayList<Entry> pending = new ArrayList<>();
+  private final ArrayList<Entry> preparing = new ArrayList<>();
+
+  private final Runnable timeoutCheck = new Runnable() {
+    @Override public void run() {
+      long now = SystemClock.uptimeMillis();
+      while (!preparing.isEmpty() && preparing.get(0).startTime + timeoutMs <= now) {
+        preparing.remove(0);
+      }
+      dispatchNext();
+    }
+  };
+
+  public StaggeredPlayerDispatcher() {
+    this(DEFAULT_MAX_PREPARING_PLAYERS, DEFAULT_TIMEOUT_MS);
+  }
+
+  public StaggeredPlayerDispatcher(int maxPreparingPlayers, long timeoutMs) {
+    if (maxPreparingPlayers < 1) throw new IllegalArgumentException("Need at least 1 player.");
+    if (timeoutMs <= 0) throw new IllegalArgumentException("Timeout must be positive.");
+    this.maxPreparingPlayers = maxPreparingPlayers;
+    this.timeoutMs = timeoutMs;
+  }
+
+  public int getMaxPreparingPlayers() {
+    return maxPreparingPlayers;
+  }
+
+  public long getTimeoutMs() {
+    return timeoutMs;
+  }
+
+  /**
+   * Used only outside of a {@link Container}, where the queue is not available: start immediately.
+   */
+  @Override public int getDelayToPlay(ToroPlayer player) {
+    return DELAY_NONE;
+  }
+
+  /// Called by PlayerManager
+
+  // Queue the start of a player, or update its rank if it is queued already.
+  void enqueue(@NonNull PlayerManager manager, @NonNull ToroPlayer player, int rank) {
+    if (indexOf(preparing, player) >= 0) return;  // Started already.
+    int index = indexOf(pending, player);
+    Entry entry;
+    if (index >= 0) {
+      entry = pending.remove(index);
+      entry.rank = rank;
+    } else {
+      entry = new Entry(manager, player, rank);
+    }
+    int position = pending.size();
+    while (position > 0 && pending.get(position - 1).rank > rank) position--;
+    pending.add(position, entry);
+    dispatchNext();
+  }
+
+  // The player is ready, let the next one start.
+  void onStarted(@NonNull ToroPlayer player) {
+    int index = indexOf(preparing, player);
+    if (index < 0) return;
+    preparing.remove(index);
+    dispatchNext();
+  }
+
+  // The player is deselected, paused or released: drop its queued start and free its slot.
+  void cancel(@NonNull ToroPlayer player) {
+    int index = indexOf(pending, player);
+    if (index >= 0) pending.remove(index);
+    index = indexOf(preparing, player);
+    if (index >= 0) {
+      preparing.remove(index);
+      dispatchNext();
+    }
+  }
+
+  // Cancel all the starts queued by a PlayerManager.
+  void cancelAll(@NonNull PlayerManager manager) {
+    for (int i = pending.size() - 1; i >= 0; i--) {
+      if (pending.get(i).manager == manager) pending.remove(i);
+    }
+    boolean freed = false;
+    for (int i = preparing.size() - 1; i >= 0; i--) {
+      if (preparing.get(i).manager == manager) {
+        preparing.remove(i);
+        freed = true;
+      }
+    }
+    if (freed) dispatchNext();
+  }
+
+  /// Internal
+
+  private void dispatchNext() {
+    while (preparing.size() < maxPreparingPlayers && !pending.isEmpty()) {
+      Entry entry = pending.remove(0);
+      entry.startTime = SystemClock.uptimeMillis();
+      preparing.add(entry);
+      // May call onStarted synchronously if the player is ready already.
+      if (!entry.manager.playNow(entry.player)) preparing.remove(entry);  // Not managed anymore.
+    }
+    handler.removeCallbacks(timeoutCheck);
+    if (!preparing.isEmpty()) {
+      handler.postAtTime(timeoutCheck, preparing.get(0).startTime + timeoutMs);
+    }
+  }
+
+  private static int indexOf(@NonNull ArrayList<Entry> entries, @NonNull ToroPlayer player) {
+    for (int i = 0, size = entries.size(); i < size; i++) {
+      if (entries.get(i).player == player) return i;
+    }
+    return -1;
+  }
+}
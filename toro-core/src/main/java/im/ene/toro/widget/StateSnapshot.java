@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2020 Nam Nguyen, nam@ene.im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package im.ene.toro.widget;
+
+import android.os.Parcel;
+import android.os.Parcelable;
+import android.util.SparseArray;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import im.ene.toro.media.PlaybackInfo;
+
+/**
+ * An immutable, tree-shaped snapshot of the playback state of a {@link Container} and its nested
+ * {@link Container}s. Each node holds the {@link PlaybackInfo}s of one {@link Container} by the
+ * Player orders, and the nodes of its nested {@link Container}s by the order (or the adapter
+ * position) of the ViewHolder hosting them.
+ *
+ * Snapshots are built incrementally by {@link Container#getStateSnapshot()}: a node is rebuilt only
+ * when its {@link Container} or one of its descendants changed since the last call, the unchanged
+ * nodes are shared between consecutive snapshots. This is why the nodes must never be modified.
+ *
+ * <pre><code>
+ * // Save
+ * outState.putParcelable("feed_state", container.getStateSnapshot());
+ * // Restore
+ * container.restoreStateSnapshot(savedState.getParcelable("feed_state"));
+ * </code></pre>
+ *
+ * @since 3.7.0
+ */
+@SuppressWarnings({ "unused", "WeakerAccess" }) //
+public final class StateSnapshot implements Parcelable {
+
+  static final StateSnapshot EMPTY =
+      new StateSnapshot(new SparseArray<PlaybackInfo>(), new SparseArray<StateSnapshot>());
+
+  /* pkg */ final SparseArray<PlaybackInfo> playbackInfos;
+  /* pkg */ final SparseArray<StateSnapshot> nestedSnapshots;
+
+  StateSnapshot(@NonNull SparseArray<PlaybackInfo> playbackInfos,
+      @NonNull SparseArray<StateSnapshot> nestedSnapshots) {
+    this.playbackInfos = playbackInfos;
+    this.nestedSnapshots = nestedSnapshots;
+  }
+
+  public int getPlaybackInfoCount() {
+    return playbackInfos.size();
+  }
+
+  public int getOrderAt(int index) {
+    return playbackInfos.keyAt(index);
+  }
+
+  /**
+   * @return the {@link PlaybackInfo} of the Player at an order, or {@code null} if there is none.
+   * It is shared by the snapshots, client must make a copy to modify it.
+   */
+  @Nullable public PlaybackInfo getPlaybackInfo(int order) {
+    return playbackInfos.get(order);
+  }
+
+  public int getNestedSnapshotCount() {
+    return nestedSnapshots.size();
+  }
+
+  public int getNestedKeyAt(int index) {
+    return nestedSnapshots.keyAt(index);
+  }
+
+  /**
+   * @return the snapshot of the nested {@link Container} hosted at a key, or {@code null}.
+   */
+  @Nullable public StateSnapshot getNestedSnapshot(int key) {
+    return nestedSnapshots.get(key);
+  }
+
+  @Override public int describeContents() {
+    return 0;
+  }
+
+  @Override public void writeToParcel(Parcel dest, int flags) {
+    int size = playbackInfos.size();
+    dest.writeInt(size);
+    for (int i = 0; i < size; i++) {
+      dest.writeInt(playbackInfos.keyAt(i));
+      dest.writeParcelable(playbackInfos.valueAt(i), flags);
+    }
+    size = nestedSnapshots.size();
+    dest.writeInt(size);
+    for (int i = 0; i < size; i++) {
+      dest.writeInt(nestedSnapshots.keyAt(i));
+      nestedSnapshots.valueAt(i).writeToParcel(dest, flags);
+    }
+  }
+
+  StateSnapshot(Parcel in) {
+    ClassLoader loader = PlaybackInfo.class.getClassLoader();
+    int size = in.readInt();
+    playbackInfos = new SparseArray<>(size);
+    for (int i = 0; i < size; i++) {
+      int order = in.readInt();
+      PlaybackInfo info = in.readParcelable(loader);
+      playbackInfos.put(order, info);
+    }
+    size = in.readInt();
+    nestedSnapshots = new SparseArray<>(size);
+    for (int i = 0; i < size; i++) {
+      int key = in.readInt();
+      nestedSnapshots.put(key, new StateSnapshot(in));
+    }
+  }
+
+  public static final Creator<StateSnapshot> CREATOR = new Creator<StateSnapshot>() {
+    @Override public StateSnapshot createFromParcel(Parcel source) {
+      return new StateSnapshot(source);
+    }
+
+    @Override public StateSnapshot[] newArray(int size) {
+      return new StateSnapshot[size];
+    }
+  };
+
+  @NonNull @Override public String toString() {
+    return "StateSnapshot{" + "infos=" + playbackInfos + ", nested=" + nestedSnapshots + '}';
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2020 Nam Nguyen, nam@ene.im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package im.ene.toro.widget;
+
+import android.view.View;
+import androidx.annotation.NonNull;
+import im.ene.toro.ToroPlayer;
+import im.ene.toro.media.PlaybackInfo;
+
+/**
+ * A {@link ToroPlayer} without View and without media, whose order can be changed like the one of
+ * a ViewHolder after Adapter changes. Counts the calls it receives.
+ */
+final class FakePlayer implements ToroPlayer {
+
+  int order;
+  boolean playing;
+  int playCount;
+  int pauseCount;
+  int releaseCount;
+  private final PlaybackInfo playbackInfo = new PlaybackInfo();
+
+  FakePlayer(int order) {
+    this.order = order;
+  }
+
+  @SuppressWarnings("ConstantConditions") //
+  @NonNull @Override public View getPlayerView() {
+    return null;  // Not used by the tested code.
+  }
+
+  @NonNull @Override public PlaybackInfo getCurrentPlaybackInfo() {
+    return playbackInfo;
+  }
+
+  @Override public void initialize(@NonNull Container container,
+      @NonNull PlaybackInfo playbackInfo) {
+    // no-ops
+  }
+
+  @Override public void play() {
+    playing = true;
+    playCount++;
+  }
+
+  @Override public void pause() {
+    playing = false;
+    pauseCount++;
+  }
+
+  @Override public boolean isPlaying() {
+    return playing;
+  }
+
+  @Override public void release() {
+    playing = false;
+    releaseCount++;
+  }
+
+  @Override public boolean wantsToPlay() {
+    return true;
+  }
+
+  @Override public int getPlayerOrder() {
+    return order;
+  }
+
+  @NonNull @Override public String toString() {
+    return "FakePlayer{" + order + '}';
+  }
+}
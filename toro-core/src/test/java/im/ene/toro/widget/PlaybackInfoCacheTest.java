@@ -0,0 +1,255 @@
+/*
+ * Copyright (c) 2020 Nam Nguyen, nam@ene.im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package im.ene.toro.widget;
+
+import android.util.SparseArray;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import im.ene.toro.CacheManager;
+import im.ene.toro.media.PlaybackInfo;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static im.ene.toro.widget.PlaybackInfoCache.MAX_NESTED_STATES;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The nested {@link StateSnapshot}s of {@link PlaybackInfoCache}: shifted with the Adapter changes
+ * when kept by orders, stable when kept by the keys of a {@link CacheManager}, and capped at
+ * {@link PlaybackInfoCache#MAX_NESTED_STATES}.
+ */
+@RunWith(RobolectricTestRunner.class) //
+@Config(sdk = 28) //
+public class PlaybackInfoCacheTest {
+
+  private PlaybackInfoCache cache;
+  // Keys of the items, by order. Modified by the tests like the data set of an Adapter.
+  private final List<String> keys = new ArrayList<>();
+
+  private final CacheManager keysManager = new CacheManager() {
+    @Nullable @Override public Object getKeyForOrder(int order) {
+      return order >= 0 && order < keys.size() ? keys.get(order) : null;
+    }
+
+    @Nullable @Override public Integer getOrderForKey(@NonNull Object key) {
+      int order = keys.indexOf(key);
+      return order >= 0 ? order : null;
+    }
+  };
+
+  @Before public void setUp() {
+    cache = new PlaybackInfoCache(null);
+    cache.onAttach();
+  }
+
+  /// By orders
+
+  @Test public void insert_shiftsTheFollowingStates() {
+    StateSnapshot before = snapshot();
+    StateSnapshot after = snapshot();
+    cache.putNestedState(2, before);
+    cache.putNestedState(5, after);
+
+    cache.onItemRangeInserted(3, 2);
+
+    assertSame(before, cache.getNestedState(2));
+    assertNull(cache.getNestedState(5));
+    assertSame(after, cache.getNestedState(7));
+  }
+
+  @Test public void insert_atTheStateShiftsIt() {
+    StateSnapshot state = snapshot();
+    cache.putNestedState(2, state);
+
+    cache.onItemRangeInserted(2, 1);
+
+    assertNull(cache.getNestedState(2));
+    assertSame(state, cache.getNestedState(3));
+  }
+
+  @Test public void remove_dropsTheRemovedStates() {
+    StateSnapshot removed = snapshot();
+    StateSnapshot after = snapshot();
+    cache.putNestedState(2, removed);
+    cache.putNestedState(5, after);
+
+    cache.onItemRangeRemoved(1, 2);
+
+    assertEquals(1, cache.nestedStates.size());
+    assertSame(after, cache.getNestedState(3));
+  }
+
+  @Test public void change_dropsTheChangedStates() {
+    StateSnapshot changed = snapshot();
+    StateSnapshot other = snapshot();
+    cache.putNestedState(2, changed);
+    cache.putNestedState(3, other);
+
+    cache.onItemRangeChanged(2, 1);
+
+    assertNull(cache.getNestedState(2));
+    assertSame(other, cache.getNestedState(3));
+  }
+
+  @Test public void moveDown_shiftsTheRangeUp() {
+    StateSnapshot first = snapshot();
+    StateSnapshot second = snapshot();
+    StateSnapshot third = snapshot();
+    StateSnapshot outside = snapshot();
+    cache.putNestedState(1, first);
+    cache.putNestedState(2, second);
+    cache.putNestedState(3, third);
+    cache.putNestedState(4, outside);
+
+    cache.onItemRangeMoved(1, 3, 1);
+
+    assertSame(second, cache.getNestedState(1));
+    assertSame(third, cache.getNestedState(2));
+    assertSame(first, cache.getNestedState(3));
+    assertSame(outside, cache.getNestedState(4));
+  }
+
+  @Test public void moveUp_shiftsTheRangeDown() {
+    StateSnapshot outside = snapshot();
+    StateSnapshot first = snapshot();
+    StateSnapshot second = snapshot();
+    StateSnapshot third = snapshot();
+    cache.putNestedState(0, outside);
+    cache.putNestedState(1, first);
+    cache.putNestedState(2, second);
+    cache.putNestedState(3, third);
+
+    cache.onItemRangeMoved(3, 1, 1);
+
+    assertSame(outside, cache.getNestedState(0));
+    assertSame(third, cache.getNestedState(1));
+    assertSame(first, cache.getNestedState(2));
+    assertSame(second, cache.getNestedState(3));
+  }
+
+  @Test public void dataSetChanged_dropsTheStatesByOrders() {
+    cache.putNestedState(1, snapshot());
+
+    cache.onChanged();
+
+    assertTrue(cache.nestedStates.isEmpty());
+    assertNull(cache.getNestedState(1));
+  }
+
+  @Test public void evict_theFarthestFromTheLatestOrder() {
+    for (int order = 0; order <= MAX_NESTED_STATES; order++) {
+      cache.putNestedState(order, snapshot());
+    }
+
+    assertEquals(MAX_NESTED_STATES, cache.nestedStates.size());
+    assertNull(cache.getNestedState(0));  // Farthest from MAX_NESTED_STATES.
+    assertTrue(cache.nestedStates.containsKey(1));
+    assertTrue(cache.nestedStates.containsKey(MAX_NESTED_STATES));
+  }
+
+  @Test public void evict_theFarthestWhenScrollingBack() {
+    for (int order = 1; order <= MAX_NESTED_STATES; order++) {
+      cache.putNestedState(order, snapshot());
+    }
+
+    cache.putNestedState(0, snapshot());
+
+    assertEquals(MAX_NESTED_STATES, cache.nestedStates.size());
+    assertTrue(cache.nestedStates.containsKey(0));
+    assertFalse(cache.nestedStates.containsKey(MAX_NESTED_STATES));
+  }
+
+  @Test public void putSameState_isNotAModification() {
+    StateSnapshot state = snapshot();
+    cache.putNestedState(1, state);
+    int modCount = cache.nestedModCount;
+
+    cache.putNestedState(1, state);
+    assertEquals(modCount, cache.nestedModCount);
+
+    cache.putNestedState(1, snapshot());
+    assertTrue(cache.nestedModCount > modCount);
+  }
+
+  /// By keys
+
+  @Test public void dataSetChanged_keepsTheStatesByKeys() {
+    cache.cacheManager = keysManager;
+    keys.addAll(Arrays.asList("a", "b", "c"));
+    StateSnapshot state = snapshot();
+    cache.putNestedState(1, state);
+
+    // Item "b" moves to the top, without any detailed change event.
+    keys.clear();
+    keys.addAll(Arrays.asList("b", "a", "c"));
+    cache.onChanged();
+
+    assertSame(state, cache.getNestedState(0));
+    assertNull(cache.getNestedState(1));
+  }
+
+  @Test public void change_dropsTheStatesByKeys() {
+    cache.cacheManager = keysManager;
+    keys.addAll(Arrays.asList("a", "b", "c"));
+    cache.putNestedState(1, snapshot());
+
+    cache.onItemRangeChanged(1, 1);
+
+    assertNull(cache.getNestedState(1));
+    assertFalse(cache.coldNestedStates.containsKey("b"));
+  }
+
+  @Test public void evict_theLeastRecentlyUsedKey() {
+    cache.cacheManager = keysManager;
+    for (int order = 0; order <= MAX_NESTED_STATES; order++) keys.add("item-" + order);
+    for (int order = 0; order < MAX_NESTED_STATES; order++) {
+      cache.putNestedState(order, snapshot());
+    }
+
+    cache.getNestedState(0);  // Used again, "item-1" is the least recently used now.
+    cache.putNestedState(MAX_NESTED_STATES, snapshot());
+
+    assertEquals(MAX_NESTED_STATES, cache.coldNestedStates.size());
+    assertTrue(cache.coldNestedStates.containsKey("item-0"));
+    assertFalse(cache.coldNestedStates.containsKey("item-1"));
+    assertTrue(cache.coldNestedStates.containsKey("item-" + MAX_NESTED_STATES));
+  }
+
+  @Test public void clearCache_dropsTheStatesByKeys() {
+    cache.cacheManager = keysManager;
+    keys.addAll(Arrays.asList("a", "b"));
+    cache.putNestedState(1, snapshot());
+
+    cache.clearCache();
+
+    assertTrue(cache.coldNestedStates.isEmpty());
+  }
+
+  @NonNull private static StateSnapshot snapshot() {
+    return new StateSnapshot(new SparseArray<PlaybackInfo>(), new SparseArray<StateSnapshot>());
+  }
+}
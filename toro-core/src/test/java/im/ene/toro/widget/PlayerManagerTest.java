@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) 2020 Nam Nguyen, nam@ene.im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package im.ene.toro.widget;
+
+import im.ene.toro.PlayerDispatcher;
+import im.ene.toro.ToroPlayer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static androidx.recyclerview.widget.RecyclerView.NO_POSITION;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The ordered and the playing players of {@link PlayerManager}, kept sorted across attach, detach
+ * and the order changes of the Adapter.
+ */
+@RunWith(RobolectricTestRunner.class) //
+@Config(sdk = 28) //
+public class PlayerManagerTest {
+
+  private PlayerManager manager;
+
+  @Before public void setUp() {
+    manager = new PlayerManager();
+    manager.onAttach();
+  }
+
+  @After public void tearDown() {
+    manager.onDetach();
+  }
+
+  @Test public void attach_keepsThePlayersSorted() {
+    FakePlayer five = new FakePlayer(5);
+    FakePlayer one = new FakePlayer(1);
+    FakePlayer three = new FakePlayer(3);
+    manager.attachPlayer(five);
+    manager.attachPlayer(one);
+    manager.attachPlayer(three);
+
+    assertOrders(manager.getOrderedPlayers(), 1, 3, 5);
+  }
+
+  @Test public void attach_onlyOnce() {
+    FakePlayer player = new FakePlayer(1);
+    assertTrue(manager.attachPlayer(player));
+    assertFalse(manager.attachPlayer(player));
+    assertEquals(1, manager.getOrderedPlayers().size());
+  }
+
+  @Test public void detach_removesThePlayer() {
+    FakePlayer one = new FakePlayer(1);
+    FakePlayer two = new FakePlayer(2);
+    manager.attachPlayer(one);
+    manager.attachPlayer(two);
+    manager.play(two, PlayerDispatcher.DEFAULT);
+
+    assertTrue(manager.detachPlayer(two));
+
+    assertFalse(manager.manages(two));
+    assertOrders(manager.getOrderedPlayers(), 1);
+    assertTrue(manager.getPlayingPlayers().isEmpty());
+  }
+
+  @Test public void ordersChanged_resortsThePlayers() {
+    FakePlayer first = new FakePlayer(0);
+    FakePlayer second = new FakePlayer(1);
+    FakePlayer third = new FakePlayer(2);
+    manager.attachPlayer(first);
+    manager.attachPlayer(second);
+    manager.attachPlayer(third);
+
+    // The first item is moved to the end.
+    first.order = 2;
+    second.order = 0;
+    third.order = 1;
+    manager.onOrdersChanged();
+
+    assertEquals(Arrays.<ToroPlayer>asList(second, third, first), manager.getOrderedPlayers());
+  }
+
+  @Test public void ordersChanged_resortsThePlayingPlayers() {
+    FakePlayer first = new FakePlayer(0);
+    FakePlayer second = new FakePlayer(1);
+    manager.attachPlayer(first);
+    manager.attachPlayer(second);
+    manager.play(first, PlayerDispatcher.DEFAULT);
+    manager.play(second, PlayerDispatcher.DEFAULT);
+
+    first.order = 5;
+    manager.onOrdersChanged();
+
+    assertEquals(Arrays.<ToroPlayer>asList(second, first), manager.getPlayingPlayers());
+  }
+
+  @Test public void noPosition_sortsAgainOnceKnown() {
+    FakePlayer known = new FakePlayer(3);
+    FakePlayer unknown = new FakePlayer(NO_POSITION);  // Before the layout that binds it.
+    manager.attachPlayer(known);
+    manager.attachPlayer(unknown);
+    assertEquals(Arrays.<ToroPlayer>asList(unknown, known), manager.getOrderedPlayers());
+
+    // Laid out, no other change is notified.
+    unknown.order = 7;
+
+    assertEquals(Arrays.<ToroPlayer>asList(known, unknown), manager.getOrderedPlayers());
+  }
+
+  @Test public void noPosition_afterDataSetChanged() {
+    FakePlayer first = new FakePlayer(0);
+    FakePlayer second = new FakePlayer(1);
+    manager.attachPlayer(first);
+    manager.attachPlayer(second);
+
+    // notifyDataSetChanged(): orders are unknown until the next layout.
+    first.order = NO_POSITION;
+    second.order = NO_POSITION;
+    manager.onOrdersChanged();
+    manager.getOrderedPlayers();
+
+    first.order = 1;
+    second.order = 0;
+
+    assertEquals(Arrays.<ToroPlayer>asList(second, first), manager.getOrderedPlayers());
+  }
+
+  @Test public void play_tracksThePlayingPlayers() {
+    FakePlayer one = new FakePlayer(1);
+    FakePlayer two = new FakePlayer(2);
+    manager.attachPlayer(two);
+    manager.attachPlayer(one);
+
+    manager.play(two, PlayerDispatcher.DEFAULT);
+    manager.play(one, PlayerDispatcher.DEFAULT);
+    assertEquals(Arrays.<ToroPlayer>asList(one, two), manager.getPlayingPlayers());
+
+    manager.pause(one);
+    assertEquals(Collections.<ToroPlayer>singletonList(two), manager.getPlayingPlayers());
+    assertEquals(1, one.pauseCount);
+  }
+
+  @Test public void playingPlayers_dropTheStoppedOnes() {
+    FakePlayer player = new FakePlayer(1);
+    manager.attachPlayer(player);
+    manager.play(player, PlayerDispatcher.DEFAULT);
+
+    player.playing = false;  // End of the media.
+
+    assertTrue(manager.getPlayingPlayers().isEmpty());
+  }
+
+  @Test public void play_notAttachedIsIgnored() {
+    FakePlayer player = new FakePlayer(1);
+    manager.attachPlayer(player);
+    manager.onDetach();
+
+    manager.play(player, PlayerDispatcher.DEFAULT);
+
+    assertEquals(0, player.playCount);
+  }
+
+  @Test public void release_onlyTheManagedPlayers() {
+    FakePlayer managed = new FakePlayer(1);
+    FakePlayer other = new FakePlayer(2);
+    manager.attachPlayer(managed);
+
+    assertTrue(manager.release(managed));
+    assertFalse(manager.release(other));
+    assertEquals(1, managed.releaseCount);
+    assertEquals(0, other.releaseCount);
+  }
+
+  private static void assertOrders(List<ToroPlayer> players, int... orders) {
+    assertEquals(orders.length, players.size());
+    for (int i = 0; i < orders.length; i++) {
+      assertEquals(orders[i], players.get(i).getPlayerOrder());
+    }
+  }
+}
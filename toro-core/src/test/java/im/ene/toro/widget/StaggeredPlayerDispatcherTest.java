@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) 2020 Nam Nguyen, nam@ene.im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package im.ene.toro.widget;
+
+import android.os.Looper;
+import androidx.annotation.NonNull;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.LooperMode;
+
+import static org.junit.Assert.assertEquals;
+import static org.robolectric.Shadows.shadowOf;
+import static org.robolectric.annotation.LooperMode.Mode.PAUSED;
+
+/**
+ * The queue of {@link StaggeredPlayerDispatcher}: starts by rank, at most the max preparing players
+ * at once, the next one on the start of a player or after the timeout, and cancellation.
+ */
+@RunWith(RobolectricTestRunner.class) //
+@LooperMode(PAUSED) //
+@Config(sdk = 28) //
+public class StaggeredPlayerDispatcherTest {
+
+  private static final long TIMEOUT_MS = 1000;
+
+  private StaggeredPlayerDispatcher dispatcher;
+  private PlayerManager manager;
+  private FakePlayer first;
+  private FakePlayer second;
+  private FakePlayer third;
+
+  @Before public void setUp() {
+    dispatcher = new StaggeredPlayerDispatcher(1, TIMEOUT_MS);
+    manager = attachedManager();
+    first = attached(manager, 0);
+    second = attached(manager, 1);
+    third = attached(manager, 2);
+  }
+
+  @After public void tearDown() {
+    manager.onDetach();
+  }
+
+  @Test public void startsAtMostMaxPreparingPlayers() {
+    manager.play(first, dispatcher, 0);
+    manager.play(second, dispatcher, 1);
+    manager.play(third, dispatcher, 2);
+
+    assertPlayCounts(1, 0, 0);
+  }
+
+  @Test public void startsMorePlayersIfAllowed() {
+    dispatcher = new StaggeredPlayerDispatcher(2, TIMEOUT_MS);
+    manager.play(first, dispatcher, 0);
+    manager.play(second, dispatcher, 1);
+    manager.play(third, dispatcher, 2);
+
+    assertPlayCounts(1, 1, 0);
+  }
+
+  @Test public void startedPlayer_releasesTheNextByRank() {
+    manager.play(first, dispatcher, 0);
+    manager.play(third, dispatcher, 2);
+    manager.play(second, dispatcher, 1);
+
+    manager.onPlayingStateChanged(first, true);
+    assertPlayCounts(1, 1, 0);
+
+    manager.onPlayingStateChanged(second, true);
+    assertPlayCounts(1, 1, 1);
+  }
+
+  @Test public void enqueueAgain_updatesTheRank() {
+    manager.play(first, dispatcher, 0);
+    manager.play(second, dispatcher, 2);
+    manager.play(third, dispatcher, 1);
+    manager.play(second, dispatcher, 0);  // Now ranked before the third one.
+
+    manager.onPlayingStateChanged(first, true);
+
+    assertPlayCounts(1, 1, 0);
+  }
+
+  @Test public void enqueueStarted_isIgnored() {
+    manager.play(first, dispatcher, 0);
+    manager.play(first, dispatcher, 0);
+
+    assertPlayCounts(1, 0, 0);
+  }
+
+  @Test public void timeout_releasesTheNext() {
+    manager.play(first, dispatcher, 0);
+    manager.play(second, dispatcher, 1);
+
+    shadowOf(Looper.getMainLooper()).idleFor(TIMEOUT_MS - 1, TimeUnit.MILLISECONDS);
+    assertPlayCounts(1, 0, 0);
+
+    shadowOf(Looper.getMainLooper()).idleFor(1, TimeUnit.MILLISECONDS);
+    assertPlayCounts(1, 1, 0);
+  }
+
+  @Test public void cancelQueued_neverStarts() {
+    manager.play(first, dispatcher, 0);
+    manager.play(second, dispatcher, 1);
+    manager.play(third, dispatcher, 2);
+
+    manager.cancelPlay(second);
+    manager.onPlayingStateChanged(first, true);
+
+    assertPlayCounts(1, 0, 1);
+  }
+
+  @Test public void pausePreparing_freesItsSlot() {
+    manager.play(first, dispatcher, 0);
+    manager.play(second, dispatcher, 1);
+
+    manager.pause(first);
+
+    assertPlayCounts(1, 1, 0);
+  }
+
+  @Test public void detachQueued_neverStarts() {
+    manager.play(first, dispatcher, 0);
+    manager.play(second, dispatcher, 1);
+
+    manager.detachPlayer(second);
+    manager.onPlayingStateChanged(first, true);
+
+    assertPlayCounts(1, 0, 0);
+  }
+
+  @Test public void detachManager_cancelsItsPlayers() {
+    PlayerManager other = attachedManager();
+    FakePlayer otherPlayer = attached(other, 0);
+    manager.play(first, dispatcher, 0);
+    manager.play(second, dispatcher, 1);
+    other.play(otherPlayer, dispatcher, 0);
+    assertEquals(0, otherPlayer.playCount);
+
+    manager.onDetach();
+
+    assertPlayCounts(1, 0, 0);
+    assertEquals(1, otherPlayer.playCount);
+    other.onDetach();
+  }
+
+  @Test public void sharedDispatcher_limitsAllManagers() {
+    PlayerManager other = attachedManager();
+    FakePlayer otherPlayer = attached(other, 0);
+    manager.play(first, dispatcher, 0);
+    other.play(otherPlayer, dispatcher, 0);
+    assertEquals(0, otherPlayer.playCount);
+
+    manager.onPlayingStateChanged(first, true);
+
+    assertEquals(1, otherPlayer.playCount);
+    other.onDetach();
+  }
+
+  @Test(expected = IllegalArgumentException.class) //
+  public void noPreparingPlayer_isRejected() {
+    new StaggeredPlayerDispatcher(0, TIMEOUT_MS);
+  }
+
+  @Test(expected = IllegalArgumentException.class) //
+  public void noTimeout_isRejected() {
+    new StaggeredPlayerDispatcher(1, 0);
+  }
+
+  private void assertPlayCounts(int first, int second, int third) {
+    assertEquals(first, this.first.playCount);
+    assertEquals(second, this.second.playCount);
+    assertEquals(third, this.third.playCount);
+  }
+
+  @NonNull private static PlayerManager attachedManager() {
+    PlayerManager manager = new PlayerManager();
+    manager.onAttach();
+    return manager;
+  }
+
+  @NonNull private static FakePlayer attached(@NonNull PlayerManager manager, int order) {
+    FakePlayer player = new FakePlayer(order);
+    manager.attachPlayer(player);
+    return player;
+  }
+}
@@ -0,0 +1,289 @@
+/*
+ * Copyright (c) 2020 Nam Nguyen, nam@ene.im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package im.ene.toro.exoplayer;
+
+import android.content.Context;
+import android.net.Uri;
+import android.widget.FrameLayout;
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import com.google.android.exoplayer2.ext.ima.ImaAdsLoader;
+import com.google.android.exoplayer2.source.ads.AdsLoader;
+import im.ene.toro.CacheManager;
+import im.ene.toro.annotations.Beta;
+import im.ene.toro.widget.Container;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static im.ene.toro.ToroUtil.checkNotNull;
+
+/**
+ * Pool the {@link ImaAdsLoader}s of the items of a {@link Container}, and request their ads ahead
+ * of the selection.
+ *
+ * - An {@link ImaAdsLoader} is kept per item, by the key of the {@link CacheManager} of the
+ * {@link Container}, and reused when the item is bound again, together with its ad response and
+ * its ad playback state. Adapter positions are not stable keys, so without a {@link CacheManager}
+ * the loaders are neither pooled nor requested ahead.
+ * - Once the {@link Container} is idle, the ads of the next {@link #setLookAhead(int)} items after
+ * the last visible one are requested and parsed, so they are ready when the items are selected.
+ * - At most {@link #setMaxPoolSize(int)} loaders are kept, the least recently used ones are
+ * released. A loader obtained by {@link #obtain(int)} is in use until it is given back by
+ * {@link #recycle(AdsLoader)}, and is never released from the pool before that.
+ *
+ * {@link AdSource#forAdsResponse(String)} allows to use a VAST/VMAP document instead of an ad tag,
+ * for example a local file read by {@link AdSource#fromAsset(Context, String)}.
+ *
+ * <pre><code>
+ * // The Adapter implements AdsCoordinator.AdProvider.
+ * AdsCoordinator coordinator = new AdsCoordinator(context, adapter);
+ * coordinator.attach(container);
+ *
+ * // In the ViewHolder (ToroPlayer).
+ * adsLoader = coordinator.obtain(getAdapterPosition());
+ * helper = new AdsExoPlayerViewHelper(this, mediaUri, null, adsLoader, null, adViewProvider);
+ *
+ * // In ToroPlayer#release().
+ * helper.release();
+ * coordinator.recycle(adsLoader);
+ * </code></pre>
+ *
+ * All methods must be called on the main thread.
+ *
+ * @since 3.7.0
+ */
+@SuppressWarnings({ "unused", "WeakerAccess", "UnusedReturnValue" }) @Beta //
+public final class AdsCoordinator {
+
+  public static final int DEFAULT_LOOK_AHEAD = LookAhead.DEFAULT_LOOK_AHEAD;
+  public static final int DEFAULT_MAX_POOL_SIZE = 8;
+
+  /**
+   * Tell the {@link AdsCoordinator} the ads of each adapter position, usually implemented by the
+   * Adapter.
+   */
+  public interface AdProvider {
+
+    /**
+     * @return the {@link AdSource} of the item at an adapter position, or {@code null} if it has no
+     * ads.
+     */
+    @Nullable AdSource getAdSource(int position);
+  }
+
+  /**
+   * Where the ads of an item come from: an ad tag to request, or an ads response (VAST or VMAP)
+   * to parse directly.
+   */
+  public static final class AdSource {
+
+    @Nullable final Uri adTagUri;
+    @Nullable final String adsResponse;
+
+    private AdSource(@Nullable Uri adTagUri, @Nullable String adsResponse) {
+      this.adTagUri = adTagUri;
+      this.adsResponse = adsResponse;
+    }
+
+    @NonNull public static AdSource forAdTag(@NonNull Uri adTagUri) {
+      return new AdSource(checkNotNull(adTagUri), null);
+    }
+
+    @NonNull public static AdSource forAdsResponse(@NonNull String adsResponse) {
+      return new AdSource(null, checkNotNull(adsResponse));
+    }
+
+    /**
+     * Read an ads response from a file in the assets, for example a VAST file used in tests.
+     */
+    @NonNull public static AdSource fromAsset(@NonNull Context context, @NonNull String path)
+        throws IOException {
+      return fromStream(context.getAssets().open(path));
+    }
+
+    // Read and close the stream.
+    @NonNull static AdSource fromStream(@NonNull InputStream input) throws IOException {
+      try {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int read;
+        while ((read = input.read(buffer)) != -1) output.write(buffer, 0, read);
+        return forAdsResponse(output.toString("UTF-8"));
+      } finally {
+        input.close();
+      }
+    }
+  }
+
+  @NonNull private final Context context;
+  @NonNull private final AdProvider provider;
+  // Access-ordered, the eldest entry is the least recently used loader.
+  private final LinkedHashMap<Object, ImaAdsLoader> loaders = new LinkedHashMap<>(16, 0.75f, true);
+  // Loaders obtained and not yet recycled, pooled or not.
+  private final HashSet<AdsLoader> inUse = new HashSet<>();
+
+  @Nullable private FrameLayout placeholder;  // Ad container of the ads requested ahead.
+  private int maxPoolSize = DEFAULT_MAX_POOL_SIZE;
+
+  private final LookAhead lookAhead = new LookAhead() {
+    @Override void onLookAhead(int position) {
+      prefetch(position);
+    }
+
+    @Override void onLookAheadFinished() {
+      trimPool();
+    }
+
+    @Override void onContainerDetached() {
+      release();
+    }
+  };
+
+  public AdsCoordinator(@NonNull Context context, @NonNull AdProvider provider) {
+    this.context = checkNotNull(context).getApplicationContext();
+    this.provider = checkNotNull(provider);
+  }
+
+  /**
+   * Set the number of items after the last visible one whose ads are requested ahead.
+   */
+  public AdsCoordinator setLookAhead(int lookAhead) {
+    if (lookAhead < 0) throw new IllegalArgumentException("Negative look ahead");
+    this.lookAhead.lookAhead = lookAhead;
+    return this;
+  }
+
+  public AdsCoordinator setMaxPoolSize(int maxPoolSize) {
+    if (maxPoolSize < 1) throw new IllegalArgumentException("Pool size must be positive");
+    this.maxPoolSize = maxPoolSize;
+    trimPool();
+    return this;
+  }
+
+  /**
+   * Coordinate the ads of a {@link Container}. The previous one, if any, is detached and its
+   * loaders are released.
+   */
+  @MainThread public void attach(@NonNull Container container) {
+    if (lookAhead.container == container) return;
+    detach();
+    lookAhead.attach(container);
+  }
+
+  @MainThread public void detach() {
+    lookAhead.detach();
+    release();
+  }
+
+  /**
+   * Get the {@link AdsLoader} of the item at an adapter position, from the pool if it was
+   * requested ahead or used before, or a new one. The {@link AdsLoader} is in use until it is
+   * given back by {@link #recycle(AdsLoader)}.
+   *
+   * @return the {@link AdsLoader}, or {@code null} if the item has no ads.
+   */
+  @MainThread @Nullable public AdsLoader obtain(int position) {
+    Object key = lookAhead.keyOf(position);
+    ImaAdsLoader loader = key != null ? loaders.get(key) : null;
+    if (loader == null) {
+      AdSource source = provider.getAdSource(position);
+      if (source == null) return null;
+      loader = create(source);
+      if (key != null) loaders.put(key, loader);
+    }
+    inUse.add(loader);
+    trimPool();
+    return loader;
+  }
+
+  /**
+   * Give back an {@link AdsLoader} obtained by {@link #obtain(int)}, once the Playable using it is
+   * released. It stays in the pool for the next bind of the same item, or is released if it is
+   * not pooled.
+   */
+  @MainThread public void recycle(@NonNull AdsLoader loader) {
+    if (!inUse.remove(loader)) return;
+    //noinspection SuspiciousMethodCalls
+    if (loaders.containsValue(loader)) {
+      trimPool();
+    } else {
+      loader.release();
+    }
+  }
+
+  /**
+   * @return number of {@link AdsLoader}s in the pool.
+   */
+  public int getPoolSize() {
+    return loaders.size();
+  }
+
+  /**
+   * Release all the {@link AdsLoader}s in the pool.
+   */
+  @MainThread public void release() {
+    for (ImaAdsLoader loader : loaders.values()) {
+      inUse.remove(loader);
+      loader.release();
+    }
+    loaders.clear();
+    for (AdsLoader loader : inUse) {
+      loader.release();
+    }
+    inUse.clear();
+    placeholder = null;
+  }
+
+  /// Internal
+
+  // Request the ads of an item ahead of its selection.
+  void prefetch(int position) {
+    Container container = checkNotNull(lookAhead.container);
+    Object key = lookAhead.keyOf(position);
+    if (key == null || loaders.containsKey(key)) return;
+    AdSource source = provider.getAdSource(position);
+    if (source == null) return;
+    ImaAdsLoader loader = create(source);
+    if (placeholder == null) placeholder = new FrameLayout(container.getContext());
+    // The real ad container is set when the AdsMediaSource starts the loader.
+    loader.requestAds(placeholder);
+    loaders.put(key, loader);
+  }
+
+  @NonNull private ImaAdsLoader create(@NonNull AdSource source) {
+    ImaAdsLoader.Builder builder = new ImaAdsLoader.Builder(context);
+    return source.adTagUri != null ? builder.buildForAdTag(source.adTagUri)
+        : builder.buildForAdsResponse(checkNotNull(source.adsResponse));
+  }
+
+  private void trimPool() {
+    Iterator<Map.Entry<Object, ImaAdsLoader>> iterator = loaders.entrySet().iterator();
+    while (loaders.size() > maxPoolSize && iterator.hasNext()) {
+      ImaAdsLoader eldest = iterator.next().getValue();
+      if (inUse.contains(eldest)) continue;  // Released when recycled, if still over the size.
+      iterator.remove();
+      eldest.release();
+    }
+  }
+}
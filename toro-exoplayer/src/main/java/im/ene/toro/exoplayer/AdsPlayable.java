@@ -19,7 +19,6 @@ package im.ene.toro.exoplayer;
 import android.net.Uri;
 import android.view.View;
 import android.view.ViewGroup;
-import androidx.annotation.CallSuper;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import com.google.android.exoplayer2.C;
@@ -85,11 +84,11 @@ public class AdsPlayable extends ExoPlayable {
     this.factory = new FactoryImpl(this.creator, player);
   }
 
-  @CallSuper
-  @Override public void prepare(boolean prepareSource) {
-    this.mediaSource = createAdsMediaSource(creator, mediaUri, fileExt, //
+  // Only called when there is no MediaSource yet, so the AdsMediaSource and its content are not
+  // created again on every preparation.
+  @NonNull @Override protected MediaSource createMediaSource() {
+    return createAdsMediaSource(creator, mediaUri, fileExt, //
         factory.player, adsLoader, adViewProvider, factory);
-    super.prepare(prepareSource);
   }
 
   @Override protected void beforePrepareMediaSource() {
@@ -51,6 +51,7 @@ public final class Config {
 
   // primitive flags
   @ExtensionRendererMode final int extensionMode;
+  final boolean pooledHttp;
 
   // NonNull options
   @NonNull final BaseMeter meter;
@@ -65,13 +66,14 @@ public final class Config {
   @Nullable final DataSource.Factory dataSourceFactory;
 
   @SuppressWarnings("WeakerAccess") //
-  Config(@Nullable Context context, int extensionMode, @NonNull BaseMeter meter,
-      @NonNull LoadControl loadControl,
+  Config(@Nullable Context context, int extensionMode, boolean pooledHttp,
+      @NonNull BaseMeter meter, @NonNull LoadControl loadControl,
       @Nullable DataSource.Factory dataSourceFactory,
       @NonNull MediaSourceBuilder mediaSourceBuilder,
       @Nullable DrmSessionManager<FrameworkMediaCrypto> drmSessionManager, @Nullable Cache cache) {
     this.context = context != null ? context.getApplicationContext() : null;
     this.extensionMode = extensionMode;
+    this.pooledHttp = pooledHttp;
     this.meter = meter;
     this.loadControl = loadControl;
     this.dataSourceFactory = dataSourceFactory;
@@ -87,6 +89,7 @@ public final class Config {
     Config config = (Config) o;
 
     if (extensionMode != config.extensionMode) return false;
+    if (pooledHttp != config.pooledHttp) return false;
     if (!meter.equals(config.meter)) return false;
     if (!loadControl.equals(config.loadControl)) return false;
     if (!mediaSourceBuilder.equals(config.mediaSourceBuilder)) return false;
@@ -97,6 +100,7 @@ public final class Config {
 
   @Override public int hashCode() {
     int result = extensionMode;
+    result = 31 * result + (pooledHttp ? 1 : 0);
     result = 31 * result + meter.hashCode();
     result = 31 * result + loadControl.hashCode();
     result = 31 * result + mediaSourceBuilder.hashCode();
@@ -110,6 +114,7 @@ public final class Config {
     return new Builder(context).setCache(this.cache)
         .setDrmSessionManager(this.drmSessionManager)
         .setExtensionMode(this.extensionMode)
+        .setPooledHttp(this.pooledHttp)
         .setLoadControl(this.loadControl)
         .setMediaSourceBuilder(this.mediaSourceBuilder)
         .setMeter(this.meter);
@@ -138,6 +143,7 @@ public final class Config {
     }
 
     @ExtensionRendererMode private int extensionMode = EXTENSION_RENDERER_MODE_OFF;
+    private boolean pooledHttp = false;
     private BaseMeter meter;
     private LoadControl loadControl = new DefaultLoadControl();
     private DataSource.Factory dataSourceFactory = null;
@@ -150,6 +156,22 @@ public final class Config {
       return this;
     }
 
+    /**
+     * Load the manifests and the media over the {@link okhttp3.OkHttpClient} shared by the whole
+     * application (see {@link PooledHttp}), instead of a HttpURLConnection per request. Ignored if
+     * a {@link DataSource.Factory} is set.
+     *
+     * @throws IllegalStateException if OkHttp is not available, see {@link PooledHttp}.
+     * @since 3.7.0
+     */
+    public Builder setPooledHttp(boolean pooledHttp) {
+      if (pooledHttp && !PooledHttp.isAvailable()) {
+        throw new IllegalStateException("Pooled HTTP needs OkHttp and its ExoPlayer extension.");
+      }
+      this.pooledHttp = pooledHttp;
+      return this;
+    }
+
     public Builder setMeter(@NonNull BaseMeter meter) {
       this.meter = checkNotNull(meter, "Need non-null BaseMeter");
       return this;
@@ -185,7 +207,7 @@ public final class Config {
     }
 
     public Config build() {
-      return new Config(context, extensionMode, meter, loadControl, dataSourceFactory,
+      return new Config(context, extensionMode, pooledHttp, meter, loadControl, dataSourceFactory,
           mediaSourceBuilder, drmSessionManager, cache);
     }
   }
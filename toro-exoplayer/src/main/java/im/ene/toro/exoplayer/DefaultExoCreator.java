@@ -27,7 +27,6 @@ import com.google.android.exoplayer2.RenderersFactory;
 import com.google.android.exoplayer2.SimpleExoPlayer;
 import com.google.android.exoplayer2.source.MediaSource;
 import com.google.android.exoplayer2.source.MediaSourceEventListener;
-import com.google.android.exoplayer2.trackselection.DefaultTrackSelector;
 import com.google.android.exoplayer2.trackselection.TrackSelector;
 import com.google.android.exoplayer2.upstream.DataSource;
 import com.google.android.exoplayer2.upstream.DefaultBandwidthMeter;
@@ -52,7 +51,8 @@ public class DefaultExoCreator implements ExoCreator, MediaSourceEventListener {
 
   final ToroExo toro;  // per application
   final Config config;
-  private final TrackSelector trackSelector;  // 'maybe' stateless
+  // Not used by any Player, but the shared parameters of their ViewportTrackSelectors.
+  private final ViewportTrackSelector.Defaults trackSelector;
   private final LoadControl loadControl;  // stateless
   private final MediaSourceBuilder mediaSourceBuilder;  // stateless
   private final RenderersFactory renderersFactory;  // stateless
@@ -62,7 +62,7 @@ public class DefaultExoCreator implements ExoCreator, MediaSourceEventListener {
   public DefaultExoCreator(@NonNull ToroExo toro, @NonNull Config config) {
     this.toro = checkNotNull(toro);
     this.config = checkNotNull(config);
-    trackSelector = new DefaultTrackSelector();
+    trackSelector = new ViewportTrackSelector.Defaults();
     loadControl = config.loadControl;
     mediaSourceBuilder = config.mediaSourceBuilder;
 
@@ -72,13 +72,17 @@ public class DefaultExoCreator implements ExoCreator, MediaSourceEventListener {
 
     DataSource.Factory baseFactory = config.dataSourceFactory;
     if (baseFactory == null) {
-      baseFactory = new DefaultHttpDataSourceFactory(toro.appName, config.meter);
+      baseFactory = config.pooledHttp ? //
+          PooledHttp.createDataSourceFactory(toro.appName, config.meter) : //
+          new DefaultHttpDataSourceFactory(toro.appName, config.meter);
     }
     DataSource.Factory factory = new DefaultDataSourceFactory(this.toro.context,  //
         config.meter, baseFactory);
+    // Manifests go through the same HTTP stack and meter, but skip the cache: a cached manifest of
+    // a live stream would be stale.
+    manifestDataSourceFactory = factory;
     if (config.cache != null) factory = new CacheDataSourceFactory(config.cache, factory);
     mediaDataSourceFactory = factory;
-    manifestDataSourceFactory = new DefaultDataSourceFactory(this.toro.context, this.toro.appName);
   }
 
   public DefaultExoCreator(Context context, Config config) {
@@ -121,6 +125,8 @@ public class DefaultExoCreator implements ExoCreator, MediaSourceEventListener {
   }
 
   @NonNull @Override public SimpleExoPlayer createPlayer() {
+    // Each Player has its own TrackSelector, so that its renditions follow its own PlayerView.
+    TrackSelector trackSelector = new ViewportTrackSelector(this.trackSelector);
     return new ToroExoPlayer(toro.context, renderersFactory, trackSelector, loadControl,
         new DefaultBandwidthMeter.Builder(toro.context).build(), config.drmSessionManager,
         Util.getLooper());
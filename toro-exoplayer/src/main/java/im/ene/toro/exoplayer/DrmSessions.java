@@ -0,0 +1,324 @@
+/*
+ * Copyright (c) 2020 Nam Nguyen, nam@ene.im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package im.ene.toro.exoplayer;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.net.Uri;
+import android.util.Base64;
+import android.util.Log;
+import android.util.Pair;
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RequiresApi;
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.drm.DefaultDrmSessionManager;
+import com.google.android.exoplayer2.drm.DrmInitData;
+import com.google.android.exoplayer2.drm.DrmSessionManager;
+import com.google.android.exoplayer2.drm.FrameworkMediaCrypto;
+import com.google.android.exoplayer2.drm.FrameworkMediaDrm;
+import com.google.android.exoplayer2.drm.HttpMediaDrmCallback;
+import com.google.android.exoplayer2.drm.OfflineLicenseHelper;
+import com.google.android.exoplayer2.drm.UnsupportedDrmException;
+import com.google.android.exoplayer2.source.dash.DashUtil;
+import com.google.android.exoplayer2.source.dash.manifest.DashManifest;
+import com.google.android.exoplayer2.upstream.DataSource;
+import com.google.android.exoplayer2.upstream.DefaultHttpDataSourceFactory;
+import com.google.android.exoplayer2.upstream.HttpDataSource;
+import im.ene.toro.media.DrmMedia;
+import im.ene.toro.widget.Container;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static com.google.android.exoplayer2.drm.UnsupportedDrmException.REASON_UNSUPPORTED_SCHEME;
+import static com.google.android.exoplayer2.util.Util.getDrmUuid;
+import static im.ene.toro.ToroUtil.checkNotNull;
+
+/**
+ * Create the {@link DrmSessionManager}s and keep the offline licenses of protected media:
+ *
+ * - A {@link DrmSessionManager} is created per call and must be used by one {@link Config} only.
+ * A DefaultDrmSessionManager serves a single playback Looper at a time, so it cannot be shared by
+ * the Players of unrelated {@link Config}s.
+ * - Offline licenses are downloaded ahead (see {@link #prefetchLicense(DrmMedia, String, Uri)})
+ * and stored by content ID, together with their expiry. A content with a valid stored license
+ * gets a {@link DrmSessionManager} that plays with it, without any license request. A license
+ * replaced by a new download is released.
+ * - Attached to a {@link Container} using {@link #attach(Container, LicenseProvider)}, the
+ * licenses of the items after the last visible one are downloaded once the Container is idle.
+ *
+ * The license requests use {@link #setHttpDataSourceFactory(HttpDataSource.Factory)}, so tests
+ * can send them to a local stand-in of the license server. Only DASH manifests are supported for
+ * the offline licenses.
+ *
+ * <pre><code>
+ * DrmSessions sessions = ToroExo.with(context).getDrmSessions();
+ * DrmSessionManager manager = sessions.createSessionManager(drmMedia, contentId);
+ * Config config = new Config.Builder(context).setDrmSessionManager(manager).build();
+ * </code></pre>
+ *
+ * @since 3.7.0
+ */
+@SuppressWarnings({ "unused", "WeakerAccess" }) //
+@RequiresApi(18) public final class DrmSessions {
+
+  private static final String TAG = "ToroExo:DrmSessions";
+  private static final String PREFS_NAME = "toro_drm_licenses";
+  // A license that expires within this margin is considered expired, so it is renewed ahead.
+  static final long EXPIRY_MARGIN_MS = 60_000;
+
+  /**
+   * Tell the {@link DrmSessions} the protected media of each adapter position, usually implemented
+   * by the Adapter.
+   */
+  public interface LicenseProvider {
+
+    /**
+     * @return the {@link DrmMedia} of the item at an adapter position, or {@code null} if it is
+     * not protected.
+     */
+    @Nullable DrmMedia getDrmMedia(int position);
+
+    @NonNull String getContentId(int position);
+
+    /**
+     * @return the {@link Uri} of the DASH manifest of the item at an adapter position.
+     */
+    @NonNull Uri getManifestUri(int position);
+  }
+
+  @NonNull private final Context context;
+  @NonNull private final SharedPreferences licenses;
+  private final Set<String> pendingLicenses = new HashSet<>();
+  @NonNull private HttpDataSource.Factory httpDataSourceFactory;
+  @Nullable private ExecutorService executor;  // Download licenses, created on demand.
+  @Nullable private LicenseProvider licenseProvider;
+
+  private final LookAhead lookAhead = new LookAhead() {
+    @Override void onLookAhead(int position) {
+      LicenseProvider provider = licenseProvider;
+      if (provider == null) return;
+      DrmMedia drm = provider.getDrmMedia(position);
+      if (drm != null) {
+        prefetchLicense(drm, provider.getContentId(position), provider.getManifestUri(position));
+      }
+    }
+  };
+
+  DrmSessions(@NonNull Context context, @NonNull String userAgent) {
+    this.context = context;
+    this.licenses = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    this.httpDataSourceFactory = new DefaultHttpDataSourceFactory(userAgent);
+  }
+
+  /**
+   * Set the {@link HttpDataSource.Factory} used to request the licenses and the manifests. Only
+   * affects the {@link DrmSessionManager}s created afterward.
+   */
+  public void setHttpDataSourceFactory(@NonNull HttpDataSource.Factory factory) {
+    this.httpDataSourceFactory = checkNotNull(factory);
+  }
+
+  /**
+   * Create a {@link DrmSessionManager} for a {@link DrmMedia}.
+   *
+   * @throws UnsupportedDrmException if the scheme of the {@link DrmMedia} is not supported.
+   */
+  @NonNull public DrmSessionManager<FrameworkMediaCrypto> createSessionManager(
+      @NonNull DrmMedia drm) throws UnsupportedDrmException {
+    return buildSessionManager(drm);
+  }
+
+  /**
+   * Create a {@link DrmSessionManager} for a content. If a valid offline license of the content is
+   * stored, the {@link DrmSessionManager} plays with it. Otherwise, this is the same as
+   * {@link #createSessionManager(DrmMedia)}.
+   *
+   * @throws UnsupportedDrmException if the scheme of the {@link DrmMedia} is not supported.
+   */
+  @NonNull public DrmSessionManager<FrameworkMediaCrypto> createSessionManager(
+      @NonNull DrmMedia drm, @Nullable String contentId) throws UnsupportedDrmException {
+    DefaultDrmSessionManager<FrameworkMediaCrypto> manager = buildSessionManager(drm);
+    byte[] keySetId = contentId != null ? getOfflineLicense(contentId) : null;
+    if (keySetId != null) manager.setMode(DefaultDrmSessionManager.MODE_PLAYBACK, keySetId);
+    return manager;
+  }
+
+  /**
+   * Get the key set ID of the stored offline license of a content.
+   *
+   * @return the key set ID, or {@code null} if there is none or it is (about to be) expired.
+   */
+  @Nullable public byte[] getOfflineLicense(@NonNull String contentId) {
+    String value = licenses.getString(checkNotNull(contentId), null);
+    if (value == null) return null;
+    // An expired license is kept, so that it is released when a new one replaces it.
+    if (parseExpiry(value) - EXPIRY_MARGIN_MS <= System.currentTimeMillis()) return null;
+    return parseKeySetId(value);
+  }
+
+  /**
+   * @return the time the stored license of a content expires, in {@link System#currentTimeMillis()}
+   * time base, {@link Long#MAX_VALUE} if it doesn't expire, or {@code 0} if there is none.
+   */
+  public long getOfflineLicenseExpiry(@NonNull String contentId) {
+    String value = licenses.getString(checkNotNull(contentId), null);
+    return value == null ? 0 : parseExpiry(value);
+  }
+
+  /**
+   * Forget the stored license of a content. The license itself is not released.
+   */
+  public void removeOfflineLicense(@NonNull String contentId) {
+    licenses.edit().remove(checkNotNull(contentId)).apply();
+  }
+
+  /**
+   * Download the offline license of a content in the background and store it, if there is no
+   * valid one yet.
+   *
+   * @param drm the {@link DrmMedia} of the content.
+   * @param contentId the ID to store the license by.
+   * @param manifestUri the {@link Uri} of the DASH manifest of the content.
+   */
+  public void prefetchLicense(@NonNull final DrmMedia drm, @NonNull final String contentId,
+      @NonNull final Uri manifestUri) {
+    if (getOfflineLicense(contentId) != null) return;
+    synchronized (this) {
+      if (!pendingLicenses.add(contentId)) return;
+      if (executor == null) executor = Executors.newSingleThreadExecutor();
+    }
+    final HttpDataSource.Factory factory = this.httpDataSourceFactory;
+    executor.execute(new Runnable() {
+      @Override public void run() {
+        try {
+          downloadLicense(drm, contentId, manifestUri, factory);
+        } catch (Exception er) {
+          Log.w(TAG, "Failed to download license of: " + contentId, er);
+        } finally {
+          synchronized (DrmSessions.this) {
+            pendingLicenses.remove(contentId);
+          }
+        }
+      }
+    });
+  }
+
+  /**
+   * Download the licenses of the items after the last visible one of a {@link Container}, once it
+   * is idle.
+   */
+  @MainThread public void attach(@NonNull Container container, @NonNull LicenseProvider provider) {
+    this.licenseProvider = checkNotNull(provider);
+    lookAhead.attach(container);
+  }
+
+  @MainThread public void detach() {
+    lookAhead.detach();
+    this.licenseProvider = null;
+  }
+
+  /// Internal
+
+  // Called on the background thread.
+  void downloadLicense(@NonNull DrmMedia drm, @NonNull String contentId, @NonNull Uri manifestUri,
+      @NonNull HttpDataSource.Factory factory) throws Exception {
+    UUID uuid = getDrmUuid(drm.getType());
+    if (uuid == null) throw new UnsupportedDrmException(REASON_UNSUPPORTED_SCHEME);
+    DataSource dataSource = factory.createDataSource();
+    DashManifest manifest = DashUtil.loadManifest(dataSource, manifestUri);
+    DrmInitData drmInitData = DashUtil.loadDrmInitData(dataSource, manifest.getPeriod(0));
+    if (drmInitData == null) return;  // Not protected.
+
+    OfflineLicenseHelper<FrameworkMediaCrypto> helper = new OfflineLicenseHelper<>(uuid,
+        FrameworkMediaDrm.newInstance(uuid), buildDrmCallback(drm, factory), null);
+    try {
+      byte[] keySetId = helper.downloadLicense(drmInitData);
+      Pair<Long, Long> remaining = helper.getLicenseDurationRemainingSec(keySetId);
+      long expiry = expiryOf(remaining.first, remaining.second, System.currentTimeMillis());
+      byte[] replaced = putOfflineLicense(contentId, keySetId, expiry);
+      if (replaced != null) {
+        try {
+          helper.releaseLicense(replaced);
+        } catch (Exception er) {
+          Log.w(TAG, "Failed to release the replaced license of: " + contentId, er);
+        }
+      }
+    } finally {
+      helper.release();
+    }
+  }
+
+  // Store the license of a content, return the key set ID of the one it replaces if any.
+  @Nullable synchronized byte[] putOfflineLicense(@NonNull String contentId,
+      @NonNull byte[] keySetId, long expiry) {
+    String previous = licenses.getString(contentId, null);
+    licenses.edit()
+        .putString(contentId, expiry + ":" + Base64.encodeToString(keySetId, Base64.NO_WRAP))
+        .apply();
+    return previous != null ? parseKeySetId(previous) : null;
+  }
+
+  // The expiry of a license, from the remaining license and playback durations in seconds. Either
+  // can be C.TIME_UNSET (not reported), which doesn't limit the expiry. Long.MAX_VALUE if none
+  // of them is set or the license doesn't expire.
+  static long expiryOf(long licenseSec, long playbackSec, long nowMs) {
+    long remainingSec = Long.MAX_VALUE;
+    if (licenseSec != C.TIME_UNSET) remainingSec = Math.min(remainingSec, licenseSec);
+    if (playbackSec != C.TIME_UNSET) remainingSec = Math.min(remainingSec, playbackSec);
+    if (remainingSec <= 0) return nowMs;
+    if (remainingSec >= (Long.MAX_VALUE - nowMs) / 1000) return Long.MAX_VALUE;
+    return nowMs + remainingSec * 1000;
+  }
+
+  // The stored value is "expiry:base64(keySetId)".
+  static long parseExpiry(@NonNull String value) {
+    return Long.parseLong(value.substring(0, value.indexOf(':')));
+  }
+
+  @NonNull static byte[] parseKeySetId(@NonNull String value) {
+    return Base64.decode(value.substring(value.indexOf(':') + 1), Base64.NO_WRAP);
+  }
+
+  @NonNull private DefaultDrmSessionManager<FrameworkMediaCrypto> buildSessionManager(
+      @NonNull DrmMedia drm) throws UnsupportedDrmException {
+    UUID uuid = getDrmUuid(drm.getType());
+    if (uuid == null) {
+      throw new UnsupportedDrmException(REASON_UNSUPPORTED_SCHEME);
+    }
+    return new DefaultDrmSessionManager<>(uuid, FrameworkMediaDrm.newInstance(uuid),
+        buildDrmCallback(drm, httpDataSourceFactory), null, drm.multiSession());
+  }
+
+  @NonNull static HttpMediaDrmCallback buildDrmCallback(@NonNull DrmMedia drm,
+      @NonNull HttpDataSource.Factory factory) {
+    HttpMediaDrmCallback drmCallback = new HttpMediaDrmCallback(drm.getLicenseUrl(), factory);
+    String[] keyRequestPropertiesArray = drm.getKeyRequestPropertiesArray();
+    if (keyRequestPropertiesArray != null) {
+      for (int i = 0; i < keyRequestPropertiesArray.length - 1; i += 2) {
+        drmCallback.setKeyRequestProperty(keyRequestPropertiesArray[i],
+            keyRequestPropertiesArray[i + 1]);
+      }
+    }
+    return drmCallback;
+  }
+}
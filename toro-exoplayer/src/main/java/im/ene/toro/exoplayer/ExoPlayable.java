@@ -121,8 +121,8 @@ public class ExoPlayable extends PlayableImpl {
       super.onTracksChanged(trackGroups, trackSelections);
       if (trackGroups == lastSeenTrackGroupArray) return;
       lastSeenTrackGroupArray = trackGroups;
-      if (!(creator instanceof DefaultExoCreator)) return;
-      TrackSelector selector = ((DefaultExoCreator) creator).getTrackSelector();
+      if (!(player instanceof ToroExoPlayer)) return;
+      TrackSelector selector = ((ToroExoPlayer) player).getTrackSelector();
       if (selector instanceof DefaultTrackSelector) {
         MappedTrackInfo trackInfo = ((DefaultTrackSelector) selector).getCurrentMappedTrackInfo();
         if (trackInfo != null) {
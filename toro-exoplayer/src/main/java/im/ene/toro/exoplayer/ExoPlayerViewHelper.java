@@ -19,10 +19,12 @@ package im.ene.toro.exoplayer;
 import android.net.Uri;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import com.google.android.exoplayer2.C;
 import com.google.android.exoplayer2.ExoPlayer;
 import com.google.android.exoplayer2.ui.PlayerView;
 import im.ene.toro.ToroPlayer;
 import im.ene.toro.annotations.RemoveIn;
+import im.ene.toro.helper.StartupTrace;
 import im.ene.toro.helper.ToroPlayerHelper;
 import im.ene.toro.media.PlaybackInfo;
 import im.ene.toro.media.VolumeInfo;
@@ -41,9 +43,11 @@ import static im.ene.toro.exoplayer.ToroExo.with;
 
 public class ExoPlayerViewHelper extends ToroPlayerHelper {
 
-  @NonNull private final ExoPlayable playable;
+  @NonNull private ExoPlayable playable; // may be swapped by RetainedPlayers.
   @NonNull private final MyEventListeners listeners;
   private final boolean lazyPrepare;
+  private long previewDurationMs = C.TIME_UNSET;
+  private final PlaybackInfo scratchInfo = new PlaybackInfo();  // Used by needsSeek only.
 
   // Container is no longer required for constructing new instance.
   @SuppressWarnings("unused") @RemoveIn(version = "3.6.0") @Deprecated  //
@@ -85,7 +89,23 @@ public class ExoPlayerViewHelper extends ToroPlayerHelper {
   }
 
   @Override protected void initialize(@NonNull PlaybackInfo playbackInfo) {
-    playable.setPlaybackInfo(playbackInfo);
+    // Container calls this on every selection pass until the playback starts. Only look for a
+    // retained or cached Playable while the own one is not prepared yet.
+    if (playable.player == null) {
+      boolean adopted = false;
+      if (container != null && container.getPlayerRetainer() instanceof RetainedPlayers) {
+        adopted = ((RetainedPlayers) container.getPlayerRetainer()).onHelperInitialized(this);
+      }
+      if (!adopted) {
+        ExoPlayable cached = with(player.getPlayerView().getContext()).playableCache.take(playable);
+        if (cached != null) adoptPlayable(cached);
+      }
+      if (playable instanceof PlayableImpl) ((PlayableImpl) playable).startupTrace = startupTrace;
+      if (previewDurationMs != C.TIME_UNSET) playable.setPreviewDuration(previewDurationMs);
+    }
+    // A prepared Playable (adopted, or by a previous call) only seeks if asked to resume from
+    // somewhere else, as seeking may drop its buffer.
+    if (playable.player == null || needsSeek(playbackInfo)) playable.setPlaybackInfo(playbackInfo);
     playable.addEventListener(listeners);
     playable.addErrorListener(super.getErrorListeners());
     playable.addOnVolumeChangeListener(super.getVolumeChangeListeners());
@@ -94,15 +114,25 @@ public class ExoPlayerViewHelper extends ToroPlayerHelper {
   }
 
   @Override public void release() {
+    if (container != null && container.getPlayerRetainer() instanceof RetainedPlayers) {
+      ((RetainedPlayers) container.getPlayerRetainer()).onHelperReleased(this);
+    }
     super.release();
+    PlayableCache cache = with(player.getPlayerView().getContext()).playableCache;
+    if (cache.accepts(playable)) {
+      cache.put(detachPlayable());
+      return;
+    }
     playable.setPlayerView(null);
     playable.removeOnVolumeChangeListener(super.getVolumeChangeListeners());
     playable.removeErrorListener(super.getErrorListeners());
     playable.removeEventListener(listeners);
     playable.release();
+    if (playable instanceof PlayableImpl) ((PlayableImpl) playable).startupTrace = null;
   }
 
   @Override public void play() {
+    startupTrace.mark(StartupTrace.Milestone.SELECT);
     playable.play();
   }
 
@@ -134,10 +164,79 @@ public class ExoPlayerViewHelper extends ToroPlayerHelper {
     return playable.getPlaybackInfo();
   }
 
+  @Override public void readPlaybackInfo(@NonNull PlaybackInfo out) {
+    playable.readPlaybackInfo(out);
+  }
+
   @Override public void setPlaybackInfo(@NonNull PlaybackInfo playbackInfo) {
     this.playable.setPlaybackInfo(playbackInfo);
   }
 
+  /**
+   * Autoplay a preview of the media instead of the media itself. See
+   * {@link ExoPlayable#setPreviewDuration(long)}. Should be called before this helper is
+   * initialized.
+   *
+   * @param previewDurationMs the duration of the preview, or {@link C#TIME_UNSET} to disable it.
+   * @since 3.7.0
+   */
+  public final void setPreviewDuration(long previewDurationMs) {
+    playable.setPreviewDuration(previewDurationMs);
+    this.previewDurationMs = previewDurationMs;
+  }
+
+  /**
+   * Switch from the preview to the full media, without changing the Player. Client should call
+   * this when user engages with the playback, for example on tap. Unmuting does it automatically.
+   *
+   * @since 3.7.0
+   */
+  public final void upgradeFromPreview() {
+    playable.upgradeFromPreview();
+  }
+
+  public final boolean isPreviewing() {
+    return playable.isPreviewing();
+  }
+
+  private boolean needsSeek(@NonNull PlaybackInfo playbackInfo) {
+    if (playbackInfo.getResumeWindow() == PlaybackInfo.INDEX_UNSET) return false;
+    playable.readPlaybackInfo(scratchInfo);
+    return !playbackInfo.equals(scratchInfo);
+  }
+
+  // Used by PlayerHandoff.
+  @NonNull final ExoPlayable getPlayable() {
+    return playable;
+  }
+
+  @NonNull final ToroPlayer getPlayer() {
+    return player;
+  }
+
+  @Nullable final Container getContainer() {
+    return container;
+  }
+
+  // Used by RetainedPlayers. Take the Playable away from this helper without releasing it, and
+  // leave a new, unprepared one in place so that this helper can still be released normally.
+  @NonNull final ExoPlayable detachPlayable() {
+    ExoPlayable retained = this.playable;
+    retained.setPlayerView(null);
+    retained.removeOnVolumeChangeListener(super.getVolumeChangeListeners());
+    retained.removeErrorListener(super.getErrorListeners());
+    retained.removeEventListener(listeners);
+    retained.startupTrace = null;
+    this.playable = new ExoPlayable(retained.creator, retained.mediaUri, retained.fileExt);
+    this.playable.setPreviewDuration(retained.getPreviewDuration());
+    return retained;
+  }
+
+  final void adoptPlayable(@NonNull ExoPlayable retained) {
+    this.playable.release();
+    this.playable = retained;
+  }
+
   public void addEventListener(@NonNull Playable.EventListener listener) {
     //noinspection ConstantConditions
     if (listener != null) this.listeners.add(listener);
@@ -161,9 +260,7 @@ public class ExoPlayerViewHelper extends ToroPlayerHelper {
     @Override public void onRenderedFirstFrame() {
       super.onRenderedFirstFrame();
       internalListener.onFirstFrameRendered();
-      for (ToroPlayer.EventListener listener : ExoPlayerViewHelper.super.getEventListeners()) {
-        listener.onFirstFrameRendered();
-      }
+      ExoPlayerViewHelper.super.getEventListeners().onFirstFrameRendered();
     }
   }
 }
\ No newline at end of file
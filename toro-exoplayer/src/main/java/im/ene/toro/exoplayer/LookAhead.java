@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2020 Nam Nguyen, nam@ene.im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package im.ene.toro.exoplayer;
+
+import android.view.View;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.view.ViewCompat;
+import androidx.recyclerview.widget.RecyclerView;
+import im.ene.toro.CacheManager;
+import im.ene.toro.widget.Container;
+
+/**
+ * Run a task for the items after the last visible one of a {@link Container}, each time the
+ * {@link Container} becomes idle or is attached to the Window. Used to prepare things ahead of the
+ * selection, like the ads of {@link AdsCoordinator} or the licenses of {@link DrmSessions}.
+ *
+ * @since 3.7.0
+ */
+abstract class LookAhead {
+
+  static final int DEFAULT_LOOK_AHEAD = 2;
+
+  @Nullable Container container;
+  int lookAhead = DEFAULT_LOOK_AHEAD;
+
+  private final RecyclerView.OnScrollListener scrollListener = new RecyclerView.OnScrollListener() {
+    @Override public void onScrollStateChanged(@NonNull RecyclerView view, int newState) {
+      if (newState == RecyclerView.SCROLL_STATE_IDLE) run();
+    }
+  };
+
+  private final View.OnAttachStateChangeListener attachListener =
+      new View.OnAttachStateChangeListener() {
+        @Override public void onViewAttachedToWindow(View v) {
+          run();
+        }
+
+        @Override public void onViewDetachedFromWindow(View v) {
+          onContainerDetached();
+        }
+      };
+
+  void attach(@NonNull Container container) {
+    if (this.container == container) return;
+    detach();
+    this.container = container;
+    container.addOnScrollListener(scrollListener);
+    container.addOnAttachStateChangeListener(attachListener);
+    if (ViewCompat.isAttachedToWindow(container)) run();
+  }
+
+  void detach() {
+    if (container == null) return;
+    container.removeOnScrollListener(scrollListener);
+    container.removeOnAttachStateChangeListener(attachListener);
+    container = null;
+  }
+
+  // Look at the items after the last visible one.
+  void run() {
+    if (container == null || lookAhead == 0) return;
+    RecyclerView.Adapter adapter = container.getAdapter();
+    int childCount = container.getChildCount();
+    if (adapter == null || childCount == 0) return;
+    int last = RecyclerView.NO_POSITION;
+    for (int i = childCount - 1; i >= 0 && last == RecyclerView.NO_POSITION; i--) {
+      last = container.getChildAdapterPosition(container.getChildAt(i));
+    }
+    if (last == RecyclerView.NO_POSITION) return;
+    int end = Math.min(adapter.getItemCount() - 1, last + lookAhead);
+    for (int position = last + 1; position <= end; position++) {
+      onLookAhead(position);
+    }
+    onLookAheadFinished();
+  }
+
+  // The CacheManager key of the item at an adapter position. Positions are not used as keys, as
+  // they shift with the Adapter changes.
+  @Nullable Object keyOf(int position) {
+    CacheManager cacheManager = container != null ? container.getCacheManager() : null;
+    return cacheManager != null ? cacheManager.getKeyForOrder(position) : null;
+  }
+
+  abstract void onLookAhead(int position);
+
+  void onLookAheadFinished() {
+  }
+
+  void onContainerDetached() {
+  }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2020 Nam Nguyen, nam@ene.im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package im.ene.toro.exoplayer;
+
+import android.content.Context;
+import android.graphics.Rect;
+import android.net.ConnectivityManager;
+import android.net.NetworkInfo;
+import android.view.View;
+import android.view.ViewParent;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import com.google.android.exoplayer2.Player;
+import com.google.android.exoplayer2.trackselection.TrackSelector;
+import com.google.android.exoplayer2.ui.PlayerView;
+import im.ene.toro.PlayerDispatcher;
+import im.ene.toro.ToroPlayer;
+import im.ene.toro.widget.Container;
+
+import static im.ene.toro.ToroUtil.checkNotNull;
+
+/**
+ * A {@link PlayerDispatcher} that looks at the network before starting a playback:
+ *
+ * - The centred player (the one covering the centre of its {@link Container}) always starts
+ * immediately, so the main video is never held back.
+ * - On a poor connection (the bitrate estimate of the {@link BaseMeter} is below
+ * {@link #setPoorBitrate(long)}) or without connection, the other players don't start
+ * automatically.
+ * - On a metered connection, the other players start after {@link #setMeteredDelay(int)}.
+ * - While the connection is poor or metered, the other players start with a lower rendition: the
+ * video bitrate of their own track selector is capped to a fraction of the current estimate until
+ * they are ready, then it adapts as usual. The centred player is never capped, and the parameters
+ * set to the track selector of the {@link ExoCreator} are left untouched.
+ *
+ * Reading the connectivity needs the {@code ACCESS_NETWORK_STATE} permission. Without it, only the
+ * bitrate estimate is used.
+ *
+ * <pre><code>
+ * ExoCreator creator = ToroExo.with(context).getDefaultCreator();
+ * container.setPlayerDispatcher(new NetworkAwarePlayerDispatcher(context, creator));
+ * </code></pre>
+ *
+ * @since 3.7.0
+ */
+@SuppressWarnings({ "unused", "WeakerAccess", "UnusedReturnValue" }) //
+public final class NetworkAwarePlayerDispatcher implements PlayerDispatcher {
+
+  public static final long DEFAULT_POOR_BITRATE = 1_000_000;  // 1 Mbps
+  public static final int DEFAULT_METERED_DELAY_MS = 2000;
+  // Fraction of the bitrate estimate a rendition can use while the connection is constrained.
+  static final float BITRATE_CAP_FRACTION = 0.75f;
+
+  @NonNull private final BaseMeter meter;
+  @Nullable private final ConnectivityManager connectivityManager;
+
+  private long poorBitrate = DEFAULT_POOR_BITRATE;
+  private int meteredDelay = DEFAULT_METERED_DELAY_MS;
+
+  private final Rect rect = new Rect();
+
+  /**
+   * Use the {@link BaseMeter} of a {@link DefaultExoCreator}, the one its Players report to. For
+   * other {@link ExoCreator}s, use {@link #NetworkAwarePlayerDispatcher(Context, BaseMeter)} with
+   * the meter their Players report to.
+   *
+   * @throws IllegalArgumentException if the {@link ExoCreator} is not a {@link DefaultExoCreator}.
+   */
+  public NetworkAwarePlayerDispatcher(@NonNull Context context, @NonNull ExoCreator creator) {
+    this(context, meterOf(creator));
+  }
+
+  public NetworkAwarePlayerDispatcher(@NonNull Context context, @NonNull BaseMeter meter) {
+    this.meter = checkNotNull(meter);
+    this.connectivityManager = (ConnectivityManager) context.getApplicationContext()
+        .getSystemService(Context.CONNECTIVITY_SERVICE);
+  }
+
+  /**
+   * Set the bitrate estimate, in bits per second, below which the connection is considered poor.
+   */
+  public NetworkAwarePlayerDispatcher setPoorBitrate(long poorBitrate) {
+    this.poorBitrate = poorBitrate;
+    return this;
+  }
+
+  /**
+   * Set the delay to start the players other than the centred one on a metered connection, or
+   * {@link #DELAY_INFINITE} to not start them automatically.
+   */
+  public NetworkAwarePlayerDispatcher setMeteredDelay(int meteredDelay) {
+    if (meteredDelay < DELAY_INFINITE) throw new IllegalArgumentException("Too negative");
+    this.meteredDelay = meteredDelay;
+    return this;
+  }
+
+  @Override public int getDelayToPlay(ToroPlayer player) {
+    long bitrate = meter.getBitrateEstimate();
+    int network = getNetworkState();
+    boolean poor = network == NETWORK_NONE || bitrate < poorBitrate;
+    boolean metered = network == NETWORK_METERED;
+    boolean centred = isCentred(player);
+    updateStartupCap(player, !centred && (poor || metered), bitrate);
+
+    if (centred) return DELAY_NONE;
+    if (poor) return DELAY_INFINITE;
+    if (metered) return meteredDelay;
+    return DELAY_NONE;
+  }
+
+  /// Internal
+
+  @NonNull private static BaseMeter meterOf(@NonNull ExoCreator creator) {
+    if (creator instanceof DefaultExoCreator) return ((DefaultExoCreator) creator).config.meter;
+    throw new IllegalArgumentException("Unknown BaseMeter of ExoCreator: " + creator
+        + ". Use NetworkAwarePlayerDispatcher(Context, BaseMeter) instead.");
+  }
+
+  private static final int NETWORK_UNKNOWN = 0;  // Cannot read the connectivity.
+  private static final int NETWORK_NONE = 1;
+  private static final int NETWORK_METERED = 2;
+  private static final int NETWORK_UNMETERED = 3;
+
+  private int getNetworkState() {
+    if (connectivityManager == null) return NETWORK_UNKNOWN;
+    try {
+      NetworkInfo info = connectivityManager.getActiveNetworkInfo();
+      if (info == null || !info.isConnected()) return NETWORK_NONE;
+      return connectivityManager.isActiveNetworkMetered() ? NETWORK_METERED : NETWORK_UNMETERED;
+    } catch (SecurityException er) {
+      return NETWORK_UNKNOWN;  // No ACCESS_NETWORK_STATE permission.
+    }
+  }
+
+  // Cap the first rendition of a Player that is not ready yet, using the current estimate. A ready
+  // Player is left alone, its rendition already adapts to the connection.
+  private static void updateStartupCap(@NonNull ToroPlayer player, boolean constrained,
+      long bitrate) {
+    View playerView = player.getPlayerView();
+    Player exoPlayer =
+        playerView instanceof PlayerView ? ((PlayerView) playerView).getPlayer() : null;
+    if (!(exoPlayer instanceof ToroExoPlayer)) return;
+    if (exoPlayer.getPlaybackState() == Player.STATE_READY) return;
+    TrackSelector selector = ((ToroExoPlayer) exoPlayer).getTrackSelector();
+    if (!(selector instanceof ViewportTrackSelector)) return;
+    int cap = Integer.MAX_VALUE;
+    if (constrained) cap = (int) Math.max(Math.min(bitrate * BITRATE_CAP_FRACTION, cap), 1);
+    ((ViewportTrackSelector) selector).setStartupBitrateCap(cap);
+  }
+
+  // A player is centred if its View covers the centre of its Container. A player outside of any
+  // Container is always centred.
+  private boolean isCentred(@NonNull ToroPlayer player) {
+    View playerView = player.getPlayerView();
+    ViewParent parent = playerView.getParent();
+    while (parent instanceof View && !(parent instanceof Container)) parent = parent.getParent();
+    if (!(parent instanceof Container)) return true;
+    Container container = (Container) parent;
+    rect.set(0, 0, playerView.getWidth(), playerView.getHeight());
+    try {
+      container.offsetDescendantRectToMyCoords(playerView, rect);
+    } catch (IllegalArgumentException er) {
+      return false;
+    }
+    return rect.contains(container.getWidth() / 2, container.getHeight() / 2);
+  }
+}
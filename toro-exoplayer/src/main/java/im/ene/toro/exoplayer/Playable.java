@@ -33,12 +33,12 @@ import com.google.android.exoplayer2.text.TextOutput;
 import com.google.android.exoplayer2.trackselection.TrackSelectionArray;
 import com.google.android.exoplayer2.ui.PlayerView;
 import com.google.android.exoplayer2.video.VideoListener;
+import im.ene.toro.ListenerSet;
 import im.ene.toro.ToroPlayer;
 import im.ene.toro.annotations.RemoveIn;
 import im.ene.toro.media.PlaybackInfo;
 import im.ene.toro.media.VolumeInfo;
 import java.util.List;
-import java.util.concurrent.CopyOnWriteArraySet;
 
 /**
  * Define an interface to control a playback, specific for {@link SimpleExoPlayer} and {@link PlayerView}.
@@ -267,95 +267,109 @@ public interface Playable {
   }
 
   /** List of EventListener */
-  class EventListeners extends CopyOnWriteArraySet<EventListener> implements EventListener {
+  class EventListeners extends ListenerSet<EventListener> implements EventListener {
 
     EventListeners() {
     }
 
     @Override public void onVideoSizeChanged(int width, int height, int unAppliedRotationDegrees,
         float pixelWidthHeightRatio) {
-      for (EventListener eventListener : this) {
-        eventListener.onVideoSizeChanged(width, height, unAppliedRotationDegrees,
+      Object[] listeners = snapshot();
+      for (int i = 0; i < listeners.length; i++) {
+        ((EventListener) listeners[i]).onVideoSizeChanged(width, height, unAppliedRotationDegrees,
             pixelWidthHeightRatio);
       }
     }
 
     @Override public void onRenderedFirstFrame() {
-      for (EventListener eventListener : this) {
-        eventListener.onRenderedFirstFrame();
+      Object[] listeners = snapshot();
+      for (int i = 0; i < listeners.length; i++) {
+        ((EventListener) listeners[i]).onRenderedFirstFrame();
       }
     }
 
     @Override public void onTimelineChanged(Timeline timeline, Object manifest, int reason) {
-      for (EventListener eventListener : this) {
-        eventListener.onTimelineChanged(timeline, manifest, reason);
+      Object[] listeners = snapshot();
+      for (int i = 0; i < listeners.length; i++) {
+        ((EventListener) listeners[i]).onTimelineChanged(timeline, manifest, reason);
       }
     }
 
     @Override
     public void onTracksChanged(TrackGroupArray trackGroups, TrackSelectionArray trackSelections) {
-      for (EventListener eventListener : this) {
-        eventListener.onTracksChanged(trackGroups, trackSelections);
+      Object[] listeners = snapshot();
+      for (int i = 0; i < listeners.length; i++) {
+        ((EventListener) listeners[i]).onTracksChanged(trackGroups, trackSelections);
       }
     }
 
     @Override public void onLoadingChanged(boolean isLoading) {
-      for (EventListener eventListener : this) {
-        eventListener.onLoadingChanged(isLoading);
+      Object[] listeners = snapshot();
+      for (int i = 0; i < listeners.length; i++) {
+        ((EventListener) listeners[i]).onLoadingChanged(isLoading);
       }
     }
 
     @Override public void onPlayerStateChanged(boolean playWhenReady, int playbackState) {
-      for (EventListener eventListener : this) {
-        eventListener.onPlayerStateChanged(playWhenReady, playbackState);
+      Object[] listeners = snapshot();
+      for (int i = 0; i < listeners.length; i++) {
+        ((EventListener) listeners[i]).onPlayerStateChanged(playWhenReady, playbackState);
       }
     }
 
     @Override public void onRepeatModeChanged(int repeatMode) {
-      for (EventListener eventListener : this) {
-        eventListener.onRepeatModeChanged(repeatMode);
+      Object[] listeners = snapshot();
+      for (int i = 0; i < listeners.length; i++) {
+        ((EventListener) listeners[i]).onRepeatModeChanged(repeatMode);
       }
     }
 
     @Override public void onShuffleModeEnabledChanged(boolean shuffleModeEnabled) {
-      for (EventListener eventListener : this) {
-        eventListener.onShuffleModeEnabledChanged(shuffleModeEnabled);
+      Object[] listeners = snapshot();
+      for (int i = 0; i < listeners.length; i++) {
+        ((EventListener) listeners[i]).onShuffleModeEnabledChanged(shuffleModeEnabled);
       }
     }
 
     @Override public void onPlayerError(ExoPlaybackException error) {
-      for (EventListener eventListener : this) {
-        eventListener.onPlayerError(error);
+      Object[] listeners = snapshot();
+      for (int i = 0; i < listeners.length; i++) {
+        ((EventListener) listeners[i]).onPlayerError(error);
       }
     }
 
     @Override public void onPositionDiscontinuity(int reason) {
-      for (EventListener eventListener : this) {
-        eventListener.onPositionDiscontinuity(reason);
+      Object[] listeners = snapshot();
+      for (int i = 0; i < listeners.length; i++) {
+        ((EventListener) listeners[i]).onPositionDiscontinuity(reason);
       }
     }
 
     @Override public void onPlaybackParametersChanged(PlaybackParameters playbackParameters) {
-      for (EventListener eventListener : this) {
-        eventListener.onPlaybackParametersChanged(playbackParameters);
+      Object[] listeners = snapshot();
+      for (int i = 0; i < listeners.length; i++) {
+        ((EventListener) listeners[i]).onPlaybackParametersChanged(playbackParameters);
       }
     }
 
     @Override public void onSeekProcessed() {
-      for (EventListener eventListener : this) {
-        eventListener.onSeekProcessed();
+      Object[] listeners = snapshot();
+      for (int i = 0; i < listeners.length; i++) {
+        ((EventListener) listeners[i]).onSeekProcessed();
       }
     }
 
     @Override public void onCues(List<Cue> cues) {
-      for (EventListener eventListener : this) {
-        eventListener.onCues(cues);
+      Object[] listeners = snapshot();
+      for (int i = 0; i < listeners.length; i++) {
+        ((EventListener) listeners[i]).onCues(cues);
       }
     }
 
     @Override public void onMetadata(Metadata metadata) {
-      for (EventListener eventListener : this) {
-        eventListener.onMetadata(metadata);
+      Object[] listeners = snapshot();
+      for (int i = 0; i < listeners.length; i++) {
+        ((EventListener) listeners[i]).onMetadata(metadata);
       }
     }
   }
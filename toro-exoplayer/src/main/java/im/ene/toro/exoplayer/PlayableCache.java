@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2020 Nam Nguyen, nam@ene.im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package im.ene.toro.exoplayer;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.os.SystemClock;
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.util.ObjectsCompat;
+import java.util.ArrayList;
+
+/**
+ * A small cache of the {@link ExoPlayable}s released by {@link ExoPlayerViewHelper}s, keyed by
+ * their media Uri and {@link ExoCreator}. A cached {@link ExoPlayable} keeps its Player instance,
+ * its MediaSource and its buffer for a grace period. If a new {@link ExoPlayerViewHelper} for the
+ * same media is initialized within that period (for example, a cell is scrolled out and back in),
+ * it continues with the cached one instead of preparing the media again.
+ *
+ * Expired entries are not released immediately, but when the main thread becomes idle, so that
+ * tearing down the Players doesn't happen in the middle of a scroll.
+ *
+ * The cache is disabled by default. Enable it by setting a positive grace period:
+ *
+ * <pre><code>
+ * ToroExo.with(context).getPlayableCache().setGracePeriod(3000);
+ * </code></pre>
+ *
+ * All methods must be called on the main thread.
+ *
+ * @since 3.7.0
+ */
+@SuppressWarnings({ "unused", "WeakerAccess" }) //
+public final class PlayableCache {
+
+  public static final int DEFAULT_MAX_SIZE = 2;
+
+  private final Handler handler = new Handler(Looper.getMainLooper());
+  private final ArrayList<Entry> entries = new ArrayList<>();  // Oldest first.
+  private final ArrayList<ExoPlayable> expired = new ArrayList<>();
+
+  private long gracePeriodMs = 0; // Disabled.
+  private int maxSize = DEFAULT_MAX_SIZE;
+  private boolean idleScheduled = false;
+
+  private final Runnable expireRunnable = new Runnable() {
+    @Override public void run() {
+      expireEntries(SystemClock.uptimeMillis());
+    }
+  };
+
+  private final MessageQueue.IdleHandler releaseOnIdle = new MessageQueue.IdleHandler() {
+    @Override public boolean queueIdle() {
+      idleScheduled = false;
+      releaseExpired();
+      return false;
+    }
+  };
+
+  PlayableCache() {
+  }
+
+  /**
+   * Set the time a released {@link ExoPlayable} is kept before being released for real. A value of
+   * 0 disables the cache and releases all cached entries.
+   *
+   * @param gracePeriodMs grace period in milliseconds.
+   */
+  @MainThread public void setGracePeriod(long gracePeriodMs) {
+    if (gracePeriodMs < 0) throw new IllegalArgumentException("Negative grace period.");
+    this.gracePeriodMs = gracePeriodMs;
+    if (gracePeriodMs == 0) clear();
+  }
+
+  public long getGracePeriod() {
+    return gracePeriodMs;
+  }
+
+  /**
+   * Set the maximum number of cached {@link ExoPlayable}s. Oldest entries are released first.
+   */
+  @MainThread public void setMaxSize(int maxSize) {
+    if (maxSize < 1) throw new IllegalArgumentException("Max size must be positive.");
+    this.maxSize = maxSize;
+    trimToSize(maxSize);
+  }
+
+  public int getMaxSize() {
+    return maxSize;
+  }
+
+  public int size() {
+    return entries.size();
+  }
+
+  /**
+   * Release all cached {@link ExoPlayable}s immediately.
+   */
+  @MainThread public void clear() {
+    handler.removeCallbacks(expireRunnable);
+    trimToSize(0);
+    releaseExpired();
+  }
+
+  // Return true if the playable should be put into this cache instead of being released.
+  boolean accepts(@NonNull ExoPlayable playable) {
+    // Only plain ExoPlayable, as subclasses may hold resources of their own (ads, etc).
+    return gracePeriodMs > 0 && playable.getClass() == ExoPlayable.class && playable.player != null;
+  }
+
+  void put(@NonNull ExoPlayable playable) {
+    // The Helper may be released while playing, a parked Playable must not keep playing (audio)
+    // without View. It is resumed by the Container of the Helper that adopts it.
+    playable.pause();
+    for (int i = entries.size() - 1; i >= 0; i--) {
+      if (entries.get(i).matches(playable)) expire(entries.remove(i).playable);
+    }
+    entries.add(new Entry(playable, SystemClock.uptimeMillis() + gracePeriodMs));
+    trimToSize(maxSize);
+    if (entries.size() == 1) handler.postAtTime(expireRunnable, entries.get(0).expireAt);
+  }
+
+  // Take a cached ExoPlayable for the same media and ExoCreator as the one given.
+  @Nullable ExoPlayable take(@NonNull ExoPlayable like) {
+    for (int i = entries.size() - 1; i >= 0; i--) {
+      if (entries.get(i).matches(like)) {
+        ExoPlayable playable = entries.remove(i).playable;
+        if (entries.isEmpty()) handler.removeCallbacks(expireRunnable);
+        return playable;
+      }
+    }
+    return null;
+  }
+
+  void expireEntries(long now) {
+    while (!entries.isEmpty() && entries.get(0).expireAt <= now) {
+      expire(entries.remove(0).playable);
+    }
+    if (!entries.isEmpty()) handler.postAtTime(expireRunnable, entries.get(0).expireAt);
+  }
+
+  private void trimToSize(int size) {
+    while (entries.size() > size) {
+      expire(entries.remove(0).playable);
+    }
+    if (entries.isEmpty()) handler.removeCallbacks(expireRunnable);
+  }
+
+  private void expire(@NonNull ExoPlayable playable) {
+    expired.add(playable);
+    if (!idleScheduled) {
+      idleScheduled = true;
+      Looper.myQueue().addIdleHandler(releaseOnIdle);
+    }
+  }
+
+  private void releaseExpired() {
+    for (int i = 0, size = expired.size(); i < size; i++) {
+      expired.get(i).release();
+    }
+    expired.clear();
+  }
+
+  private static final class Entry {
+
+    @NonNull final ExoPlayable playable;
+    final long expireAt;  // SystemClock#uptimeMillis
+
+    Entry(@NonNull ExoPlayable playable, long expireAt) {
+      this.playable = playable;
+      this.expireAt = expireAt;
+    }
+
+    boolean matches(@NonNull ExoPlayable other) {
+      return playable.creator == other.creator
+          && playable.getClass() == other.getClass()
+          && playable.mediaUri.equals(other.mediaUri)
+          && ObjectsCompat.equals(playable.fileExt, other.fileExt);
+    }
+  }
+}
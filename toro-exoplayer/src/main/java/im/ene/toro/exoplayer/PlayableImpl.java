@@ -17,20 +17,33 @@
 package im.ene.toro.exoplayer;
 
 import android.net.Uri;
+import android.os.Handler;
+import android.util.Log;
+import android.view.View;
 import androidx.annotation.CallSuper;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.ExoPlaybackException;
 import com.google.android.exoplayer2.PlaybackParameters;
 import com.google.android.exoplayer2.Player;
 import com.google.android.exoplayer2.SimpleExoPlayer;
+import com.google.android.exoplayer2.source.ClippingMediaSource;
+import com.google.android.exoplayer2.source.LoopingMediaSource;
 import com.google.android.exoplayer2.source.MediaSource;
+import com.google.android.exoplayer2.source.MediaSourceEventListener;
+import com.google.android.exoplayer2.trackselection.TrackSelector;
 import com.google.android.exoplayer2.ui.PlayerView;
+import com.google.android.exoplayer2.upstream.DataSpec;
+import com.google.android.exoplayer2.upstream.cache.Cache;
+import com.google.android.exoplayer2.upstream.cache.CacheUtil;
 import im.ene.toro.ToroPlayer;
 import im.ene.toro.ToroPlayer.VolumeChangeListeners;
 import im.ene.toro.ToroUtil;
+import im.ene.toro.helper.StartupTrace;
 import im.ene.toro.media.PlaybackInfo;
 import im.ene.toro.media.VolumeInfo;
+import java.io.IOException;
 
 import static im.ene.toro.ToroUtil.checkNotNull;
 import static im.ene.toro.exoplayer.ToroExo.with;
@@ -50,9 +63,21 @@ import static im.ene.toro.media.PlaybackInfo.TIME_UNSET;
 @SuppressWarnings("WeakerAccess") //
 class PlayableImpl implements Playable {
 
+  private static final String TAG = "ToroExo:Playable";
+
   private final PlaybackInfo playbackInfo = new PlaybackInfo(); // never expose to outside.
 
-  protected final EventListeners listeners = new EventListeners();  // original listener.
+  protected final EventListeners listeners = new EventListeners() {  // original listener.
+    @Override public void onPlayerError(ExoPlaybackException error) {
+      // A live or multi-period media cannot be clipped, play it in full instead of failing.
+      if (isPreviewing() && isIllegalClipping(error)) {
+        upgradeFromPreview();  // Prepare the full media on the same Player.
+        clippingUnsupported = true;
+        return;
+      }
+      super.onPlayerError(error);
+    }
+  };
   protected final VolumeChangeListeners volumeChangeListeners = new VolumeChangeListeners();
   protected final ToroPlayer.ErrorListeners errorListeners = new ToroPlayer.ErrorListeners();
 
@@ -67,6 +92,25 @@ class PlayableImpl implements Playable {
   private boolean sourcePrepared = false;
   private boolean listenerApplied = false;
 
+  private long previewDurationMs = C.TIME_UNSET;  // C.TIME_UNSET: no preview.
+  private boolean previewUpgraded = false;  // Reset with the MediaSource.
+  private boolean clippingUnsupported = false;  // The media failed to be clipped once.
+  private static boolean cacheWarned = false;  // Warn about the missing Cache only once.
+
+  // Set by ExoPlayerViewHelper to collect the start-up info of the playback.
+  @Nullable StartupTrace startupTrace;
+  @Nullable private StartupTagger startupTagger;
+
+  // Keep the renditions of the Player in line with the size of the PlayerView.
+  private final View.OnLayoutChangeListener viewportListener = new View.OnLayoutChangeListener() {
+    @Override public void onLayoutChange(View v, int left, int top, int right, int bottom,
+        int oldLeft, int oldTop, int oldRight, int oldBottom) {
+      if (right - left != oldRight - oldLeft || bottom - top != oldBottom - oldTop) {
+        updateTrackSelector();
+      }
+    }
+  };
+
   PlayableImpl(ExoCreator creator, Uri uri, String fileExt) {
     this.creator = creator;
     this.mediaUri = uri;
@@ -90,7 +134,12 @@ class PlayableImpl implements Playable {
       }
     }
 
+    if (this.playerView != null) this.playerView.removeOnLayoutChangeListener(viewportListener);
     this.playerView = playerView;
+    if (this.playerView != null) {
+      this.playerView.addOnLayoutChangeListener(viewportListener);
+      updateTrackSelector();  // For example when the Player is handed to a fullscreen View.
+    }
   }
 
   @Override public final PlayerView getPlayerView() {
@@ -118,6 +167,7 @@ class PlayableImpl implements Playable {
     }
     this.mediaSource = null; // so it will be re-prepared when play() is called.
     this.sourcePrepared = false;
+    this.previewUpgraded = false;
   }
 
   @CallSuper @Override public void release() {
@@ -136,18 +186,38 @@ class PlayableImpl implements Playable {
         }
         listenerApplied = false;
       }
+      TrackSelector selector = this.player instanceof ToroExoPlayer ?  //
+          ((ToroExoPlayer) this.player).getTrackSelector() : null;
+      if (selector instanceof ViewportTrackSelector) {
+        ((ViewportTrackSelector) selector).clearConstraints();
+      }
       with(checkNotNull(creator.getContext(), "ExoCreator has no Context")) //
           .releasePlayer(this.creator, this.player);
     }
     this.player = null;
+    if (this.startupTagger != null) this.startupTagger.detach();
     this.mediaSource = null;
     this.sourcePrepared = false;
+    this.previewUpgraded = false;
   }
 
   @CallSuper @NonNull @Override public PlaybackInfo getPlaybackInfo() {
+    PlaybackInfo info = new PlaybackInfo();
+    readPlaybackInfo(info);
+    return info;
+  }
+
+  /**
+   * Same as {@link #getPlaybackInfo()}, but copy the current {@link PlaybackInfo} of the playback
+   * into an instance owned by the caller, so that nothing is allocated. Not part of
+   * {@link Playable}, so that existing implementations of it are not broken.
+   *
+   * @param out the {@link PlaybackInfo} to write to.
+   * @since 3.7.0
+   */
+  @CallSuper public void readPlaybackInfo(@NonNull PlaybackInfo out) {
     updatePlaybackInfo();
-    return new PlaybackInfo(playbackInfo.getResumeWindow(), playbackInfo.getResumePosition(),
-        playbackInfo.getVolumeInfo());
+    out.setTo(playbackInfo);
   }
 
   @CallSuper @Override public void setPlaybackInfo(@NonNull PlaybackInfo playbackInfo) {
@@ -177,6 +247,7 @@ class PlayableImpl implements Playable {
     checkNotNull(player, "Playable#setVolume(): Player is null!");
     playbackInfo.getVolumeInfo().setTo(volume == 0, volume);
     ToroExo.setVolumeInfo(player, this.playbackInfo.getVolumeInfo());
+    if (volume > 0) upgradeFromPreview();
   }
 
   @CallSuper @Override public float getVolume() {
@@ -188,6 +259,7 @@ class PlayableImpl implements Playable {
     if (changed) {
       this.playbackInfo.getVolumeInfo().setTo(volumeInfo.isMute(), volumeInfo.getVolume());
       if (player != null) ToroExo.setVolumeInfo(player, this.playbackInfo.getVolumeInfo());
+      if (!volumeInfo.isMute() && volumeInfo.getVolume() > 0) upgradeFromPreview();
     }
     return changed;
   }
@@ -227,12 +299,98 @@ class PlayableImpl implements Playable {
     this.errorListeners.remove(listener);
   }
 
+  /**
+   * Enable the preview mode: until {@link #upgradeFromPreview()} is called, only the first
+   * {@code previewDurationMs} of the media is played in loop, using the lowest rendition. This is
+   * meant for the muted autoplay of a feed. The preview mode only applies to media that can be
+   * clipped: a live or multi-period media fails to be clipped once, then plays in full.
+   *
+   * The mode is applied the next time the MediaSource is prepared. Each new preparation (after
+   * {@link #reset()} or {@link #release()}) starts in preview again.
+   *
+   * The preview mode requires a Cache (see {@link Config.Builder#setCache}): the upgrade prepares
+   * the full media again, and only the Cache keeps it from downloading what the preview already
+   * has. With a {@link DefaultExoCreator} whose {@link Config} has no Cache, this call is ignored.
+   *
+   * @param previewDurationMs the duration of the preview, or {@link C#TIME_UNSET} to disable it.
+   * @since 3.7.0
+   */
+  public final void setPreviewDuration(long previewDurationMs) {
+    if (previewDurationMs != C.TIME_UNSET && previewDurationMs <= 0) {
+      throw new IllegalArgumentException("Invalid preview duration: " + previewDurationMs);
+    }
+    if (previewDurationMs != C.TIME_UNSET && creator instanceof DefaultExoCreator
+        && ((DefaultExoCreator) creator).config.cache == null) {
+      if (!cacheWarned) {
+        cacheWarned = true;
+        Log.w(TAG, "Preview mode needs a Cache in the Config, ignored: " + mediaUri);
+      }
+      previewDurationMs = C.TIME_UNSET;
+    }
+    this.previewDurationMs = previewDurationMs;
+  }
+
+  public final long getPreviewDuration() {
+    return previewDurationMs;
+  }
+
+  /**
+   * @return {@code true} if the current (or next) MediaSource is the preview of the media.
+   * @since 3.7.0
+   */
+  public final boolean isPreviewing() {
+    return previewDurationMs != C.TIME_UNSET && !previewUpgraded && !clippingUnsupported;
+  }
+
+  /**
+   * Leave the preview mode: the same Player continues at the current position with the full
+   * timeline and the adaptive selection. This is called automatically once the playback is
+   * unmuted, client should also call it when user engages with the playback, for example on tap.
+   *
+   * What is already loaded is not downloaded again, thanks to the Cache required by the preview
+   * mode (see {@link #setPreviewDuration(long)}).
+   *
+   * @since 3.7.0
+   */
+  public final void upgradeFromPreview() {
+    if (!isPreviewing()) return;
+    previewUpgraded = true;
+    updateTrackSelector();
+    if (player == null || !sourcePrepared) {
+      mediaSource = null; // The full MediaSource will be created on the next preparation.
+      sourcePrepared = false;
+      return;
+    }
+
+    updatePlaybackInfo();
+    int window = Math.max(playbackInfo.getResumeWindow(), 0);
+    long position = playbackInfo.getResumePosition();
+    mediaSource = createMediaSource();
+    // Reset the state so that the preview Timeline is not used to resolve the position, then seek
+    // in the new Timeline once it is available.
+    player.prepare(mediaSource, false, true);
+    if (position != TIME_UNSET) player.seekTo(window, position);
+  }
+
   final void updatePlaybackInfo() {
     if (player == null || player.getPlaybackState() == Player.STATE_IDLE) return;
     playbackInfo.setResumeWindow(player.getCurrentWindowIndex());
     playbackInfo.setResumePosition(player.isCurrentWindowSeekable() ? //
         Math.max(0, player.getCurrentPosition()) : TIME_UNSET);
-    playbackInfo.setVolumeInfo(ToroExo.getVolumeInfo(player));
+    ToroExo.readVolumeInfo(player, playbackInfo.getVolumeInfo());
+  }
+
+  // Tell the TrackSelector of the Player about the preview mode and the current size of the
+  // PlayerView. Only the Players created by DefaultExoCreator have one that follows them.
+  final void updateTrackSelector() {
+    if (!(player instanceof ToroExoPlayer)) return;
+    TrackSelector selector = ((ToroExoPlayer) player).getTrackSelector();
+    if (!(selector instanceof ViewportTrackSelector)) return;
+    ((ViewportTrackSelector) selector).setPreview(isPreviewing());
+    if (playerView != null) {
+      ((ViewportTrackSelector) selector).setViewportSize(playerView.getWidth(),
+          playerView.getHeight());
+    }
   }
 
   private void ensurePlayerView() {
@@ -243,12 +401,25 @@ class PlayableImpl implements Playable {
   private void ensureMediaSource() {
     if (mediaSource == null) {  // Only actually prepare the source when play() is called.
       sourcePrepared = false;
-      mediaSource = creator.createMediaSource(mediaUri, fileExt);
+      mediaSource = createMediaSource();
+      if (isPreviewing()) {
+        mediaSource = new LoopingMediaSource(
+            new ClippingMediaSource(mediaSource, 0, C.msToUs(previewDurationMs)));
+      }
     }
 
     if (!sourcePrepared) {
       ensurePlayer(); // sourcePrepared is set to false only when player is null.
       beforePrepareMediaSource();
+      if (startupTrace != null) {
+        startupTrace.mark(StartupTrace.Milestone.PREPARE);
+        Cache cache = creator instanceof DefaultExoCreator ? //
+            ((DefaultExoCreator) creator).config.cache : null;
+        if (cache != null) {
+          if (startupTagger == null) startupTagger = new StartupTagger();
+          startupTagger.attach(mediaSource, cache);
+        }
+      }
       player.prepare(mediaSource, playbackInfo.getResumeWindow() == C.INDEX_UNSET, false);
       sourcePrepared = true;
     }
@@ -257,8 +428,10 @@ class PlayableImpl implements Playable {
   private void ensurePlayer() {
     if (player == null) {
       sourcePrepared = false;
-      player = with(checkNotNull(creator.getContext(), "ExoCreator has no Context")) //
-          .requestPlayer(creator);
+      ToroExo toro = with(checkNotNull(creator.getContext(), "ExoCreator has no Context"));
+      player = toro.acquirePlayer(creator);
+      if (startupTrace != null) startupTrace.setPlayerFromPool(player != null);
+      if (player == null) player = toro.createPlayer(creator);
       listenerApplied = false;
     }
 
@@ -273,6 +446,7 @@ class PlayableImpl implements Playable {
       listenerApplied = true;
     }
 
+    updateTrackSelector();
     ToroExo.setVolumeInfo(player, this.playbackInfo.getVolumeInfo());
     boolean haveResumePosition = playbackInfo.getResumeWindow() != C.INDEX_UNSET;
     if (haveResumePosition) {
@@ -280,8 +454,115 @@ class PlayableImpl implements Playable {
     }
   }
 
+  // Create the MediaSource of the media. Called once per preparation, sub class can wrap the
+  // default one (see AdsPlayable).
+  @NonNull protected MediaSource createMediaSource() {
+    return creator.createMediaSource(mediaUri, fileExt);
+  }
+
+  static boolean isIllegalClipping(ExoPlaybackException error) {
+    if (error.type != ExoPlaybackException.TYPE_SOURCE) return false;
+    Throwable cause = error.getSourceException();
+    while (cause != null) {
+      if (cause instanceof ClippingMediaSource.IllegalClippingException) return true;
+      cause = cause.getCause();
+    }
+    return false;
+  }
+
   // Trick to inject to the Player creation event.
   // Required for AdsLoader to set Player.
   protected void beforePrepareMediaSource() {
   }
+
+  // Look at the first manifest load and the first media load of a prepared MediaSource, to tell
+  // if they are served from the Cache.
+  final class StartupTagger implements MediaSourceEventListener {
+
+    @Nullable private MediaSource source;
+    @Nullable private Cache cache;
+    private boolean manifestChecked;
+    private boolean mediaChecked;
+
+    void attach(@NonNull MediaSource source, @NonNull Cache cache) {
+      if (this.source == source) return;
+      detach();
+      this.source = source;
+      this.cache = cache;
+      source.addEventListener(new Handler(), this);
+    }
+
+    void detach() {
+      if (this.source != null) this.source.removeEventListener(this);
+      this.source = null;
+      this.cache = null;
+      this.manifestChecked = false;
+      this.mediaChecked = false;
+    }
+
+    @Override
+    public void onLoadStarted(int windowIndex, @Nullable MediaSource.MediaPeriodId mediaPeriodId,
+        LoadEventInfo loadEventInfo, MediaLoadData mediaLoadData) {
+      if (cache == null || startupTrace == null) return;
+      if (mediaLoadData.dataType == C.DATA_TYPE_MANIFEST && !manifestChecked) {
+        manifestChecked = true;
+        startupTrace.setManifestFromCache(isCached(cache, loadEventInfo.dataSpec));
+      } else if (mediaLoadData.dataType == C.DATA_TYPE_MEDIA && !mediaChecked) {
+        mediaChecked = true;
+        startupTrace.setMediaFromCache(isCached(cache, loadEventInfo.dataSpec));
+      }
+    }
+
+    @Override
+    public void onLoadCompleted(int windowIndex, @Nullable MediaSource.MediaPeriodId mediaPeriodId,
+        LoadEventInfo loadEventInfo, MediaLoadData mediaLoadData) {
+      // no-ops
+    }
+
+    @Override
+    public void onLoadCanceled(int windowIndex, @Nullable MediaSource.MediaPeriodId mediaPeriodId,
+        LoadEventInfo loadEventInfo, MediaLoadData mediaLoadData) {
+      // no-ops
+    }
+
+    @Override
+    public void onLoadError(int windowIndex, @Nullable MediaSource.MediaPeriodId mediaPeriodId,
+        LoadEventInfo loadEventInfo, MediaLoadData mediaLoadData, IOException error,
+        boolean wasCanceled) {
+      // no-ops
+    }
+
+    @Override
+    public void onReadingStarted(int windowIndex, MediaSource.MediaPeriodId mediaPeriodId) {
+      // no-ops
+    }
+
+    @Override
+    public void onUpstreamDiscarded(int windowIndex, MediaSource.MediaPeriodId mediaPeriodId,
+        MediaLoadData mediaLoadData) {
+      // no-ops
+    }
+
+    @Override public void onDownstreamFormatChanged(int windowIndex,
+        @Nullable MediaSource.MediaPeriodId mediaPeriodId, MediaLoadData mediaLoadData) {
+      // no-ops
+    }
+
+    @Override
+    public void onMediaPeriodCreated(int windowIndex, MediaSource.MediaPeriodId mediaPeriodId) {
+      // no-ops
+    }
+
+    @Override
+    public void onMediaPeriodReleased(int windowIndex, MediaSource.MediaPeriodId mediaPeriodId) {
+      // no-ops
+    }
+  }
+
+  // A load is considered 'from cache' if the first bytes it requests are already cached.
+  static boolean isCached(@NonNull Cache cache, @NonNull DataSpec dataSpec) {
+    long length = dataSpec.length == C.LENGTH_UNSET ? Long.MAX_VALUE : dataSpec.length;
+    return cache.getCachedLength(CacheUtil.getKey(dataSpec), dataSpec.absoluteStreamPosition,
+        length) > 0;
+  }
 }
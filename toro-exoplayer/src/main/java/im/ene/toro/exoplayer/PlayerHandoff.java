@@ -0,0 +1,266 @@
+/*
+ * Copyright (c) 2020 Nam Nguyen, nam@ene.im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package im.ene.toro.exoplayer;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.View;
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.view.ViewCompat;
+import com.google.android.exoplayer2.ui.PlayerView;
+import im.ene.toro.ToroPlayer;
+import im.ene.toro.media.PlaybackInfo;
+import im.ene.toro.widget.Container;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+
+import static im.ene.toro.ToroUtil.checkNotNull;
+import static im.ene.toro.exoplayer.ToroExo.with;
+
+/**
+ * A registry of the playbacks those are moved out of their {@link Container}, so that another
+ * {@link PlayerView} (a fullscreen dialog, a floating mini-player, etc) can continue them with the
+ * same Player instance and its buffer, instead of creating a new {@link Playable} and preparing
+ * the media again.
+ *
+ * The list side lends the playback of an {@link ExoPlayerViewHelper} under a key, the other side
+ * looks it up by the same key, and gives it back when it is done:
+ *
+ * <pre><code>
+ * // In the ViewHolder, when user clicks to go fullscreen.
+ * PlayerHandoff.lend(videoId, helper, null);
+ *
+ * // In the fullscreen Fragment.
+ * loan = PlayerHandoff.get(videoId);
+ * if (loan != null) loan.moveTo(playerView);
+ *
+ * // When the fullscreen Fragment is closed.
+ * if (loan != null) loan.giveBack();
+ * </code></pre>
+ *
+ * While a playback is on loan, its {@link Container} doesn't play, pause nor release it (see
+ * {@link Container#lendPlayer(ToroPlayer)}). A {@link Loan} that is not yet claimed by
+ * {@link Loan#moveTo(PlayerView)} when its {@link Container} is detached, for example because
+ * the Activity is recreated, is given back automatically after {@link #UNCLAIMED_TIMEOUT_MS}, so
+ * that its playback is released instead of being kept forever. All methods must be called on the
+ * main thread.
+ *
+ * @since 3.7.0
+ */
+@SuppressWarnings({ "unused", "WeakerAccess" }) //
+public final class PlayerHandoff {
+
+  /**
+   * Time an unclaimed {@link Loan} is kept after its {@link Container} is detached, long enough
+   * for the Activity to be recreated after a configuration change.
+   */
+  public static final long UNCLAIMED_TIMEOUT_MS = 5000;
+
+  private static final HashMap<Object, Loan> loans = new HashMap<>();
+  private static final Handler handler = new Handler(Looper.getMainLooper());
+
+  private PlayerHandoff() {
+    throw new RuntimeException("Meh!");
+  }
+
+  /**
+   * Lend the playback of an {@link ExoPlayerViewHelper} under a key.
+   *
+   * @param key the key to look up the {@link Loan} later, for example the id of the media.
+   * @param helper the {@link ExoPlayerViewHelper} whose playback to lend. Its {@link ToroPlayer}
+   * must be managed by a {@link Container}.
+   * @param target the {@link PlayerView} to render the playback, or {@code null} to keep the
+   * current one until {@link Loan#moveTo(PlayerView)} is called.
+   * @return the {@link Loan}, or {@code null} if the playback cannot be lent.
+   */
+  @MainThread @Nullable
+  public static Loan lend(@NonNull Object key, @NonNull ExoPlayerViewHelper helper,
+      @Nullable PlayerView target) {
+    checkNotNull(key);
+    if (loans.containsKey(key)) return null;
+    Container container = helper.getContainer();
+    if (container == null || !container.lendPlayer(helper.getPlayer())) return null;
+    Loan loan = new Loan(key, helper, container);
+    loans.put(key, loan);
+    if (target != null) loan.moveTo(target);
+    return loan;
+  }
+
+  /**
+   * @return the {@link Loan} under the key, or {@code null} if there is no such {@link Loan}.
+   */
+  @MainThread @Nullable public static Loan get(@NonNull Object key) {
+    return loans.get(key);
+  }
+
+  /**
+   * A playback lent from a {@link Container}. Valid until {@link #giveBack()} is called.
+   *
+   * Once claimed by {@link #moveTo(PlayerView)}, a {@link Loan} owns the {@link ExoPlayable} and
+   * only keeps weak references to its lender, so that it can outlive the lender's Activity. If the
+   * lender is gone when the {@link Loan} is given back, the {@link ExoPlayable} is put into the
+   * {@link PlayableCache} (if enabled) for the next {@link ExoPlayerViewHelper} of the same media
+   * to continue, or released otherwise.
+   */
+  public static final class Loan {
+
+    @NonNull final Object key;
+    // Strong references to the lender, only until the Loan is claimed or given back.
+    @Nullable ExoPlayerViewHelper helper;
+    @Nullable Container container;
+    // Set once the Loan is claimed.
+    @Nullable ExoPlayable playable;
+    @Nullable WeakReference<ExoPlayerViewHelper> helperRef;
+    @Nullable WeakReference<Container> containerRef;
+    boolean returned = false;
+
+    final Runnable expiry = new Runnable() {
+      @Override public void run() {
+        if (playable == null) giveBack();
+      }
+    };
+
+    final View.OnAttachStateChangeListener containerListener =
+        new View.OnAttachStateChangeListener() {
+          @Override public void onViewAttachedToWindow(View v) {
+            // The expiry, if scheduled, will give the playback back to this Container again.
+          }
+
+          @Override public void onViewDetachedFromWindow(View v) {
+            if (playable == null) handler.postDelayed(expiry, UNCLAIMED_TIMEOUT_MS);
+          }
+        };
+
+    Loan(@NonNull Object key, @NonNull ExoPlayerViewHelper helper, @NonNull Container container) {
+      this.key = key;
+      this.helper = helper;
+      this.container = container;
+      container.addOnAttachStateChangeListener(containerListener);
+    }
+
+    /**
+     * Move the playback to another {@link PlayerView}. The Player, its buffer and its state are
+     * kept as-is.
+     *
+     * @param target the {@link PlayerView} to render the playback.
+     */
+    public void moveTo(@NonNull PlayerView target) {
+      checkState();
+      checkNotNull(target);
+      if (playable == null) claim();
+      playable.setPlayerView(target);
+    }
+
+    // Take the Playable away from the lender, and forget the lender.
+    private void claim() {
+      //noinspection ConstantConditions
+      playable = helper.detachPlayable();
+      helperRef = new WeakReference<>(helper);
+      containerRef = new WeakReference<>(container);
+      handler.removeCallbacks(expiry);
+      //noinspection ConstantConditions
+      container.removeOnAttachStateChangeListener(containerListener);
+      helper = null;
+      container = null;
+    }
+
+    public void play() {
+      checkState();
+      if (playable != null) playable.play();
+      //noinspection ConstantConditions
+      else helper.play();
+    }
+
+    public void pause() {
+      checkState();
+      if (playable != null) playable.pause();
+      //noinspection ConstantConditions
+      else helper.pause();
+    }
+
+    public boolean isPlaying() {
+      if (returned) return false;
+      //noinspection ConstantConditions
+      return playable != null ? playable.isPlaying() : helper.isPlaying();
+    }
+
+    @NonNull public PlaybackInfo getPlaybackInfo() {
+      checkState();
+      //noinspection ConstantConditions
+      return playable != null ? playable.getPlaybackInfo() : helper.getLatestPlaybackInfo();
+    }
+
+    public boolean isReturned() {
+      return returned;
+    }
+
+    /**
+     * Give the playback back. If the View of its {@link ToroPlayer} is still attached, the
+     * playback is moved back there and its {@link Container} continues it. Otherwise the playback
+     * is parked in the {@link PlayableCache}, or released if the cache doesn't take it.
+     */
+    public void giveBack() {
+      if (returned) return;
+      returned = true;
+      loans.remove(key);
+      handler.removeCallbacks(expiry);
+      if (playable == null) {
+        // Never claimed, the playback is still in its helper and View.
+        //noinspection ConstantConditions
+        container.removeOnAttachStateChangeListener(containerListener);
+        container.returnPlayer(helper.getPlayer());
+        helper = null;
+        container = null;
+        return;
+      }
+
+      ExoPlayable playable = this.playable;
+      this.playable = null;
+      //noinspection ConstantConditions
+      ExoPlayerViewHelper helper = helperRef.get();
+      //noinspection ConstantConditions
+      Container container = containerRef.get();
+      ToroPlayer player = helper != null ? helper.getPlayer() : null;
+      if (player != null && container != null
+          && ViewCompat.isAttachedToWindow(player.getPlayerView())) {
+        // Store the latest state, so that the Container resumes the playback from there.
+        container.savePlaybackInfo(player.getPlayerOrder(), playable.getPlaybackInfo());
+        playable.setPlayerView((PlayerView) player.getPlayerView());
+        helper.adoptPlayable(playable);
+        container.returnPlayer(player);
+        return;
+      }
+
+      playable.setPlayerView(null);
+      Context context = playable.creator.getContext();
+      PlayableCache cache = context != null ? with(context).playableCache : null;
+      if (cache != null && cache.accepts(playable)) {
+        cache.put(playable);
+      } else {
+        playable.release();
+      }
+      if (container != null && player != null) container.returnPlayer(player);
+    }
+
+    private void checkState() {
+      if (returned) throw new IllegalStateException("Loan is already returned: " + key);
+    }
+  }
+}
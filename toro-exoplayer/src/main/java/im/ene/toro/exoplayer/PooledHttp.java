@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2020 Nam Nguyen, nam@ene.im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package im.ene.toro.exoplayer;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import com.google.android.exoplayer2.ext.okhttp.OkHttpDataSourceFactory;
+import com.google.android.exoplayer2.upstream.DefaultHttpDataSource;
+import com.google.android.exoplayer2.upstream.HttpDataSource;
+import com.google.android.exoplayer2.upstream.TransferListener;
+import java.net.CookieHandler;
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+
+import static im.ene.toro.ToroUtil.checkNotNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.MINUTES;
+
+/**
+ * Hold the {@link OkHttpClient} shared by the pooled HTTP data sources of the application (see
+ * {@link Config.Builder#setPooledHttp(boolean)}). All of them use its connection pool, so the
+ * short-lived Players of a feed reuse the connections of each other, and HTTP/2 hosts get their
+ * requests multiplexed on one connection.
+ *
+ * OkHttp is an optional dependency of this library. Using this class requires the application to
+ * depend on {@code com.squareup.okhttp3:okhttp} and on the {@code extension-okhttp} of ExoPlayer:
+ *
+ * <pre><code>
+ * implementation "com.google.android.exoplayer:extension-okhttp:$exoPlayerVersion"
+ * </code></pre>
+ *
+ * Note that the client doesn't use the default {@link CookieHandler}.
+ *
+ * @since 3.7.0
+ */
+@SuppressWarnings({ "unused", "WeakerAccess" }) //
+public final class PooledHttp {
+
+  // Connections kept alive by the shared OkHttpClient, enough for the Players of a few Containers.
+  private static final int MAX_IDLE_CONNECTIONS = 8;
+  private static final long KEEP_ALIVE_MINUTES = 5;
+
+  @Nullable private static OkHttpClient client;  // created on demand.
+
+  private PooledHttp() {
+    throw new RuntimeException("Meh!");
+  }
+
+  /**
+   * @return {@code true} if OkHttp and the OkHttp extension of ExoPlayer are in the classpath.
+   */
+  public static boolean isAvailable() {
+    try {
+      Class.forName("okhttp3.OkHttpClient");
+      Class.forName("com.google.android.exoplayer2.ext.okhttp.OkHttpDataSourceFactory");
+      return true;
+    } catch (ClassNotFoundException er) {
+      return false;
+    }
+  }
+
+  /**
+   * Get the shared {@link OkHttpClient}, create it if needed.
+   */
+  @NonNull public static synchronized OkHttpClient getClient() {
+    if (client == null) {
+      client = new OkHttpClient.Builder() //
+          .connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MINUTES, MINUTES))
+          .connectTimeout(DefaultHttpDataSource.DEFAULT_CONNECT_TIMEOUT_MILLIS, MILLISECONDS)
+          .readTimeout(DefaultHttpDataSource.DEFAULT_READ_TIMEOUT_MILLIS, MILLISECONDS)
+          .build();
+    }
+    return client;
+  }
+
+  /**
+   * Replace the shared {@link OkHttpClient}, for example to add interceptors. Client should derive
+   * it from {@link #getClient()} using {@link OkHttpClient#newBuilder()}, so that the connection
+   * pool is kept. Only affects the {@link ExoCreator}s created afterward.
+   */
+  public static synchronized void setClient(@NonNull OkHttpClient client) {
+    PooledHttp.client = checkNotNull(client);
+  }
+
+  /**
+   * Create a {@link HttpDataSource.Factory} backed by the shared {@link OkHttpClient}.
+   *
+   * @param userAgent the User-Agent of the requests.
+   * @param listener the {@link TransferListener} of the data sources, usually the meter.
+   */
+  @NonNull public static HttpDataSource.Factory createDataSourceFactory(@NonNull String userAgent,
+      @Nullable TransferListener listener) {
+    return new OkHttpDataSourceFactory(getClient(), userAgent, listener);
+  }
+}
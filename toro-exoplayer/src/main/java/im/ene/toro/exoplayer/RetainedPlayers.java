@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2020 Nam Nguyen, nam@ene.im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package im.ene.toro.exoplayer;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.lifecycle.ViewModel;
+import androidx.lifecycle.ViewModelProvider;
+import androidx.lifecycle.ViewModelStoreOwner;
+import im.ene.toro.CacheManager;
+import im.ene.toro.ToroPlayer;
+import im.ene.toro.widget.Container;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * A {@link Container.PlayerRetainer} that keeps the {@link ExoPlayable}s of the playing
+ * {@link ExoPlayerViewHelper}s, together with their Player instances, buffers and MediaSources,
+ * through a configuration change. After the recreation, an {@link ExoPlayerViewHelper} whose
+ * {@link ToroPlayer} has the same {@link CacheManager} key and media Uri continues with the
+ * retained {@link ExoPlayable}, instead of preparing a new one from the network.
+ *
+ * Instance is scoped to a {@link ViewModelStoreOwner} (an Activity or a Fragment), so it lives
+ * across the recreation and releases everything it still retains when the owner is finished.
+ *
+ * <pre><code>
+ * container.setCacheManager(adapter);  // required.
+ * RetainedPlayers.of(this).attach(container);
+ * </code></pre>
+ *
+ * @since 3.7.0
+ */
+@SuppressWarnings({ "unused", "WeakerAccess" }) //
+public final class RetainedPlayers extends ViewModel implements Container.PlayerRetainer {
+
+  @MainThread @NonNull public static RetainedPlayers of(@NonNull ViewModelStoreOwner owner) {
+    return new ViewModelProvider(owner, new ViewModelProvider.NewInstanceFactory()) //
+        .get(RetainedPlayers.class);
+  }
+
+  // Helpers those are initialized in attached Containers, so that they can be found from their
+  // ToroPlayers when the Container asks to retain them.
+  private final IdentityHashMap<ToroPlayer, ExoPlayerViewHelper> helpers = new IdentityHashMap<>();
+  // Retained Playables, by the CacheManager keys of their ToroPlayers.
+  private final HashMap<Object, ExoPlayable> retained = new HashMap<>();
+
+  public RetainedPlayers() {
+  }
+
+  /**
+   * Use this instance as the {@link Container.PlayerRetainer} of a {@link Container}. Call this
+   * after each recreation, with the new {@link Container}.
+   */
+  @MainThread public void attach(@NonNull Container container) {
+    container.setPlayerRetainer(this);
+  }
+
+  /**
+   * @return number of {@link ExoPlayable}s retained and not yet reused.
+   */
+  public int getRetainedCount() {
+    return retained.size();
+  }
+
+  @Override public boolean retainPlayer(@NonNull Container container, @NonNull ToroPlayer player,
+      @NonNull Object key) {
+    ExoPlayerViewHelper helper = helpers.remove(player);
+    if (helper == null) return false;
+    ExoPlayable previous = retained.put(key, helper.detachPlayable());
+    if (previous != null) previous.release();
+    player.release(); // Release the ToroPlayer, now only holding an unprepared Playable.
+    return true;
+  }
+
+  // Called from ExoPlayerViewHelper#initialize. Return true if a retained Playable is adopted.
+  boolean onHelperInitialized(@NonNull ExoPlayerViewHelper helper) {
+    ToroPlayer player = helper.getPlayer();
+    helpers.put(player, helper);
+    if (retained.isEmpty()) return false;
+    Container container = helper.getContainer();
+    CacheManager cacheManager = container != null ? container.getCacheManager() : null;
+    Object key = cacheManager != null ? cacheManager.getKeyForOrder(player.getPlayerOrder()) : null;
+    ExoPlayable playable = key != null ? retained.get(key) : null;
+    if (playable == null) return false;
+    ExoPlayable current = helper.getPlayable();
+    if (!playable.mediaUri.equals(current.mediaUri) || playable.creator != current.creator) {
+      return false;
+    }
+    retained.remove(key);
+    helper.adoptPlayable(playable);
+    return true;
+  }
+
+  // Called from ExoPlayerViewHelper#release.
+  void onHelperReleased(@NonNull ExoPlayerViewHelper helper) {
+    helpers.remove(helper.getPlayer());
+  }
+
+  /**
+   * Release all the retained {@link ExoPlayable}s those are not reused yet. Client may call this
+   * once the recreated screen settles down, to free them earlier than the owner's destruction.
+   */
+  @MainThread public void releaseRetained() {
+    for (Map.Entry<Object, ExoPlayable> entry : retained.entrySet()) {
+      entry.getValue().release();
+    }
+    retained.clear();
+  }
+
+  @Override protected void onCleared() {
+    super.onCleared();
+    releaseRetained();
+    helpers.clear();
+  }
+}
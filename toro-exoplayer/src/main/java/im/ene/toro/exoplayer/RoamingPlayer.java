@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2020 Nam Nguyen, nam@ene.im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package im.ene.toro.exoplayer;
+
+import android.net.Uri;
+import android.util.SparseArray;
+import android.view.View;
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.RecyclerView;
+import com.google.android.exoplayer2.SimpleExoPlayer;
+import com.google.android.exoplayer2.ui.PlayerView;
+import im.ene.toro.widget.Container;
+
+import static im.ene.toro.ToroUtil.checkNotNull;
+import static im.ene.toro.exoplayer.ToroExo.with;
+
+/**
+ * Opt-in mode where a {@link Container} owns exactly one Player, which roams to the
+ * {@link PlayerView} of the selected cell. Only the media changes from cell to cell: the Player,
+ * its renderers, threads and buffers are kept. This is for the feeds those play at most one video
+ * at a time, the {@link im.ene.toro.PlayerSelector} of the {@link Container} should select at most
+ * one player.
+ *
+ * The cells use {@link RoamingPlayerHelper} instead of {@link ExoPlayerViewHelper}. The
+ * {@link PlayerView}s of the non-selected cells have no Player, so they only show their shutter
+ * or their default artwork, which is where the poster goes.
+ *
+ * <pre><code>
+ * // In the ViewHolder (ToroPlayer).
+ * &#64;Override public void initialize(&#64;NonNull Container container,
+ *     &#64;NonNull PlaybackInfo playbackInfo) {
+ *   if (helper == null) helper = new RoamingPlayerHelper(container, this, mediaUri);
+ *   helper.initialize(container, playbackInfo);
+ * }
+ * </code></pre>
+ *
+ * Internally, this is a {@link SwipeFeed} without window nor loop. The Player is released when
+ * the {@link Container} is detached from the Window, and requested again when needed.
+ *
+ * @since 3.7.0
+ */
+@SuppressWarnings({ "unused", "WeakerAccess" }) //
+public final class RoamingPlayer {
+
+  /**
+   * Get the {@link RoamingPlayer} of a {@link Container}, create one using the default
+   * {@link ExoCreator} if there is none yet.
+   */
+  @MainThread @NonNull public static RoamingPlayer of(@NonNull Container container) {
+    return of(container, with(container.getContext()).getDefaultCreator());
+  }
+
+  /**
+   * Get the {@link RoamingPlayer} of a {@link Container}, create one using the {@link ExoCreator}
+   * if there is none yet. The {@link ExoCreator} of an existing one is not changed.
+   */
+  @MainThread @NonNull
+  public static RoamingPlayer of(@NonNull Container container, @NonNull ExoCreator creator) {
+    Object tag = container.getTag(R.id.toro_roaming_player);
+    if (tag instanceof RoamingPlayer) return (RoamingPlayer) tag;
+    RoamingPlayer roaming = new RoamingPlayer(container, creator);
+    container.setTag(R.id.toro_roaming_player, roaming);
+    return roaming;
+  }
+
+  @NonNull final SwipeFeed feed;
+  @NonNull private final Container container;
+  // Media Uris of the initialized cells, by their adapter positions.
+  private final SparseArray<Uri> mediaUris = new SparseArray<>();
+
+  private RoamingPlayer(@NonNull Container container, @NonNull ExoCreator creator) {
+    this.container = checkNotNull(container);
+    this.feed = new SwipeFeed(creator, new SwipeFeed.MediaProvider() {
+      @Override public int getItemCount() {
+        RecyclerView.Adapter adapter = RoamingPlayer.this.container.getAdapter();
+        return adapter != null ? adapter.getItemCount() : 0;
+      }
+
+      @Nullable @Override public Uri getMediaUri(int position) {
+        return mediaUris.get(position);
+      }
+    }).setWindowSize(0, 0).setLoop(false);
+
+    this.container.addOnAttachStateChangeListener(new View.OnAttachStateChangeListener() {
+      @Override public void onViewAttachedToWindow(View v) {
+        // Player is requested on the next playback.
+      }
+
+      @Override public void onViewDetachedFromWindow(View v) {
+        release();
+      }
+    });
+  }
+
+  /**
+   * @return the only Player of the {@link Container}, or {@code null} if nothing has been played
+   * yet.
+   */
+  @Nullable public SimpleExoPlayer getPlayer() {
+    return feed.getPlayer();
+  }
+
+  @MainThread public void release() {
+    feed.release();
+    mediaUris.clear();
+  }
+
+  // Called by RoamingPlayerHelper.
+  void putMediaUri(int position, @NonNull Uri uri) {
+    mediaUris.put(position, uri);
+  }
+}
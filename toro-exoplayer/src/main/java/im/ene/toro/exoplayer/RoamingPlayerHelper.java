@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2020 Nam Nguyen, nam@ene.im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package im.ene.toro.exoplayer;
+
+import android.net.Uri;
+import androidx.annotation.NonNull;
+import im.ene.toro.ToroPlayer;
+import im.ene.toro.media.PlaybackInfo;
+import im.ene.toro.widget.Container;
+
+import static im.ene.toro.ToroUtil.checkNotNull;
+
+/**
+ * A {@link SwipeFeedHelper} for the cells of a {@link Container} in the {@link RoamingPlayer}
+ * mode. It tells the {@link RoamingPlayer} the media of its cell, and plays it with the only
+ * Player of the {@link Container}.
+ *
+ * @since 3.7.0
+ */
+@SuppressWarnings({ "unused", "WeakerAccess" }) //
+public class RoamingPlayerHelper extends SwipeFeedHelper {
+
+  @NonNull private final RoamingPlayer roaming;
+  @NonNull private final Uri mediaUri;
+
+  public RoamingPlayerHelper(@NonNull Container container, @NonNull ToroPlayer player,
+      @NonNull Uri mediaUri) {
+    this(RoamingPlayer.of(container), player, mediaUri);
+  }
+
+  public RoamingPlayerHelper(@NonNull RoamingPlayer roaming, @NonNull ToroPlayer player,
+      @NonNull Uri mediaUri) {
+    super(player, roaming.feed);
+    this.roaming = roaming;
+    this.mediaUri = checkNotNull(mediaUri);
+  }
+
+  @Override protected void initialize(@NonNull PlaybackInfo playbackInfo) {
+    roaming.putMediaUri(player.getPlayerOrder(), mediaUri);
+    super.initialize(playbackInfo);
+  }
+
+  @Override public void play() {
+    // The order of the cell may have changed since the initialization.
+    roaming.putMediaUri(player.getPlayerOrder(), mediaUri);
+    super.play();
+  }
+
+  @NonNull public final Uri getMediaUri() {
+    return mediaUri;
+  }
+}
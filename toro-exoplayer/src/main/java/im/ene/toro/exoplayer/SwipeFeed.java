@@ -0,0 +1,397 @@
+/*
+ * Copyright (c) 2020 Nam Nguyen, nam@ene.im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package im.ene.toro.exoplayer;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.Handler;
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.Player;
+import com.google.android.exoplayer2.SimpleExoPlayer;
+import com.google.android.exoplayer2.Timeline;
+import com.google.android.exoplayer2.source.ConcatenatingMediaSource;
+import com.google.android.exoplayer2.trackselection.TrackSelector;
+import com.google.android.exoplayer2.ui.PlayerView;
+import com.google.android.exoplayer2.video.VideoListener;
+import im.ene.toro.media.PlaybackInfo;
+import java.util.ArrayList;
+
+import static im.ene.toro.ToroUtil.checkNotNull;
+import static im.ene.toro.exoplayer.ToroExo.with;
+
+/**
+ * One {@link SimpleExoPlayer} for a full-screen swipe feed (one item per page, for example a
+ * RecyclerView with a {@link androidx.recyclerview.widget.PagerSnapHelper}), instead of one
+ * Player per page.
+ *
+ * The Player plays a {@link ConcatenatingMediaSource} of a window of items: the current one, plus
+ * {@link #setWindowSize(int, int)} items before and after it. The window slides as the user
+ * swipes. Swiping to the next item seeks to its window, which ExoPlayer has already started to
+ * buffer once the current item is buffered, and moves the rendering to the {@link PlayerView} of
+ * the new page using {@link PlayerView#switchTargetView(Player, PlayerView, PlayerView)}. By
+ * default, each item plays in loop ({@link Player#REPEAT_MODE_ONE}) until the user swipes away
+ * (see {@link #setLoop(boolean)}).
+ *
+ * The pages use {@link SwipeFeedHelper} as their {@link im.ene.toro.helper.ToroPlayerHelper}, and
+ * are selected by the {@link im.ene.toro.widget.Container} as usual:
+ *
+ * <pre><code>
+ * // In the Fragment.
+ * feed = new SwipeFeed(ToroExo.with(context).getDefaultCreator(), adapter);
+ *
+ * // In the ViewHolder (ToroPlayer) of a page.
+ * if (helper == null) helper = new SwipeFeedHelper(this, feed);
+ * helper.initialize(container, playbackInfo);
+ *
+ * // When the Fragment's View is destroyed.
+ * feed.release();
+ * </code></pre>
+ *
+ * All methods must be called on the main thread.
+ *
+ * @since 3.7.0
+ */
+@SuppressWarnings({ "unused", "WeakerAccess", "UnusedReturnValue" }) //
+public final class SwipeFeed {
+
+  /**
+   * Tell the {@link SwipeFeed} the media of each adapter position, usually implemented by the
+   * Adapter.
+   */
+  public interface MediaProvider {
+
+    int getItemCount();
+
+    /**
+     * @return the {@link Uri} of the media at an adapter position, or {@code null} if the item at
+     * that position has no media.
+     */
+    @Nullable Uri getMediaUri(int position);
+  }
+
+  public static final int DEFAULT_WINDOW_SIZE = 1;
+
+  @NonNull final ExoCreator creator;
+  @NonNull private final MediaProvider provider;
+  @NonNull private final Handler handler = new Handler();
+  @NonNull private final Listener listener = new Listener();
+
+  // Items in the playlist, in the same order as the windows of the ConcatenatingMediaSource.
+  private final ArrayList<Item> items = new ArrayList<>();
+
+  @Nullable private SimpleExoPlayer player;
+  @Nullable private ConcatenatingMediaSource playlist;
+  @Nullable private PlayerView playerView;
+  @Nullable private SwipeFeedHelper current;
+  @Nullable private Item pendingSeek;  // Item to seek to once the Timeline contains it.
+  private int pendingMutations = 0;  // Changes of the playlist not yet seen by the Player.
+
+  private int windowBefore = DEFAULT_WINDOW_SIZE;
+  private int windowAfter = DEFAULT_WINDOW_SIZE;
+  private boolean loop = true;
+
+  public SwipeFeed(@NonNull ExoCreator creator, @NonNull MediaProvider provider) {
+    this.creator = checkNotNull(creator);
+    this.provider = checkNotNull(provider);
+  }
+
+  /**
+   * Set the number of items to keep in the playlist before and after the current one.
+   */
+  public SwipeFeed setWindowSize(int before, int after) {
+    if (before < 0 || after < 0) throw new IllegalArgumentException("Negative window size");
+    this.windowBefore = before;
+    this.windowAfter = after;
+    return this;
+  }
+
+  /**
+   * Set whether each item plays in loop. If not, an item is paused and reported as completed at
+   * its end, instead of continuing to the next window of the playlist.
+   */
+  public SwipeFeed setLoop(boolean loop) {
+    this.loop = loop;
+    if (player != null) player.setRepeatMode(repeatMode());
+    return this;
+  }
+
+  /**
+   * @return the {@link SimpleExoPlayer} shared by the pages, or {@code null} if nothing has been
+   * played yet.
+   */
+  @Nullable public SimpleExoPlayer getPlayer() {
+    return player;
+  }
+
+  /**
+   * Release the Player and the playlist. The {@link SwipeFeed} can still be used after this, a new
+   * Player will be requested on the next playback.
+   */
+  @MainThread public void release() {
+    if (current != null) detach(current);
+    if (player != null) {
+      player.removeListener(listener);
+      player.removeVideoListener(listener);
+      player.stop(true);
+      player.setRepeatMode(Player.REPEAT_MODE_OFF);  // Don't leave it to the next user of the pool.
+      if (player instanceof ToroExoPlayer) {
+        TrackSelector selector = ((ToroExoPlayer) player).getTrackSelector();
+        if (selector instanceof ViewportTrackSelector) {
+          ((ViewportTrackSelector) selector).clearConstraints();  // Same for the viewport size.
+        }
+      }
+      with(checkNotNull(creator.getContext(), "ExoCreator has no Context")) //
+          .releasePlayer(creator, player);
+      player = null;
+    }
+    playlist = null;
+    pendingSeek = null;
+    pendingMutations = 0;
+    items.clear();
+  }
+
+  /// Called by SwipeFeedHelper
+
+  void play(@NonNull SwipeFeedHelper helper) {
+    SimpleExoPlayer player = ensurePlayer();
+    if (current != helper) {
+      SwipeFeedHelper previous = current;
+      if (previous != null) previous.onDeactivated(readPlaybackInfo(previous));
+      current = helper;
+      moveTo((PlayerView) helper.getPlayer().getPlayerView());
+      slideWindow(helper.getPlayer().getPlayerOrder(), helper.getPlaybackInfo());
+    }
+    ToroExo.setVolumeInfo(player, helper.getPlaybackInfo().getVolumeInfo());
+    player.setPlayWhenReady(true);
+    // The Player may already be ready, so no state change is reported to the new page.
+    helper.onStateChanged(true, player.getPlaybackState());
+  }
+
+  void pause(@NonNull SwipeFeedHelper helper) {
+    if (current == helper && player != null) player.setPlayWhenReady(false);
+  }
+
+  boolean isPlaying(@NonNull SwipeFeedHelper helper) {
+    return current == helper && player != null && player.getPlayWhenReady();
+  }
+
+  boolean isCurrent(@NonNull SwipeFeedHelper helper) {
+    return current == helper && player != null;
+  }
+
+  // Stop rendering to the page of this helper, keep the Player and its playlist.
+  void detach(@NonNull SwipeFeedHelper helper) {
+    if (current != helper) return;
+    if (player != null) player.setPlayWhenReady(false);
+    if (playerView != null) playerView.setPlayer(null);
+    playerView = null;
+    current = null;
+    pendingSeek = null;
+  }
+
+  // Position of the current item, or the last known one of the helper.
+  @NonNull PlaybackInfo readPlaybackInfo(@NonNull SwipeFeedHelper helper) {
+    PlaybackInfo info = new PlaybackInfo(helper.getPlaybackInfo());
+    if (current != helper || player == null || pendingSeek != null) return info;
+    int index = indexOf(helper.getPlayer().getPlayerOrder());
+    if (index < 0 || index != player.getCurrentWindowIndex()) return info;
+    info.setResumeWindow(0);
+    info.setResumePosition(player.isCurrentWindowSeekable() ? //
+        Math.max(0, player.getCurrentPosition()) : C.TIME_UNSET);
+    ToroExo.readVolumeInfo(player, info.getVolumeInfo());
+    return info;
+  }
+
+  /// Internal
+
+  // Let ExoPlayer loop the current window by itself, without leaving it nor dropping its buffer.
+  private int repeatMode() {
+    return loop ? Player.REPEAT_MODE_ONE : Player.REPEAT_MODE_OFF;
+  }
+
+  @NonNull private SimpleExoPlayer ensurePlayer() {
+    if (player == null) {
+      Context context = checkNotNull(creator.getContext(), "ExoCreator has no Context");
+      player = with(context).requestPlayer(creator);
+      player.addListener(listener);
+      player.addVideoListener(listener);
+      player.setRepeatMode(repeatMode());
+    }
+    if (playlist == null) {
+      items.clear();
+      pendingMutations = 0;
+      playlist = new ConcatenatingMediaSource();
+      player.prepare(playlist);
+    }
+    return player;
+  }
+
+  private void moveTo(@NonNull PlayerView target) {
+    if (playerView != target) {
+      PlayerView.switchTargetView(checkNotNull(player), playerView, target);
+      playerView = target;
+    }
+    if (player instanceof ToroExoPlayer) {
+      TrackSelector selector = ((ToroExoPlayer) player).getTrackSelector();
+      if (selector instanceof ViewportTrackSelector) {
+        ((ViewportTrackSelector) selector).setViewportSize(target.getWidth(), target.getHeight());
+      }
+    }
+  }
+
+  // Update the playlist to the window around an adapter position, then seek to it.
+  private void slideWindow(int position, @NonNull PlaybackInfo playbackInfo) {
+    int count = provider.getItemCount();
+    int start = Math.max(0, position - windowBefore);
+    int end = Math.min(count - 1, position + windowAfter);
+
+    // Add the missing items first, so that the current one is not removed while it plays.
+    for (int i = start; i <= end; i++) {
+      Uri uri = provider.getMediaUri(i);
+      int index = indexOf(i);
+      if (index >= 0) {
+        if (items.get(index).uri.equals(uri)) continue;
+        removeItem(index);  // The Adapter has changed, this item is stale.
+      }
+      if (uri != null) addItem(insertionIndexOf(i), new Item(i, uri));
+    }
+
+    for (int index = items.size() - 1; index >= 0; index--) {
+      Item item = items.get(index);
+      if (item.position < start || item.position > end) removeItem(index);
+    }
+
+    int index = indexOf(position);
+    pendingSeek = index >= 0 ? items.get(index) : null;
+    if (pendingSeek != null) pendingSeek.resumePosition = playbackInfo.getResumePosition();
+    maybeSeek();
+  }
+
+  private void addItem(int index, @NonNull Item item) {
+    ConcatenatingMediaSource playlist = checkNotNull(this.playlist);
+    items.add(index, item);
+    pendingMutations++;
+    playlist.addMediaSource(index, creator.createMediaSource(item.uri, null), handler,
+        new Mutation(playlist));
+  }
+
+  private void removeItem(int index) {
+    ConcatenatingMediaSource playlist = checkNotNull(this.playlist);
+    items.remove(index);
+    pendingMutations++;
+    playlist.removeMediaSource(index, handler, new Mutation(playlist));
+  }
+
+  // Seek once the Player's Timeline has caught up with the changes of the playlist.
+  void maybeSeek() {
+    if (pendingSeek == null || player == null || pendingMutations > 0) return;
+    Timeline timeline = player.getCurrentTimeline();
+    if (timeline.getWindowCount() != items.size()) return; // Not prepared yet.
+    int index = items.indexOf(pendingSeek);
+    long resumePosition = pendingSeek.resumePosition;
+    pendingSeek = null;
+    if (index < 0) return;
+    if (resumePosition != C.TIME_UNSET) {
+      player.seekTo(index, resumePosition);
+    } else if (player.getCurrentWindowIndex() != index) {
+      player.seekToDefaultPosition(index);  // Keeps the buffer if it was loaded ahead.
+    }
+  }
+
+  private int indexOf(int position) {
+    for (int i = 0; i < items.size(); i++) {
+      if (items.get(i).position == position) return i;
+    }
+    return -1;
+  }
+
+  private int insertionIndexOf(int position) {
+    int index = 0;
+    while (index < items.size() && items.get(index).position < position) index++;
+    return index;
+  }
+
+  static final class Item {
+
+    final int position;
+    @NonNull final Uri uri;
+    long resumePosition = C.TIME_UNSET;
+
+    Item(int position, @NonNull Uri uri) {
+      this.position = position;
+      this.uri = uri;
+    }
+  }
+
+  // Called by the ConcatenatingMediaSource once a change is applied and its Timeline is reported.
+  final class Mutation implements Runnable {
+
+    @NonNull final ConcatenatingMediaSource target;
+
+    Mutation(@NonNull ConcatenatingMediaSource target) {
+      this.target = target;
+    }
+
+    @Override public void run() {
+      if (playlist != target || pendingMutations == 0) return;  // From a released playlist.
+      pendingMutations--;
+      maybeSeek();
+    }
+  }
+
+  final class Listener implements Player.EventListener, VideoListener {
+
+    @Override public void onTimelineChanged(Timeline timeline, @Nullable Object manifest,
+        int reason) {
+      maybeSeek();
+    }
+
+    @Override public void onPlayerStateChanged(boolean playWhenReady, int playbackState) {
+      if (current != null) current.onStateChanged(playWhenReady, playbackState);
+    }
+
+    @Override public void onPositionDiscontinuity(int reason) {
+      // Without loop, ExoPlayer moves to the next window when an item ends, but the page hasn't
+      // changed: go back to the item and report it as completed. In loop, REPEAT_MODE_ONE keeps
+      // the Player in the current window.
+      if (loop || reason != Player.DISCONTINUITY_REASON_PERIOD_TRANSITION) return;
+      if (backToCurrent() && player != null && current != null) {
+        player.setPlayWhenReady(false);
+        current.onStateChanged(false, Player.STATE_ENDED);
+      }
+    }
+
+    @Override public void onRenderedFirstFrame() {
+      if (current != null) current.onFirstFrameRendered();
+    }
+
+    // Seek to the start of the current item if the Player has left it.
+    private boolean backToCurrent() {
+      if (player == null || current == null || pendingSeek != null) return false;
+      int index = indexOf(current.getPlayer().getPlayerOrder());
+      if (index >= 0 && index != player.getCurrentWindowIndex()) {
+        player.seekTo(index, 0);
+        return true;
+      }
+      return false;
+    }
+  }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2020 Nam Nguyen, nam@ene.im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package im.ene.toro.exoplayer;
+
+import androidx.annotation.NonNull;
+import com.google.android.exoplayer2.ui.PlayerView;
+import im.ene.toro.ToroPlayer;
+import im.ene.toro.ToroPlayer.State;
+import im.ene.toro.helper.ToroPlayerHelper;
+import im.ene.toro.media.PlaybackInfo;
+import im.ene.toro.media.VolumeInfo;
+
+import static im.ene.toro.ToroUtil.checkNotNull;
+
+/**
+ * A {@link ToroPlayerHelper} for the pages of a {@link SwipeFeed}. It doesn't own any Player, but
+ * asks the {@link SwipeFeed} to play the item at {@link ToroPlayer#getPlayerOrder()} in its
+ * {@link PlayerView} when the {@link im.ene.toro.widget.Container} selects it.
+ *
+ * @since 3.7.0
+ */
+@SuppressWarnings({ "unused", "WeakerAccess" }) //
+public class SwipeFeedHelper extends ToroPlayerHelper {
+
+  @NonNull private final SwipeFeed feed;
+  // Last known PlaybackInfo of this item, while it is not the current item of the feed.
+  @NonNull private final PlaybackInfo playbackInfo = new PlaybackInfo();
+
+  public SwipeFeedHelper(@NonNull ToroPlayer player, @NonNull SwipeFeed feed) {
+    super(player);
+    //noinspection ConstantConditions
+    if (player.getPlayerView() == null || !(player.getPlayerView() instanceof PlayerView)) {
+      throw new IllegalArgumentException("Require non-null PlayerView");
+    }
+    this.feed = checkNotNull(feed);
+  }
+
+  @Override protected void initialize(@NonNull PlaybackInfo playbackInfo) {
+    setPlaybackInfo(playbackInfo);
+  }
+
+  @Override public void play() {
+    feed.play(this);
+  }
+
+  @Override public void pause() {
+    feed.pause(this);
+  }
+
+  @Override public boolean isPlaying() {
+    return feed.isPlaying(this);
+  }
+
+  @Override public void setVolume(float volume) {
+    setVolumeInfo(new VolumeInfo(volume == 0, volume));
+  }
+
+  @Override public float getVolume() {
+    return getVolumeInfo().getVolume();
+  }
+
+  @Override public void setVolumeInfo(@NonNull VolumeInfo volumeInfo) {
+    VolumeInfo current = this.playbackInfo.getVolumeInfo();
+    if (current.equals(volumeInfo)) return;
+    current.setTo(volumeInfo.isMute(), volumeInfo.getVolume());
+    if (feed.isCurrent(this)) ToroExo.setVolumeInfo(checkNotNull(feed.getPlayer()), current);
+    getVolumeChangeListeners().onVolumeChanged(current);
+  }
+
+  @NonNull @Override public VolumeInfo getVolumeInfo() {
+    return this.playbackInfo.getVolumeInfo();
+  }
+
+  @NonNull @Override public PlaybackInfo getLatestPlaybackInfo() {
+    return feed.readPlaybackInfo(this);
+  }
+
+  @Override public void setPlaybackInfo(@NonNull PlaybackInfo playbackInfo) {
+    this.playbackInfo.setTo(playbackInfo);
+  }
+
+  @Override public void release() {
+    this.playbackInfo.setTo(feed.readPlaybackInfo(this));
+    feed.detach(this);
+    super.release();
+  }
+
+  /// Called by SwipeFeed
+
+  @NonNull final ToroPlayer getPlayer() {
+    return player;
+  }
+
+  @NonNull final PlaybackInfo getPlaybackInfo() {
+    return playbackInfo;
+  }
+
+  void onStateChanged(boolean playWhenReady, int playbackState) {
+    super.onPlayerStateUpdated(playWhenReady, playbackState);
+  }
+
+  void onFirstFrameRendered() {
+    internalListener.onFirstFrameRendered();
+    super.getEventListeners().onFirstFrameRendered();
+  }
+
+  // Another page becomes the current one of the feed.
+  void onDeactivated(@NonNull PlaybackInfo latest) {
+    this.playbackInfo.setTo(latest);
+    super.onPlayerStateUpdated(false, State.STATE_READY);
+  }
+}
@@ -31,15 +31,12 @@ import androidx.annotation.StringRes;
 import androidx.core.util.Pools;
 import com.google.android.exoplayer2.ExoPlayerLibraryInfo;
 import com.google.android.exoplayer2.SimpleExoPlayer;
-import com.google.android.exoplayer2.drm.DefaultDrmSessionManager;
 import com.google.android.exoplayer2.drm.DrmSessionManager;
 import com.google.android.exoplayer2.drm.FrameworkMediaCrypto;
-import com.google.android.exoplayer2.drm.FrameworkMediaDrm;
-import com.google.android.exoplayer2.drm.HttpMediaDrmCallback;
 import com.google.android.exoplayer2.drm.UnsupportedDrmException;
-import com.google.android.exoplayer2.upstream.DefaultHttpDataSourceFactory;
-import com.google.android.exoplayer2.upstream.HttpDataSource;
 import com.google.android.exoplayer2.util.Util;
+import im.ene.toro.ToroMetrics;
+import im.ene.toro.ToroUtil;
 import im.ene.toro.media.DrmMedia;
 import im.ene.toro.media.VolumeInfo;
 import java.net.CookieHandler;
@@ -97,14 +94,18 @@ public final class ToroExo {
   @NonNull final Context context;  // Application context
   @NonNull private final Map<Config, ExoCreator> creators;
   @NonNull private final Map<ExoCreator, Pools.Pool<SimpleExoPlayer>> playerPools;
+  @NonNull final PlayableCache playableCache;
+  @Nullable private DrmSessions drmSessions;  // created on demand.
 
   private Config defaultConfig; // will be created on the first time it is used.
+  private int livePlayerCount;  // created by this instance, not yet released. For ToroMetrics.
 
   private ToroExo(@NonNull Context context /* Application context */) {
     this.context = context;
     this.appName = getUserAgent(context, LIB_NAME);
     this.playerPools = new HashMap<>();
     this.creators = new HashMap<>();
+    this.playableCache = new PlayableCache();
 
     // Adapt from ExoPlayer demo app. Start this on demand.
     CookieManager cookieManager = new CookieManager();
@@ -139,6 +140,14 @@ public final class ToroExo {
     return getCreator(getDefaultConfig());
   }
 
+  /**
+   * Get the {@link PlayableCache} shared by all {@link ExoPlayerViewHelper}s. It is disabled by
+   * default.
+   */
+  @NonNull public final PlayableCache getPlayableCache() {
+    return playableCache;
+  }
+
   /**
    * Request an instance of {@link SimpleExoPlayer}. It can be an existing instance cached by Pool
    * or new one.
@@ -151,21 +160,63 @@ public final class ToroExo {
    */
   @NonNull  //
   public final SimpleExoPlayer requestPlayer(@NonNull ExoCreator creator) {
+    SimpleExoPlayer player = acquirePlayer(creator);
+    if (player == null) player = createPlayer(creator);
+    return player;
+  }
+
+  /**
+   * Acquire a {@link SimpleExoPlayer} from the Pool attached to the creator, without creating new
+   * one.
+   *
+   * @return a pooled {@link SimpleExoPlayer}, or {@code null} if the Pool is empty.
+   */
+  @Nullable final SimpleExoPlayer acquirePlayer(@NonNull ExoCreator creator) {
     SimpleExoPlayer player = getPool(checkNotNull(creator)).acquire();
-    if (player == null) player = creator.createPlayer();
+    ToroMetrics metrics = ToroUtil.getMetrics();
+    if (metrics != null) {
+      if (player != null) {
+        metrics.onPoolHit();
+      } else {
+        metrics.onPoolMiss();
+      }
+    }
+    return player;
+  }
+
+  // Create a new SimpleExoPlayer, bypass the Pool.
+  @NonNull final SimpleExoPlayer createPlayer(@NonNull ExoCreator creator) {
+    boolean section = ToroUtil.beginSection("Toro:ExoCreator#createPlayer");
+    SimpleExoPlayer player;
+    try {
+      player = checkNotNull(creator).createPlayer();
+    } finally {
+      ToroUtil.endSection(section);
+    }
+    livePlayerCount++;
+    ToroMetrics metrics = ToroUtil.getMetrics();
+    if (metrics != null) metrics.onLivePlayerCountChanged(livePlayerCount);
     return player;
   }
 
   /**
-   * Release player to Pool attached to the creator.
+   * Release player to Pool attached to the creator. If the Pool is full, the player is evicted and
+   * fully released.
    *
    * @param creator the {@link ExoCreator} that created the player.
    * @param player the {@link SimpleExoPlayer} to be released back to the Pool
-   * @return true if player is released to relevant Pool, false otherwise.
+   * @return true if player is released to relevant Pool, false if it was evicted.
    */
   @SuppressWarnings({ "WeakerAccess", "UnusedReturnValue" }) //
   public final boolean releasePlayer(@NonNull ExoCreator creator, @NonNull SimpleExoPlayer player) {
-    return getPool(checkNotNull(creator)).release(player);
+    boolean pooled = getPool(checkNotNull(creator)).release(player);
+    if (!pooled) {
+      player.release();
+      ToroMetrics metrics = ToroUtil.getMetrics();
+      if (metrics != null) metrics.onPoolEviction();
+      onPlayerReleased();
+    }
+    return pooled;
   }
 
   /**
@@ -173,17 +224,27 @@ public final class ToroExo {
    * client Application runs out of memory ({@link Application#onTrimMemory(int)} for example).
    */
   public final void cleanUp() {
+    playableCache.clear();
     // TODO [2018/03/07] Test this. Ref: https://stackoverflow.com/a/1884916/1553254
     for (Iterator<Map.Entry<ExoCreator, Pools.Pool<SimpleExoPlayer>>> it =
         playerPools.entrySet().iterator(); it.hasNext(); ) {
       Pools.Pool<SimpleExoPlayer> pool = it.next().getValue();
       SimpleExoPlayer item;
-      while ((item = pool.acquire()) != null) item.release();
+      while ((item = pool.acquire()) != null) {
+        item.release();
+        onPlayerReleased();
+      }
       it.remove();
     }
   }
 
   /// internal APIs
+  private void onPlayerReleased() {
+    if (livePlayerCount > 0) livePlayerCount--;
+    ToroMetrics metrics = ToroUtil.getMetrics();
+    if (metrics != null) metrics.onLivePlayerCountChanged(livePlayerCount);
+  }
+
   private Pools.Pool<SimpleExoPlayer> getPool(ExoCreator creator) {
     Pools.Pool<SimpleExoPlayer> pool = playerPools.get(creator);
     if (pool == null) {
@@ -203,7 +264,20 @@ public final class ToroExo {
   }
 
   /**
-   * Utility method to build a {@link DrmSessionManager} that can be used in {@link Config}
+   * Get the {@link DrmSessions} that creates the {@link DrmSessionManager}s and keeps the offline
+   * licenses of the application.
+   *
+   * @since 3.7.0
+   */
+  @RequiresApi(18) @NonNull public final synchronized DrmSessions getDrmSessions() {
+    if (drmSessions == null) drmSessions = new DrmSessions(context, appName);
+    return drmSessions;
+  }
+
+  /**
+   * Utility method to build a {@link DrmSessionManager} that can be used in {@link Config}. Each
+   * call returns a new instance, that must be used by one {@link Config} only, see
+   * {@link DrmSessions}.
    *
    * Usage:
    * <pre><code>
@@ -214,6 +288,19 @@ public final class ToroExo {
    */
   @SuppressWarnings("unused") @RequiresApi(18) @Nullable //
   public DrmSessionManager<FrameworkMediaCrypto> createDrmSessionManager(@NonNull DrmMedia drm) {
+    return createDrmSessionManager(drm, null);
+  }
+
+  /**
+   * Same as {@link #createDrmSessionManager(DrmMedia)}, but use the stored offline license of the
+   * content if there is a valid one.
+   *
+   * @param contentId the ID of the content, by which its offline license is stored.
+   * @since 3.7.0
+   */
+  @SuppressWarnings("unused") @RequiresApi(18) @Nullable //
+  public DrmSessionManager<FrameworkMediaCrypto> createDrmSessionManager(@NonNull DrmMedia drm,
+      @Nullable String contentId) {
     DrmSessionManager<FrameworkMediaCrypto> drmSessionManager = null;
     int errorStringId = R.string.error_drm_unknown;
     String subString = null;
@@ -224,10 +311,8 @@ public final class ToroExo {
       if (drmSchemeUuid == null) {
         errorStringId = R.string.error_drm_unsupported_scheme;
       } else {
-        HttpDataSource.Factory factory = new DefaultHttpDataSourceFactory(appName);
         try {
-          drmSessionManager = buildDrmSessionManagerV18(drmSchemeUuid, drm.getLicenseUrl(),
-              drm.getKeyRequestPropertiesArray(), drm.multiSession(), factory);
+          drmSessionManager = getDrmSessions().createSessionManager(drm, contentId);
         } catch (UnsupportedDrmException e) {
           e.printStackTrace();
           errorStringId = e.reason == REASON_UNSUPPORTED_SCHEME ? //
@@ -248,21 +333,6 @@ public final class ToroExo {
     return drmSessionManager;
   }
 
-  @RequiresApi(18) private static DrmSessionManager<FrameworkMediaCrypto> buildDrmSessionManagerV18(
-      @NonNull UUID uuid, @Nullable String licenseUrl, @Nullable String[] keyRequestPropertiesArray,
-      boolean multiSession, @NonNull HttpDataSource.Factory httpDataSourceFactory)
-      throws UnsupportedDrmException {
-    HttpMediaDrmCallback drmCallback = new HttpMediaDrmCallback(licenseUrl, httpDataSourceFactory);
-    if (keyRequestPropertiesArray != null) {
-      for (int i = 0; i < keyRequestPropertiesArray.length - 1; i += 2) {
-        drmCallback.setKeyRequestProperty(keyRequestPropertiesArray[i],
-            keyRequestPropertiesArray[i + 1]);
-      }
-    }
-    return new DefaultDrmSessionManager<>(uuid, FrameworkMediaDrm.newInstance(uuid), drmCallback,
-        null, multiSession);
-  }
-
   // Share the code of setting Volume. For use inside library only.
   @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP) //
   public static void setVolumeInfo(@NonNull SimpleExoPlayer player,
@@ -280,11 +350,20 @@ public final class ToroExo {
 
   @SuppressWarnings("WeakerAccess") @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP) //
   public static VolumeInfo getVolumeInfo(SimpleExoPlayer player) {
+    VolumeInfo volumeInfo = new VolumeInfo(false, 1.f);
+    readVolumeInfo(player, volumeInfo);
+    return volumeInfo;
+  }
+
+  // Same as getVolumeInfo(SimpleExoPlayer), but write to an existing VolumeInfo instance.
+  @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP) //
+  public static void readVolumeInfo(@NonNull SimpleExoPlayer player, @NonNull VolumeInfo out) {
     if (player instanceof ToroExoPlayer) {
-      return new VolumeInfo(((ToroExoPlayer) player).getVolumeInfo());
+      VolumeInfo volumeInfo = ((ToroExoPlayer) player).getVolumeInfo();
+      out.setTo(volumeInfo.isMute(), volumeInfo.getVolume());
     } else {
       float volume = player.getVolume();
-      return new VolumeInfo(volume == 0, volume);
+      out.setTo(volume == 0, volume);
     }
   }
 
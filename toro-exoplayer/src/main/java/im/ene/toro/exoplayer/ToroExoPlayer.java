@@ -22,6 +22,7 @@ import androidx.annotation.CallSuper;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import com.google.android.exoplayer2.LoadControl;
+import com.google.android.exoplayer2.Player;
 import com.google.android.exoplayer2.RenderersFactory;
 import com.google.android.exoplayer2.SimpleExoPlayer;
 import com.google.android.exoplayer2.drm.DrmSessionManager;
@@ -42,10 +43,29 @@ import static im.ene.toro.ToroUtil.checkNotNull;
 public class ToroExoPlayer extends SimpleExoPlayer {
 
   protected ToroExoPlayer(Context context, RenderersFactory renderersFactory,
-      TrackSelector trackSelector, LoadControl loadControl, BandwidthMeter bandwidthMeter,
+      final TrackSelector trackSelector, LoadControl loadControl, BandwidthMeter bandwidthMeter,
       @Nullable DrmSessionManager<FrameworkMediaCrypto> drmSessionManager, Looper looper) {
     super(context, renderersFactory, trackSelector, loadControl, bandwidthMeter, drmSessionManager,
         looper);
+    this.trackSelector = trackSelector;
+    if (trackSelector instanceof ViewportTrackSelector) {
+      // Lift the start-up bitrate cap, if any, once the first rendition is playing.
+      addListener(new Player.EventListener() {
+        @Override public void onPlayerStateChanged(boolean playWhenReady, int playbackState) {
+          if (playbackState == STATE_READY) ((ViewportTrackSelector) trackSelector).onPlayerReady();
+        }
+      });
+    }
+  }
+
+  private final TrackSelector trackSelector;
+
+  /**
+   * @return the {@link TrackSelector} this Player was created with.
+   * @since 3.7.0
+   */
+  @NonNull public final TrackSelector getTrackSelector() {
+    return trackSelector;
   }
 
   private ToroPlayer.VolumeChangeListeners listeners;
@@ -75,11 +95,7 @@ public class ToroExoPlayer extends SimpleExoPlayer {
     if (changed) {
       this.volumeInfo.setTo(volumeInfo.isMute(), volumeInfo.getVolume());
       super.setVolume(volumeInfo.isMute() ? 0 : volumeInfo.getVolume());
-      if (listeners != null) {
-        for (ToroPlayer.OnVolumeChangeListener listener : this.listeners) {
-          listener.onVolumeChanged(volumeInfo);
-        }
-      }
+      if (listeners != null) listeners.onVolumeChanged(volumeInfo);
     }
 
     return changed;
@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2020 Nam Nguyen, nam@ene.im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package im.ene.toro.exoplayer;
+
+import androidx.annotation.NonNull;
+import com.google.android.exoplayer2.trackselection.DefaultTrackSelector;
+import com.google.android.exoplayer2.ui.PlayerView;
+import java.util.Collections;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * A {@link DefaultTrackSelector} owned by one Player, whose video constraints follow the size of
+ * the {@link PlayerView} the Player renders to: renditions larger than the smallest one covering
+ * the View are excluded, and the video bitrate is capped by the number of pixels of the View. In
+ * preview mode (see {@link PlayableImpl#setPreviewDuration(long)}), the lowest bitrate is used.
+ * Until the Player is ready, the bitrate can also be capped for a lower start-up rendition (see
+ * {@link NetworkAwarePlayerDispatcher}).
+ *
+ * Other parameters are copied from a shared {@link Defaults} selector, so parameters set to it
+ * apply to every Player. The smallest of the bitrate caps is used.
+ *
+ * @since 3.7.0
+ */
+final class ViewportTrackSelector extends DefaultTrackSelector {
+
+  // Bitrate a rendition needs per displayed pixel, in bits per second. ~3.7 Mbps for 720p.
+  static final int BITS_PER_PIXEL = 4;
+  static final int MIN_VIDEO_BITRATE = 300_000;  // Don't starve the tiny Views.
+
+  @NonNull private final Defaults defaults;
+  private int viewportWidth = Integer.MAX_VALUE;  // Unconstrained until a View is laid out.
+  private int viewportHeight = Integer.MAX_VALUE;
+  private boolean preview = false;
+  private int startupBitrateCap = Integer.MAX_VALUE;  // Lifted once the Player is ready.
+
+  ViewportTrackSelector(@NonNull Defaults defaults) {
+    super();
+    this.defaults = defaults;
+    this.defaults.add(this);
+    update();
+  }
+
+  /**
+   * Called on the main thread once the {@link PlayerView} is laid out or resized.
+   */
+  void setViewportSize(int width, int height) {
+    if (width <= 0 || height <= 0) return; // Not laid out yet.
+    if (width == viewportWidth && height == viewportHeight) return;
+    this.viewportWidth = width;
+    this.viewportHeight = height;
+    update();
+  }
+
+  void setPreview(boolean preview) {
+    if (this.preview == preview) return;
+    this.preview = preview;
+    update();
+  }
+
+  /**
+   * Called on the main thread before the Player starts, to cap the bitrate of its first rendition.
+   *
+   * @param cap the cap in bits per second, or {@link Integer#MAX_VALUE} for no cap.
+   */
+  void setStartupBitrateCap(int cap) {
+    if (this.startupBitrateCap == cap) return;
+    this.startupBitrateCap = cap;
+    update();
+  }
+
+  /**
+   * Called by {@link ToroExoPlayer} once it is ready, from then on the rendition adapts as usual.
+   */
+  void onPlayerReady() {
+    setStartupBitrateCap(Integer.MAX_VALUE);
+  }
+
+  /**
+   * Called before the Player is released or returned to the pool.
+   */
+  void clearConstraints() {
+    boolean constrained = preview || viewportWidth != Integer.MAX_VALUE
+        || startupBitrateCap != Integer.MAX_VALUE;
+    if (!constrained) return;
+    this.viewportWidth = Integer.MAX_VALUE;
+    this.viewportHeight = Integer.MAX_VALUE;
+    this.preview = false;
+    this.startupBitrateCap = Integer.MAX_VALUE;
+    update();
+  }
+
+  void update() {
+    Parameters base = defaults.getParameters();
+    ParametersBuilder builder = base.buildUpon();
+    int maxVideoBitrate = Math.min(base.maxVideoBitrate, startupBitrateCap);
+    if (viewportWidth != Integer.MAX_VALUE && viewportHeight != Integer.MAX_VALUE) {
+      long pixels = (long) viewportWidth * viewportHeight;
+      long bitrate = Math.max(pixels * BITS_PER_PIXEL, MIN_VIDEO_BITRATE);
+      builder.setViewportSize(viewportWidth, viewportHeight, false);
+      maxVideoBitrate = (int) Math.min(maxVideoBitrate, bitrate);
+    }
+    builder.setMaxVideoBitrate(maxVideoBitrate);
+    if (preview) builder.setForceLowestBitrate(true);
+    setParameters(builder.build());
+  }
+
+  /**
+   * The {@link DefaultTrackSelector} shared by a {@link DefaultExoCreator}. It is not used by any
+   * Player, but its {@link Parameters} are the base of every {@link ViewportTrackSelector} it
+   * created.
+   */
+  static final class Defaults extends DefaultTrackSelector {
+
+    private final Set<ViewportTrackSelector> selectors =
+        Collections.newSetFromMap(new WeakHashMap<ViewportTrackSelector, Boolean>());
+
+    Defaults() {
+      super();
+    }
+
+    @Override public void setParameters(Parameters parameters) {
+      boolean changed = !getParameters().equals(parameters);
+      super.setParameters(parameters);
+      if (!changed) return;
+      ViewportTrackSelector[] copy;
+      synchronized (selectors) {
+        copy = selectors.toArray(new ViewportTrackSelector[0]);
+      }
+      for (ViewportTrackSelector selector : copy) {
+        selector.update();
+      }
+    }
+
+    void add(@NonNull ViewportTrackSelector selector) {
+      synchronized (selectors) {
+        selectors.add(selector);
+      }
+    }
+  }
+}
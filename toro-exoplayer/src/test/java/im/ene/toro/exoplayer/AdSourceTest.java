@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2020 Nam Nguyen, nam@ene.im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package im.ene.toro.exoplayer;
+
+import im.ene.toro.exoplayer.AdsCoordinator.AdSource;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link AdSource#forAdsResponse(String)} and {@link AdSource#fromAsset} (through the stream it
+ * reads) with the local VAST/VMAP files under src/test/resources/vast.
+ */
+public class AdSourceTest {
+
+  @Test public void forAdsResponse_keepsTheResponse() throws IOException {
+    String vast = read("vast/inline_linear.xml");
+    AdSource source = AdSource.forAdsResponse(vast);
+    assertNull(source.adTagUri);
+    assertEquals(vast, source.adsResponse);
+  }
+
+  @Test public void fromAsset_readsUtf8() throws IOException {
+    AdSource source = AdSource.fromStream(open("vast/inline_linear.xml"));
+    assertNull(source.adTagUri);
+    assertEquals(read("vast/inline_linear.xml"), source.adsResponse);
+    //noinspection ConstantConditions
+    assertTrue(source.adsResponse.contains("<AdTitle>Pré-roll — café</AdTitle>"));
+  }
+
+  @Test public void fromAsset_readsMoreThanOneBuffer() throws IOException {
+    String vmap = read("vast/vmap_breaks.xml");
+    assertTrue(vmap.length() > 4096);
+    AdSource source = AdSource.fromStream(open("vast/vmap_breaks.xml"));
+    assertEquals(vmap, source.adsResponse);
+  }
+
+  @Test public void fromAsset_closesTheStream() throws IOException {
+    final boolean[] closed = { false };
+    InputStream input = new InputStream() {
+      @Override public int read() {
+        return -1;
+      }
+
+      @Override public void close() {
+        closed[0] = true;
+      }
+    };
+    AdSource source = AdSource.fromStream(input);
+    assertEquals("", source.adsResponse);
+    assertTrue(closed[0]);
+  }
+
+  @Test(expected = NullPointerException.class) //
+  public void forAdsResponse_rejectsNull() {
+    //noinspection ConstantConditions
+    AdSource.forAdsResponse(null);
+  }
+
+  private InputStream open(String path) {
+    InputStream input = getClass().getClassLoader().getResourceAsStream(path);
+    if (input == null) throw new AssertionError("Missing test resource: " + path);
+    return input;
+  }
+
+  private String read(String path) throws IOException {
+    InputStream input = open(path);
+    try {
+      ByteArrayOutputStream output = new ByteArrayOutputStream();
+      int read;
+      while ((read = input.read()) != -1) output.write(read);
+      return output.toString("UTF-8");
+    } finally {
+      input.close();
+    }
+  }
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2020 Nam Nguyen, nam@ene.im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package im.ene.toro.exoplayer;
+
+import android.net.Uri;
+import android.util.Base64;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.drm.ExoMediaDrm;
+import com.google.android.exoplayer2.drm.HttpMediaDrmCallback;
+import com.google.android.exoplayer2.upstream.DefaultHttpDataSourceFactory;
+import im.ene.toro.media.DrmMedia;
+import java.io.IOException;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * The expiry and the storage of the offline licenses of {@link DrmSessions}, and its requests to a
+ * local stand-in of the license server.
+ */
+@RunWith(RobolectricTestRunner.class) //
+@org.robolectric.annotation.Config(sdk = 28) //
+public class DrmSessionsTest {
+
+  private static final String USER_AGENT = "toro-test";
+  private static final long NOW = 1_600_000_000_000L;
+  private static final byte[] CHALLENGE = { 1, 2, 3, 4 };
+  private static final byte[] LICENSE = { 5, 6, 7, 8, 9 };
+  private static final String EMPTY_MPD = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+      + "<MPD xmlns=\"urn:mpeg:dash:schema:mpd:2011\" type=\"static\""
+      + " mediaPresentationDuration=\"PT10S\" minBufferTime=\"PT2S\""
+      + " profiles=\"urn:mpeg:dash:profile:isoff-on-demand:2011\">\n"
+      + "  <Period id=\"0\" duration=\"PT10S\"/>\n"
+      + "</MPD>\n";
+
+  private DrmSessions sessions;
+  private MockWebServer server;
+
+  @Before public void setUp() throws IOException {
+    sessions = new DrmSessions(RuntimeEnvironment.application, USER_AGENT);
+    server = new MockWebServer();
+    server.start();
+  }
+
+  @After public void tearDown() throws IOException {
+    server.shutdown();
+  }
+
+  /// Expiry
+
+  @Test public void expiry_usesTheShorterDuration() {
+    assertEquals(NOW + 60_000, DrmSessions.expiryOf(60, 3600, NOW));
+    assertEquals(NOW + 60_000, DrmSessions.expiryOf(3600, 60, NOW));
+  }
+
+  @Test public void expiry_ignoresUnsetDuration() {
+    assertEquals(NOW + 60_000, DrmSessions.expiryOf(C.TIME_UNSET, 60, NOW));
+    assertEquals(NOW + 60_000, DrmSessions.expiryOf(60, C.TIME_UNSET, NOW));
+  }
+
+  @Test public void expiry_unlimitedWithoutDuration() {
+    assertEquals(Long.MAX_VALUE, DrmSessions.expiryOf(C.TIME_UNSET, C.TIME_UNSET, NOW));
+    assertEquals(Long.MAX_VALUE, DrmSessions.expiryOf(Long.MAX_VALUE, Long.MAX_VALUE, NOW));
+  }
+
+  @Test public void expiry_expiredLicense() {
+    assertEquals(NOW, DrmSessions.expiryOf(0, 3600, NOW));
+  }
+
+  @Test public void parse_storedValue() {
+    String value = NOW + ":" + Base64.encodeToString(LICENSE, Base64.NO_WRAP);
+    assertEquals(NOW, DrmSessions.parseExpiry(value));
+    assertArrayEquals(LICENSE, DrmSessions.parseKeySetId(value));
+  }
+
+  @Test public void parse_unlimitedExpiry() {
+    String value = Long.MAX_VALUE + ":" + Base64.encodeToString(LICENSE, Base64.NO_WRAP);
+    assertEquals(Long.MAX_VALUE, DrmSessions.parseExpiry(value));
+    assertArrayEquals(LICENSE, DrmSessions.parseKeySetId(value));
+  }
+
+  /// Storage
+
+  @Test public void storedLicense_isReadBack() {
+    long expiry = System.currentTimeMillis() + 3600_000;
+    assertNull(sessions.putOfflineLicense("content", LICENSE, expiry));
+    assertArrayEquals(LICENSE, sessions.getOfflineLicense("content"));
+    assertEquals(expiry, sessions.getOfflineLicenseExpiry("content"));
+  }
+
+  @Test public void storedLicense_unlimited() {
+    sessions.putOfflineLicense("content", LICENSE, Long.MAX_VALUE);
+    assertArrayEquals(LICENSE, sessions.getOfflineLicense("content"));
+    assertEquals(Long.MAX_VALUE, sessions.getOfflineLicenseExpiry("content"));
+  }
+
+  @Test public void storedLicense_expiresWithinTheMargin() {
+    long expiry = System.currentTimeMillis() + DrmSessions.EXPIRY_MARGIN_MS / 2;
+    sessions.putOfflineLicense("content", LICENSE, expiry);
+    assertNull(sessions.getOfflineLicense("content"));
+    // Still stored, so that it can be released when replaced.
+    assertEquals(expiry, sessions.getOfflineLicenseExpiry("content"));
+  }
+
+  @Test public void storedLicense_replacedOneIsReturned() {
+    sessions.putOfflineLicense("content", CHALLENGE, System.currentTimeMillis());
+    byte[] replaced = sessions.putOfflineLicense("content", LICENSE, Long.MAX_VALUE);
+    assertArrayEquals(CHALLENGE, replaced);
+    assertArrayEquals(LICENSE, sessions.getOfflineLicense("content"));
+  }
+
+  @Test public void storedLicense_removed() {
+    sessions.putOfflineLicense("content", LICENSE, Long.MAX_VALUE);
+    sessions.removeOfflineLicense("content");
+    assertNull(sessions.getOfflineLicense("content"));
+    assertEquals(0, sessions.getOfflineLicenseExpiry("content"));
+  }
+
+  /// License server stand-in
+
+  @Test public void licenseRequest_goesToTheStandIn() throws Exception {
+    server.enqueue(new MockResponse().setBody(new Buffer().write(LICENSE)));
+    DrmMedia drm = drmMedia(server.url("/license").toString(), "X-Token", "secret");
+    HttpMediaDrmCallback callback =
+        DrmSessions.buildDrmCallback(drm, new DefaultHttpDataSourceFactory(USER_AGENT));
+
+    byte[] license =
+        callback.executeKeyRequest(C.WIDEVINE_UUID, new ExoMediaDrm.KeyRequest(CHALLENGE, ""));
+
+    assertArrayEquals(LICENSE, license);
+    RecordedRequest request = server.takeRequest();
+    assertEquals("POST", request.getMethod());
+    assertEquals("/license", request.getPath());
+    assertEquals("secret", request.getHeader("X-Token"));
+    assertArrayEquals(CHALLENGE, request.getBody().readByteArray());
+  }
+
+  @Test public void downloadLicense_unprotectedManifestStoresNothing() throws Exception {
+    server.enqueue(new MockResponse().setBody(EMPTY_MPD));
+    DrmMedia drm = drmMedia(server.url("/license").toString());
+    Uri manifestUri = Uri.parse(server.url("/manifest.mpd").toString());
+
+    sessions.downloadLicense(drm, "content", manifestUri,
+        new DefaultHttpDataSourceFactory(USER_AGENT));
+
+    assertEquals(1, server.getRequestCount());
+    assertEquals("/manifest.mpd", server.takeRequest().getPath());
+    assertNull(sessions.getOfflineLicense("content"));
+  }
+
+  @NonNull private static DrmMedia drmMedia(@Nullable final String licenseUrl,
+      @Nullable final String... keyRequestProperties) {
+    return new DrmMedia() {
+      @NonNull @Override public String getType() {
+        return "widevine";
+      }
+
+      @Nullable @Override public String getLicenseUrl() {
+        return licenseUrl;
+      }
+
+      @Nullable @Override public String[] getKeyRequestPropertiesArray() {
+        return keyRequestProperties;
+      }
+
+      @Override public boolean multiSession() {
+        return false;
+      }
+    };
+  }
+}
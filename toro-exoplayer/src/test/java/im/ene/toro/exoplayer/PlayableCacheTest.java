@@ -0,0 +1,220 @@
+/*
+ * Copyright (c) 2020 Nam Nguyen, nam@ene.im
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package im.ene.toro.exoplayer;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.Looper;
+import android.os.SystemClock;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import com.google.android.exoplayer2.SimpleExoPlayer;
+import com.google.android.exoplayer2.source.MediaSource;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.LooperMode;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.robolectric.Shadows.shadowOf;
+import static org.robolectric.annotation.LooperMode.Mode.PAUSED;
+
+/**
+ * The entries of {@link PlayableCache}: matched by media and {@link ExoCreator}, expired after the
+ * grace period, trimmed to the max size and released once.
+ */
+@RunWith(RobolectricTestRunner.class) //
+@LooperMode(PAUSED) //
+@org.robolectric.annotation.Config(sdk = 28) //
+public class PlayableCacheTest {
+
+  private static final long GRACE_PERIOD_MS = 1000;
+  private static final Uri MEDIA = Uri.parse("https://example.com/video.mp4");
+  private static final Uri OTHER_MEDIA = Uri.parse("https://example.com/other.mp4");
+
+  private PlayableCache cache;
+  private ExoCreator creator;
+
+  @Before public void setUp() {
+    cache = new PlayableCache();
+    cache.setGracePeriod(GRACE_PERIOD_MS);
+    creator = new StubCreator();
+  }
+
+  @After public void tearDown() {
+    cache.clear();
+  }
+
+  @Test public void take_returnsTheSameMedia() {
+    CountingPlayable playable = playable(MEDIA);
+    cache.put(playable);
+
+    assertSame(playable, cache.take(playable(MEDIA)));
+    assertEquals(0, cache.size());
+    assertEquals(0, playable.releaseCount);
+  }
+
+  @Test public void take_otherMediaOrCreatorMisses() {
+    cache.put(playable(MEDIA));
+
+    assertNull(cache.take(playable(OTHER_MEDIA)));
+    assertNull(cache.take(new CountingPlayable(new StubCreator(), MEDIA)));
+    assertEquals(1, cache.size());
+  }
+
+  @Test public void put_pausesThePlayable() {
+    CountingPlayable playable = playable(MEDIA);
+    cache.put(playable);
+
+    assertEquals(1, playable.pauseCount);
+  }
+
+  @Test public void put_sameMediaReplacesTheOldOne() {
+    CountingPlayable old = playable(MEDIA);
+    CountingPlayable recent = playable(MEDIA);
+    cache.put(old);
+    cache.put(recent);
+
+    assertEquals(1, cache.size());
+    assertSame(recent, cache.take(playable(MEDIA)));
+    cache.clear();
+    assertEquals(1, old.releaseCount);
+    assertEquals(0, recent.releaseCount);
+  }
+
+  @Test public void put_trimsTheOldestEntries() {
+    CountingPlayable oldest = playable(Uri.parse("https://example.com/0.mp4"));
+    cache.put(oldest);
+    for (int i = 1; i <= PlayableCache.DEFAULT_MAX_SIZE; i++) {
+      cache.put(playable(Uri.parse("https://example.com/" + i + ".mp4")));
+    }
+
+    assertEquals(PlayableCache.DEFAULT_MAX_SIZE, cache.size());
+    assertNull(cache.take(playable(Uri.parse("https://example.com/0.mp4"))));
+    cache.clear();
+    assertEquals(1, oldest.releaseCount);
+  }
+
+  @Test public void expire_afterTheGracePeriod() {
+    long now = SystemClock.uptimeMillis();
+    CountingPlayable playable = playable(MEDIA);
+    cache.put(playable);
+
+    cache.expireEntries(now + GRACE_PERIOD_MS - 1);
+    assertEquals(1, cache.size());
+
+    cache.expireEntries(now + GRACE_PERIOD_MS);
+    assertEquals(0, cache.size());
+    assertNull(cache.take(playable(MEDIA)));
+  }
+
+  @Test public void expire_onlyTheOutdatedEntries() {
+    CountingPlayable old = playable(MEDIA);
+    cache.put(old);
+    shadowOf(Looper.getMainLooper()).idleFor(GRACE_PERIOD_MS / 2, TimeUnit.MILLISECONDS);
+    CountingPlayable recent = playable(OTHER_MEDIA);
+    cache.put(recent);
+
+    shadowOf(Looper.getMainLooper()).idleFor(GRACE_PERIOD_MS / 2, TimeUnit.MILLISECONDS);
+
+    assertEquals(1, cache.size());
+    assertNull(cache.take(playable(MEDIA)));
+    assertSame(recent, cache.take(playable(OTHER_MEDIA)));
+  }
+
+  @Test public void expire_releasesOnce() {
+    long now = SystemClock.uptimeMillis();
+    CountingPlayable playable = playable(MEDIA);
+    cache.put(playable);
+    cache.expireEntries(now + GRACE_PERIOD_MS);
+
+    cache.clear();
+    cache.clear();
+
+    assertEquals(1, playable.releaseCount);
+  }
+
+  @Test public void disable_releasesTheEntries() {
+    CountingPlayable playable = playable(MEDIA);
+    cache.put(playable);
+
+    cache.setGracePeriod(0);
+
+    assertEquals(0, cache.size());
+    assertEquals(1, playable.releaseCount);
+  }
+
+  @Test public void accepts_onlyIfEnabledAndPrepared() {
+    ExoPlayable playable = new ExoPlayable(creator, MEDIA, null);
+    assertFalse(cache.accepts(playable));  // No Player.
+
+    cache.setGracePeriod(0);
+    assertFalse(cache.accepts(playable));
+  }
+
+  @NonNull private CountingPlayable playable(@NonNull Uri uri) {
+    return new CountingPlayable(creator, uri);
+  }
+
+  static final class CountingPlayable extends ExoPlayable {
+
+    int pauseCount;
+    int releaseCount;
+
+    CountingPlayable(ExoCreator creator, Uri uri) {
+      super(creator, uri, null);
+    }
+
+    @Override public void pause() {
+      super.pause();
+      pauseCount++;
+    }
+
+    @Override public void release() {
+      super.release();
+      releaseCount++;
+    }
+  }
+
+  // The cache only compares the instances of ExoCreator, none of its methods is used.
+  static final class StubCreator implements ExoCreator {
+
+    @Nullable @Override public Context getContext() {
+      return RuntimeEnvironment.application;
+    }
+
+    @NonNull @Override public SimpleExoPlayer createPlayer() {
+      throw new UnsupportedOperationException();
+    }
+
+    @NonNull @Override
+    public MediaSource createMediaSource(@NonNull Uri uri, @Nullable String fileExt) {
+      throw new UnsupportedOperationException();
+    }
+
+    @NonNull @Override public Playable createPlayable(@NonNull Uri uri, @Nullable String fileExt) {
+      throw new UnsupportedOperationException();
+    }
+  }
+}